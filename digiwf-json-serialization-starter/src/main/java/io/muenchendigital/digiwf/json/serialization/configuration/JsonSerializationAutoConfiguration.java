@@ -1,31 +1,111 @@
 package io.muenchendigital.digiwf.json.serialization.configuration;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.gson.JsonElement;
+import io.muenchendigital.digiwf.json.factory.LocalSchemaClient;
 import io.muenchendigital.digiwf.json.serialization.JsonSerializationService;
 import io.muenchendigital.digiwf.json.serialization.serializer.JsonSerializer;
 import io.muenchendigital.digiwf.json.serialization.serializer.JsonSerializerImpl;
+import io.muenchendigital.digiwf.json.serialization.serializer.JsonTreeSerializer;
+import io.muenchendigital.digiwf.json.serialization.serializer.tree.GsonJsonTree;
+import io.muenchendigital.digiwf.json.serialization.serializer.tree.JacksonJsonTree;
+import io.muenchendigital.digiwf.json.serialization.serializer.tree.OrgJsonTree;
 import io.muenchendigital.digiwf.json.validation.JsonSchemaValidator;
+import io.muenchendigital.digiwf.json.validation.ValidationResultCache;
+import org.everit.json.schema.loader.SchemaClient;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.ResourcePatternUtils;
+
+import java.util.concurrent.ExecutorService;
 
 
 @Configuration
+@EnableConfigurationProperties(JsonSerializationProperties.class)
 public class JsonSerializationAutoConfiguration {
 
     @Bean
     @ConditionalOnMissingBean
-    public JsonSerializer jsonSchemaSerializer() {
-        return new JsonSerializerImpl();
+    public JsonSerializer jsonSchemaSerializer(final JsonSerializationProperties properties) {
+        return new JsonSerializerImpl(JsonSerializerImpl.DEFAULT_PARALLEL_ARRAY_THRESHOLD, properties.getLimits().getMaxDepth());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public SchemaClient jsonSchemaClient(final JsonSerializationProperties properties) {
+        final JsonSerializationProperties.SchemaClient schemaClient = properties.getSchemaClient();
+        return new LocalSchemaClient(schemaClient.getLocations(), schemaClient.isAllowRemote() ? SchemaClient.classPathAwareClient() : null);
+    }
+
+    /**
+     * Executor of asynchronous schema compilations, shut down with the application context
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean(name = "jsonSchemaCompileExecutor")
+    public ExecutorService jsonSchemaCompileExecutor(final JsonSerializationProperties properties) {
+        final JsonSerializationProperties.Compile compile = properties.getCompile();
+        return JsonSerializationService.newCompileExecutor(compile.getThreads(), compile.getQueueCapacity());
+    }
+
+    @Bean
+    public JsonSerializationService jsonSchemaSerializationService(final JsonSerializer serializer, final SchemaClient schemaClient,
+                                                                   final JsonSerializationProperties properties,
+                                                                   @Qualifier("jsonSchemaCompileExecutor") final ExecutorService compileExecutor) {
+        return new JsonSerializationService(serializer, properties.getLimits().toJsonLimits(), schemaClient, compileExecutor);
     }
 
     @Bean
-    public JsonSerializationService jsonSchemaSerializationService(final JsonSerializer serializer) {
-        return new JsonSerializationService(serializer);
+    public JsonSchemaValidator jsonSchemaValidator(final SchemaClient schemaClient, final JsonSerializationProperties properties) {
+        final int resultCacheSize = properties.getValidation().getResultCacheSize();
+        return new JsonSchemaValidator(properties.getLimits().toJsonLimits(), schemaClient,
+                resultCacheSize > 0 ? new ValidationResultCache(resultCacheSize) : null);
     }
 
     @Bean
-    public JsonSchemaValidator jsonSchemaValidator() {
-        return new JsonSchemaValidator();
+    @ConditionalOnMissingBean
+    public JsonSerializationWarmUp jsonSerializationWarmUp(final JsonSerializationService serializationService, final JsonSchemaValidator validator,
+                                                           final ResourceLoader resourceLoader, final JsonSerializationProperties properties) {
+        return new JsonSerializationWarmUp(serializationService, validator, ResourcePatternUtils.getResourcePatternResolver(resourceLoader),
+                properties.getWarmup());
+    }
+
+    /**
+     * JsonTreeSerializer for the json tree implementation that is selected with digiwf.json.serialization.tree-backend
+     */
+    @Configuration
+    static class JsonTreeSerializerConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean(JsonTreeSerializer.class)
+        @ConditionalOnProperty(prefix = "digiwf.json.serialization", name = "tree-backend", havingValue = "org-json", matchIfMissing = true)
+        public JsonTreeSerializer<Object> orgJsonTreeSerializer(final JsonSerializer serializer) {
+            return serializer.forTree(new OrgJsonTree());
+        }
+
+        @Bean
+        @ConditionalOnMissingBean(JsonTreeSerializer.class)
+        @ConditionalOnProperty(prefix = "digiwf.json.serialization", name = "tree-backend", havingValue = "gson")
+        public JsonTreeSerializer<JsonElement> gsonTreeSerializer(final JsonSerializer serializer) {
+            return serializer.forTree(new GsonJsonTree());
+        }
+    }
+
+    @Configuration
+    @ConditionalOnClass(JsonNode.class)
+    static class JacksonTreeSerializerConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean(JsonTreeSerializer.class)
+        @ConditionalOnProperty(prefix = "digiwf.json.serialization", name = "tree-backend", havingValue = "jackson")
+        public JsonTreeSerializer<JsonNode> jacksonTreeSerializer(final JsonSerializer serializer) {
+            return serializer.forTree(new JacksonJsonTree());
+        }
     }
 
-}
\ No newline at end of file
+}
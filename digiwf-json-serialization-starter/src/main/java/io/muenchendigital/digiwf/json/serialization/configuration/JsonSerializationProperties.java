@@ -0,0 +1,135 @@
+package io.muenchendigital.digiwf.json.serialization.configuration;
+
+import io.muenchendigital.digiwf.json.factory.JsonLimits;
+import io.muenchendigital.digiwf.json.serialization.JsonSerializationService;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuration of the json serialization
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "digiwf.json.serialization")
+public class JsonSerializationProperties {
+
+    /**
+     * Limits that are enforced when json input is read
+     */
+    private Limits limits = new Limits();
+
+    /**
+     * Resolution of referenced schemas ({@code $ref})
+     */
+    private SchemaClient schemaClient = new SchemaClient();
+
+    /**
+     * Executor of the asynchronous schema compilation
+     */
+    private Compile compile = new Compile();
+
+    /**
+     * Validation of json data
+     */
+    private Validation validation = new Validation();
+
+    /**
+     * Warm-up of the configured schemas when the application is ready
+     */
+    private WarmUp warmup = new WarmUp();
+
+    /**
+     * Json tree implementation of the JsonTreeSerializer bean: org-json, jackson or gson
+     */
+    private String treeBackend = "org-json";
+
+    @Getter
+    @Setter
+    public static class Limits {
+        private int maxDepth = JsonLimits.DEFAULT.getMaxDepth();
+        private int maxStringLength = JsonLimits.DEFAULT.getMaxStringLength();
+        private int maxArraySize = JsonLimits.DEFAULT.getMaxArraySize();
+        private long maxTotalChars = JsonLimits.DEFAULT.getMaxTotalChars();
+        private int maxSchemaDepth = JsonLimits.DEFAULT.getMaxSchemaDepth();
+        private int maxSchemaNodes = JsonLimits.DEFAULT.getMaxSchemaNodes();
+        private int maxSchemaFanOut = JsonLimits.DEFAULT.getMaxSchemaFanOut();
+        private long maxSchemaCost = JsonLimits.DEFAULT.getMaxSchemaCost();
+        private boolean rejectComplexSchemas = JsonLimits.DEFAULT.isRejectComplexSchemas();
+
+        public JsonLimits toJsonLimits() {
+            return JsonLimits.builder()
+                    .maxDepth(this.maxDepth)
+                    .maxStringLength(this.maxStringLength)
+                    .maxArraySize(this.maxArraySize)
+                    .maxTotalChars(this.maxTotalChars)
+                    .maxSchemaDepth(this.maxSchemaDepth)
+                    .maxSchemaNodes(this.maxSchemaNodes)
+                    .maxSchemaFanOut(this.maxSchemaFanOut)
+                    .maxSchemaCost(this.maxSchemaCost)
+                    .rejectComplexSchemas(this.rejectComplexSchemas)
+                    .build();
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class SchemaClient {
+
+        /**
+         * Classpath locations by url prefix, map keys with special characters need brackets,
+         * e.g. {@code locations."[https://example.com/schemas/]": schema}
+         */
+        private Map<String, String> locations = new LinkedHashMap<>();
+
+        /**
+         * Load referenced schemas that cannot be resolved locally from the network
+         */
+        private boolean allowRemote = false;
+    }
+
+    @Getter
+    @Setter
+    public static class Compile {
+
+        /**
+         * Maximum number of threads that compile schemas
+         */
+        private int threads = JsonSerializationService.DEFAULT_COMPILE_THREADS;
+
+        /**
+         * Maximum number of compilations that wait for a thread, further compilations are rejected
+         */
+        private int queueCapacity = JsonSerializationService.DEFAULT_COMPILE_QUEUE_CAPACITY;
+    }
+
+    @Getter
+    @Setter
+    public static class Validation {
+
+        /**
+         * Maximum number of cached validation results, 0 disables the cache
+         */
+        private int resultCacheSize = 0;
+    }
+
+    @Getter
+    @Setter
+    public static class WarmUp {
+
+        /**
+         * Locations of the schemas that are compiled and warmed up, e.g. {@code classpath*:schema/*.json}
+         */
+        private List<String> schemas = new ArrayList<>();
+
+        /**
+         * Number of filter, merge and validate iterations per schema
+         */
+        private int iterations = 1000;
+    }
+}
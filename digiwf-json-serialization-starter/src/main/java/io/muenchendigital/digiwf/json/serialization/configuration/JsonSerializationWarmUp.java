@@ -0,0 +1,134 @@
+package io.muenchendigital.digiwf.json.serialization.configuration;
+
+import io.muenchendigital.digiwf.json.serialization.JsonSerializationService;
+import io.muenchendigital.digiwf.json.validation.JsonSchemaValidator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.everit.json.schema.ValidationException;
+import org.json.JSONObject;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Compiles the configured schemas and runs synthetic filter, merge and validate calls on their generated skeleton,
+ * so the schemas are cached and the serialization code is optimized by the JIT before the first request.
+ * <p>
+ * The warm-up runs synchronously on {@link ApplicationReadyEvent}. Spring Boot publishes the readiness state
+ * ACCEPTING_TRAFFIC after the ready event, so the application only reports readiness after the warm-up.
+ * Schemas that cannot be compiled are logged and skipped, a broken schema does not stop the application.
+ * Each operation is warmed up on its own, an operation that fails is skipped without skipping the other operations.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class JsonSerializationWarmUp {
+
+    private final JsonSerializationService serializationService;
+
+    private final JsonSchemaValidator validator;
+
+    private final ResourcePatternResolver resourceResolver;
+
+    private final JsonSerializationProperties.WarmUp properties;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        final List<String> schemas = this.loadSchemas();
+        if (schemas.isEmpty()) {
+            return;
+        }
+        final Duration duration = this.warmUp(schemas, this.properties.getIterations());
+        log.info("Warmed up json serialization with {} schemas and {} iterations in {} ms", schemas.size(), this.properties.getIterations(), duration.toMillis());
+    }
+
+    /**
+     * Compiles the schemas and runs the given number of filter, merge and validate iterations for each schema.
+     * Schemas that cannot be compiled and operations that fail are logged and skipped.
+     *
+     * @param schemas    raw json schemas
+     * @param iterations number of iterations per schema
+     * @return duration of the warm-up
+     */
+    public Duration warmUp(final List<String> schemas, final int iterations) {
+        final long start = System.nanoTime();
+        for (final String schema : schemas) {
+            try {
+                this.serializationService.compile(schema);
+                this.runIterations(schema, iterations);
+            } catch (final RuntimeException e) {
+                log.warn("Could not warm up schema {}", abbreviate(schema), e);
+            }
+        }
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+
+    //------------------------------------- helper methods -------------------------------------//
+
+    // an operation that fails, e.g. because a custom serializer does not support it, is skipped in the following iterations
+    private void runIterations(final String schema, final int iterations) {
+        final Map<String, BiConsumer<String, JSONObject>> operations = this.operations();
+        for (int i = 0; i < iterations && !operations.isEmpty(); i++) {
+            final JSONObject skeleton = this.serializationService.initialize(schema);
+            final Iterator<Map.Entry<String, BiConsumer<String, JSONObject>>> iterator = operations.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Map.Entry<String, BiConsumer<String, JSONObject>> operation = iterator.next();
+                try {
+                    operation.getValue().accept(schema, skeleton);
+                } catch (final RuntimeException e) {
+                    log.warn("Could not warm up {} of schema {}", operation.getKey(), abbreviate(schema), e);
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private Map<String, BiConsumer<String, JSONObject>> operations() {
+        final Map<String, BiConsumer<String, JSONObject>> operations = new LinkedHashMap<>();
+        operations.put("filter", (schema, skeleton) -> this.serializationService.filter(schema, skeleton.toMap(), true));
+        operations.put("conditional filter", (schema, skeleton) -> this.serializationService.filter(schema, skeleton.toMap(), false, true));
+        operations.put("streaming filter", (schema, skeleton) -> this.serializationService.filter(schema, new StringReader(skeleton.toString()), true));
+        operations.put("mergeCopy", (schema, skeleton) -> this.serializationService.mergeCopy(skeleton, this.serializationService.initialize(schema)));
+        operations.put("merge", (schema, skeleton) -> this.serializationService.merge(skeleton, this.serializationService.initialize(schema)));
+        operations.put("validate", (schema, skeleton) -> {
+            try {
+                this.validator.validate(schema, skeleton.toMap());
+            } catch (final ValidationException e) {
+                // the skeleton does not have to be valid, the validation code is warmed up anyway
+            }
+        });
+        return operations;
+    }
+
+    private List<String> loadSchemas() {
+        final List<String> schemas = new ArrayList<>();
+        for (final String location : this.properties.getSchemas()) {
+            try {
+                for (final Resource resource : this.resourceResolver.getResources(location)) {
+                    try (final InputStream inputStream = resource.getInputStream()) {
+                        schemas.add(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+                    }
+                }
+            } catch (final IOException e) {
+                log.warn("Could not load schema {} for the warm-up", location, e);
+            }
+        }
+        return schemas;
+    }
+
+    private static String abbreviate(final String schema) {
+        return schema.length() <= 100 ? schema : schema.substring(0, 100) + "...";
+    }
+}
@@ -0,0 +1,132 @@
+package io.muenchendigital.digiwf.json.serialization.configuration;
+
+import io.muenchendigital.digiwf.json.serialization.JsonSerializationService;
+import io.muenchendigital.digiwf.json.serialization.model.JsonPointer;
+import io.muenchendigital.digiwf.json.serialization.serializer.JsonSerializer;
+import io.muenchendigital.digiwf.json.serialization.serializer.JsonSerializerImpl;
+import org.assertj.core.api.Assertions;
+import org.everit.json.schema.Schema;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class JsonSerializationWarmUpTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(JsonSerializationAutoConfiguration.class));
+
+    @Test
+    public void compileConfiguredSchemasWhenReady() {
+        this.contextRunner
+                .withPropertyValues(
+                        "digiwf.json.serialization.warmup.schemas=classpath:warmup/address.json",
+                        "digiwf.json.serialization.warmup.iterations=2")
+                .run(context -> {
+                    final JsonSerializationService service = context.getBean(JsonSerializationService.class);
+                    Assertions.assertThat(service.getDeduplicationReport().getDistinctSchemas()).isZero();
+
+                    context.publishEvent(new ApplicationReadyEvent(new SpringApplication(), new String[0], context.getSourceApplicationContext(), Duration.ZERO));
+
+                    Assertions.assertThat(service.getDeduplicationReport().getDistinctSchemas()).isEqualTo(1);
+                });
+    }
+
+    @Test
+    public void skipBrokenSchemas() {
+        this.contextRunner
+                .withPropertyValues(
+                        "digiwf.json.serialization.warmup.schemas=classpath:warmup/broken.json,classpath:warmup/address.json",
+                        "digiwf.json.serialization.warmup.iterations=1")
+                .run(context -> {
+                    context.publishEvent(new ApplicationReadyEvent(new SpringApplication(), new String[0], context.getSourceApplicationContext(), Duration.ZERO));
+
+                    Assertions.assertThat(context).hasNotFailed();
+                    // the schema after the broken schema is warmed up as well
+                    Assertions.assertThat(context.getBean(JsonSerializationService.class).getDeduplicationReport().getDistinctSchemas()).isEqualTo(1);
+                });
+    }
+
+    @Test
+    public void skipOnlyFailingOperationsOfCustomSerializer() {
+        final ConditionlessSerializer serializer = new ConditionlessSerializer();
+        this.contextRunner
+                .withBean(JsonSerializer.class, () -> serializer)
+                .withPropertyValues(
+                        "digiwf.json.serialization.warmup.schemas=classpath:warmup/address.json",
+                        "digiwf.json.serialization.warmup.iterations=2")
+                .run(context -> {
+                    context.publishEvent(new ApplicationReadyEvent(new SpringApplication(), new String[0], context.getSourceApplicationContext(), Duration.ZERO));
+
+                    Assertions.assertThat(context).hasNotFailed();
+                    // the failing conditional filter is tried once, the operations after it run in every iteration
+                    // (merge and the default mergeCopy both merge)
+                    Assertions.assertThat(serializer.conditionalFilterCalls).hasValue(1);
+                    Assertions.assertThat(serializer.mergeCalls).hasValue(4);
+                });
+    }
+
+    /**
+     * Custom serializer that does not evaluate conditions and uses the default methods of the interface.
+     */
+    private static class ConditionlessSerializer implements JsonSerializer {
+
+        private final JsonSerializer delegate = new JsonSerializerImpl();
+
+        private final AtomicInteger conditionalFilterCalls = new AtomicInteger();
+
+        private final AtomicInteger mergeCalls = new AtomicInteger();
+
+        @Override
+        public Map<String, Object> deserialize(final Schema schema, final Map<String, Object> data) {
+            return this.delegate.deserialize(schema, data);
+        }
+
+        @Override
+        public JSONObject filter(final Schema schema, final JSONObject data, final boolean filterReadOnly) {
+            return this.delegate.filter(schema, data, filterReadOnly);
+        }
+
+        @Override
+        public JSONObject filter(final Schema schema, final JSONObject data, final boolean filterReadOnly, final boolean evaluateConditions) {
+            if (evaluateConditions) {
+                this.conditionalFilterCalls.incrementAndGet();
+                throw new UnsupportedOperationException("conditions are not evaluated");
+            }
+            return this.filter(schema, data, filterReadOnly);
+        }
+
+        @Override
+        public Map<String, Object> merge(final JSONObject source, final JSONObject target) {
+            this.mergeCalls.incrementAndGet();
+            return this.delegate.merge(source, target);
+        }
+
+        @Override
+        public Set<String> extractRootKeys(final Schema schema) {
+            return this.delegate.extractRootKeys(schema);
+        }
+
+        @Override
+        public Object extractValue(final JSONObject data, final JsonPointer jsonPointer) {
+            return this.delegate.extractValue(data, jsonPointer);
+        }
+
+        @Override
+        public JSONObject generateValue(final JsonPointer jsonPointer, final String value) {
+            return this.delegate.generateValue(jsonPointer, value);
+        }
+
+        @Override
+        public JSONObject generateObject(final Set<String> keys) {
+            return this.delegate.generateObject(keys);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package io.muenchendigital.digiwf.json.factory;
+
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Thread-safe cache that holds at most {@code maxSize} values and evicts the least recently used values first.
+ * <p>
+ * Reads do not take a lock, a hit only updates the access stamp of the entry. When the cache grows beyond
+ * {@code maxSize} the least recently used tenth of the entries is evicted in one pass, so the cost of the eviction
+ * is shared by the following inserts. Concurrent reads during an eviction may keep an entry that is evicted afterwards,
+ * so the order of the eviction is approximate.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class BoundedCache<K, V> {
+
+    private final int maxSize;
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final Object evictionLock = new Object();
+
+    /**
+     * @param maxSize maximum number of cached values
+     */
+    public BoundedCache(final int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the cached value.
+     *
+     * @param key key of the value
+     * @return cached value, null if the key is not cached
+     */
+    public V get(final K key) {
+        final Entry<V> entry = this.entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        entry.accessed = this.clock.incrementAndGet();
+        return entry.value;
+    }
+
+    /**
+     * Returns the cached value or creates it. The value is created outside of any lock,
+     * a value that is created concurrently is cached once and the cached value is returned to all callers.
+     *
+     * @param key     key of the value
+     * @param factory creates the value
+     * @return cached value
+     */
+    public V get(final K key, final Function<K, V> factory) {
+        final V cached = this.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        final V created = factory.apply(key);
+        final V existing = this.putIfAbsent(key, created);
+        return existing != null ? existing : created;
+    }
+
+    /**
+     * Caches the value unless the key is already cached.
+     *
+     * @param key   key of the value
+     * @param value value
+     * @return the already cached value, null if the given value was cached
+     */
+    public V putIfAbsent(final K key, final V value) {
+        final Entry<V> entry = new Entry<>(value, this.clock.incrementAndGet());
+        final Entry<V> existing = this.entries.putIfAbsent(key, entry);
+        if (existing != null) {
+            return existing.value;
+        }
+        this.evictIfFull();
+        return null;
+    }
+
+    /**
+     * Caches the value and replaces an already cached value.
+     *
+     * @param key   key of the value
+     * @param value value
+     */
+    public void put(final K key, final V value) {
+        this.entries.put(key, new Entry<>(value, this.clock.incrementAndGet()));
+        this.evictIfFull();
+    }
+
+    /**
+     * Removes the value if it is still cached for the key.
+     *
+     * @param key   key of the value
+     * @param value value that is removed
+     */
+    public void remove(final K key, final V value) {
+        final Entry<V> entry = this.entries.get(key);
+        if (entry != null && Objects.equals(entry.value, value)) {
+            this.entries.remove(key, entry);
+        }
+    }
+
+    /**
+     * @return number of cached values
+     */
+    public int size() {
+        return this.entries.size();
+    }
+
+    //------------------------------------- helper methods -------------------------------------//
+
+    private void evictIfFull() {
+        if (this.entries.size() <= this.maxSize) {
+            return;
+        }
+        synchronized (this.evictionLock) {
+            final int evictions = this.entries.size() - this.maxSize + this.maxSize / 10;
+            if (evictions <= this.maxSize / 10) {
+                // evicted by a concurrent insert
+                return;
+            }
+            // the access stamps are copied, concurrent reads must not change the order while it is sorted
+            final List<Candidate<K, V>> candidates = new ArrayList<>(this.entries.size());
+            this.entries.forEach((key, entry) -> candidates.add(new Candidate<>(key, entry, entry.accessed)));
+            candidates.sort(Comparator.comparingLong(candidate -> candidate.accessed));
+            candidates.stream()
+                    .limit(evictions)
+                    .forEach(candidate -> this.entries.remove(candidate.key, candidate.entry));
+        }
+    }
+
+    private static class Entry<V> {
+
+        private final V value;
+
+        // written by concurrent readers, the latest stamp wins
+        private volatile long accessed;
+
+        private Entry(final V value, final long accessed) {
+            this.value = value;
+            this.accessed = accessed;
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class Candidate<K, V> {
+        private final K key;
+        private final Entry<V> entry;
+        private final long accessed;
+    }
+}
@@ -0,0 +1,86 @@
+package io.muenchendigital.digiwf.json.factory;
+
+import org.everit.json.schema.regexp.RE2JRegexpFactory;
+import org.everit.json.schema.regexp.Regexp;
+import org.everit.json.schema.regexp.RegexpFactory;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RegexpFactory that caches compiled regular expressions of {@code pattern} and {@code patternProperties} keywords.
+ * <p>
+ * Schemas often share the same patterns (e.g. postal codes or phone numbers), so a pattern is compiled once and
+ * the compiled expression is shared by all schemas. Compiled expressions are immutable and thread-safe.
+ * The cache holds at most {@code maxSize} expressions, the least recently used expressions are evicted first, see {@link BoundedCache}.
+ * Hits and misses are counted for monitoring.
+ */
+public class CachingRegexpFactory implements RegexpFactory {
+
+    public static final int DEFAULT_MAX_SIZE = 1000;
+
+    private final RegexpFactory delegate;
+
+    private final BoundedCache<String, Regexp> regexps;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    public CachingRegexpFactory() {
+        this(new RE2JRegexpFactory(), DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param delegate factory that compiles the regular expressions
+     * @param maxSize  maximum number of cached expressions
+     */
+    public CachingRegexpFactory(final RegexpFactory delegate, final int maxSize) {
+        this.delegate = delegate;
+        this.regexps = new BoundedCache<>(maxSize);
+    }
+
+    @Override
+    public Regexp createHandler(final String regexp) {
+        final Regexp cached = this.regexps.get(regexp);
+        if (cached != null) {
+            this.hits.increment();
+            return cached;
+        }
+        this.misses.increment();
+        // a pattern that is compiled concurrently is cached once
+        final Regexp created = this.delegate.createHandler(regexp);
+        final Regexp existing = this.regexps.putIfAbsent(regexp, created);
+        return existing != null ? existing : created;
+    }
+
+    /**
+     * @return number of patterns that were found in the cache
+     */
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    /**
+     * @return number of patterns that were compiled
+     */
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    /**
+     * @return share of patterns that were found in the cache, 0 if no pattern was requested
+     */
+    public double getHitRate() {
+        final long hitCount = this.getHits();
+        final long total = hitCount + this.getMisses();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * @return number of cached expressions
+     */
+    public int size() {
+        return this.regexps.size();
+    }
+
+}
@@ -0,0 +1,257 @@
+package io.muenchendigital.digiwf.json.factory;
+
+import org.everit.json.schema.FormatValidator;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Rewrites anyOf and oneOf unions of constants into schemas that are validated without trying every option.
+ * <p>
+ * Select fields are often defined as {@code anyOf} list of {@code {"const": ...}} schemas. A validation of such a
+ * union validates every option and creates an exception for every option that does not match.
+ * The indexer replaces
+ * <ul>
+ *     <li>unions of string constants by a format that looks up the value in a hash set</li>
+ *     <li>unions of other constants by a single {@code enum}</li>
+ *     <li>discriminated unions (object options with a required property with a distinct {@code const} value)
+ *     by a check of the discriminator and one if/then schema per option, so only the matching option is
+ *     validated completely</li>
+ * </ul>
+ * The rewritten schema accepts the same data, but the violations are reported for the rewritten keywords.
+ * Options of a union may only contain annotations (e.g. {@code title}) besides the constant.
+ */
+class ConstUnionIndexer {
+
+    private static final String FORMAT_PREFIX = "x-const-index-";
+
+    // keywords that validate data, all other keywords are annotations
+    private static final Set<String> VALIDATION_KEYWORDS = Set.of(
+            "$ref", "type", "enum", "const", "multipleOf", "maximum", "exclusiveMaximum", "minimum", "exclusiveMinimum",
+            "maxLength", "minLength", "pattern", "format", "items", "additionalItems", "maxItems", "minItems", "uniqueItems",
+            "contains", "maxProperties", "minProperties", "required", "properties", "patternProperties", "additionalProperties",
+            "dependencies", "propertyNames", "if", "then", "else", "allOf", "anyOf", "oneOf", "not");
+
+    // values of these keywords are data and not schemas
+    private static final Set<String> DATA_KEYWORDS = Set.of("const", "enum", "default", "examples", "required");
+
+    private final Map<String, FormatValidator> formatValidators = new LinkedHashMap<>();
+
+    /**
+     * Returns a copy of the schema with indexed unions.
+     *
+     * @param schema raw json schema, the schema is not modified
+     * @return rewritten schema
+     */
+    JSONObject index(final JSONObject schema) {
+        final JSONObject copy = new JSONObject(schema.toString());
+        this.rewrite(copy);
+        return copy;
+    }
+
+    /**
+     * @return format validators of the rewritten string unions by their format name
+     */
+    Map<String, FormatValidator> getFormatValidators() {
+        return this.formatValidators;
+    }
+
+    //------------------------------------- helper methods -------------------------------------//
+
+    private void rewrite(final JSONObject schema) {
+        for (final String key : new ArrayList<>(schema.keySet())) {
+            if (DATA_KEYWORDS.contains(key)) {
+                continue;
+            }
+            final Object value = schema.get(key);
+            if (value instanceof JSONObject) {
+                this.rewrite((JSONObject) value);
+            } else if (value instanceof JSONArray) {
+                for (final Object item : (JSONArray) value) {
+                    if (item instanceof JSONObject) {
+                        this.rewrite((JSONObject) item);
+                    }
+                }
+            }
+        }
+        this.rewriteUnion(schema, "anyOf");
+        this.rewriteUnion(schema, "oneOf");
+    }
+
+    private void rewriteUnion(final JSONObject schema, final String keyword) {
+        final JSONArray options = schema.optJSONArray(keyword);
+        if (options == null || options.isEmpty()) {
+            return;
+        }
+        final List<Object> constants = getConstants(options);
+        if (constants != null) {
+            this.rewriteConstants(schema, keyword, constants);
+            return;
+        }
+        final String discriminator = getDiscriminator(options);
+        if (discriminator != null) {
+            this.rewriteDiscriminated(schema, keyword, options, discriminator);
+        }
+    }
+
+    private void rewriteConstants(final JSONObject schema, final String keyword, final List<Object> constants) {
+        // options with the same value match both, so oneOf rejects these values
+        if ("oneOf".equals(keyword) && new HashSet<>(canonical(constants)).size() < constants.size()) {
+            return;
+        }
+        final boolean strings = constants.stream().allMatch(String.class::isInstance);
+        final Object type = schema.opt("type");
+        if (strings && !schema.has("format") && (type == null || "string".equals(type))) {
+            schema.remove(keyword);
+            schema.put("type", "string");
+            schema.put("format", this.registerFormat(constants));
+        } else if (!schema.has("enum") && !schema.has("const")) {
+            schema.remove(keyword);
+            schema.put("enum", new JSONArray(constants));
+        }
+    }
+
+    private void rewriteDiscriminated(final JSONObject schema, final String keyword, final JSONArray options, final String discriminator) {
+        final List<Object> values = new ArrayList<>();
+        final JSONArray conditions = new JSONArray();
+        for (final Object option : options) {
+            final Object value = ((JSONObject) option).getJSONObject("properties").getJSONObject(discriminator).get("const");
+            values.add(value);
+            conditions.put(new JSONObject()
+                    .put("if", new JSONObject()
+                            .put("properties", new JSONObject().put(discriminator, new JSONObject().put("const", value)))
+                            .put("required", new JSONArray().put(discriminator)))
+                    .put("then", option));
+        }
+
+        final JSONObject discriminatorSchema = new JSONObject();
+        this.rewriteConstants(discriminatorSchema, "anyOf", values);
+        final JSONObject check = new JSONObject()
+                .put("type", "object")
+                .put("properties", new JSONObject().put(discriminator, discriminatorSchema))
+                .put("required", new JSONArray().put(discriminator));
+
+        final JSONArray allOf = schema.optJSONArray("allOf") != null ? schema.getJSONArray("allOf") : new JSONArray();
+        allOf.put(check);
+        conditions.forEach(allOf::put);
+        schema.remove(keyword);
+        schema.put("allOf", allOf);
+    }
+
+    private String registerFormat(final List<Object> constants) {
+        final String name = FORMAT_PREFIX + this.formatValidators.size();
+        final Set<String> values = new HashSet<>();
+        constants.forEach(value -> values.add((String) value));
+        this.formatValidators.put(name, new ConstantsFormatValidator(name, values));
+        return name;
+    }
+
+    /**
+     * Returns the values of the options if every option only permits constants, null otherwise.
+     */
+    static List<Object> getConstants(final JSONArray options) {
+        final List<Object> constants = new ArrayList<>();
+        for (final Object option : options) {
+            if (!(option instanceof JSONObject)) {
+                return null;
+            }
+            final JSONObject optionSchema = (JSONObject) option;
+            final Set<String> keywords = getValidationKeywords(optionSchema);
+            if (keywords.equals(Set.of("const"))) {
+                constants.add(optionSchema.get("const"));
+            } else if (keywords.equals(Set.of("enum")) && optionSchema.get("enum") instanceof JSONArray) {
+                optionSchema.getJSONArray("enum").forEach(constants::add);
+            } else {
+                return null;
+            }
+        }
+        return constants;
+    }
+
+    /**
+     * Returns a required property that has a distinct const value in every option, if all options are object schemas.
+     */
+    static String getDiscriminator(final JSONArray options) {
+        if (options.length() < 2) {
+            return null;
+        }
+        for (final Object option : options) {
+            if (!(option instanceof JSONObject) || !"object".equals(((JSONObject) option).opt("type"))
+                    || ((JSONObject) option).optJSONObject("properties") == null || ((JSONObject) option).optJSONArray("required") == null) {
+                return null;
+            }
+        }
+        final JSONObject first = options.getJSONObject(0);
+        for (final String property : new TreeSet<>(first.getJSONObject("properties").keySet())) {
+            if (isDiscriminator(options, property)) {
+                return property;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isDiscriminator(final JSONArray options, final String property) {
+        final List<Object> values = new ArrayList<>();
+        for (final Object option : options) {
+            final JSONObject optionSchema = (JSONObject) option;
+            final JSONObject propertySchema = optionSchema.getJSONObject("properties").optJSONObject(property);
+            if (propertySchema == null || !propertySchema.has("const") || !optionSchema.getJSONArray("required").toList().contains(property)) {
+                return false;
+            }
+            values.add(propertySchema.get("const"));
+        }
+        return new HashSet<>(canonical(values)).size() == values.size();
+    }
+
+    private static Set<String> getValidationKeywords(final JSONObject schema) {
+        final Set<String> keywords = new HashSet<>(schema.keySet());
+        keywords.retainAll(VALIDATION_KEYWORDS);
+        return keywords;
+    }
+
+    // 1 and 1.0 are the same value, strings and numbers are different values
+    private static List<String> canonical(final List<Object> values) {
+        final List<String> result = new ArrayList<>();
+        values.forEach(value -> result.add(value instanceof Number
+                ? "n" + new BigDecimal(value.toString()).stripTrailingZeros().toPlainString()
+                : value instanceof String ? "s" + value : "v" + JSONObject.valueToString(value)));
+        return result;
+    }
+
+    /**
+     * Validates that a string is one of the permitted values with a hash lookup.
+     */
+    private static class ConstantsFormatValidator implements FormatValidator {
+
+        private final String name;
+
+        private final Set<String> values;
+
+        private ConstantsFormatValidator(final String name, final Set<String> values) {
+            this.name = name;
+            this.values = values;
+        }
+
+        @Override
+        public Optional<String> validate(final String subject) {
+            if (this.values.contains(subject)) {
+                return Optional.empty();
+            }
+            return Optional.of(String.format("%s is not one of the %d permitted values", JSONObject.quote(subject), this.values.size()));
+        }
+
+        @Override
+        public String formatName() {
+            return this.name;
+        }
+    }
+}
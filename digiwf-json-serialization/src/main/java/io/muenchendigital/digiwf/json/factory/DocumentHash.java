@@ -0,0 +1,106 @@
+package io.muenchendigital.digiwf.json.factory;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+
+/**
+ * Hash of the canonical form of a json document.
+ * <p>
+ * The document is hashed in a single pass into one SHA-256 digest: object keys are sorted, strings are length
+ * prefixed and every value is tagged with its type, so the key order does not change the hash and different
+ * documents cannot produce the same input of the digest. Integers and decimals are tagged differently, because
+ * {@code 1} and {@code 1.0} are not valid for the same schemas.
+ * Documents are read as {@code Map} and {@code List} values or as {@link JSONObject} and {@link JSONArray}.
+ */
+public class DocumentHash {
+
+    private static final byte OBJECT = 'o';
+    private static final byte ARRAY = 'a';
+    private static final byte END = 'e';
+    private static final byte STRING = 's';
+    private static final byte INTEGER = 'i';
+    private static final byte DECIMAL = 'd';
+    private static final byte LITERAL = 'l';
+
+    private DocumentHash() {
+    }
+
+    /**
+     * Computes the hash of a document.
+     *
+     * @param document json document
+     * @return hex encoded hash
+     */
+    public static String of(final Map<String, Object> document) {
+        final MessageDigest digest = Sha256.newDigest();
+        update(digest, document);
+        return Sha256.hex(digest.digest());
+    }
+
+    /**
+     * Computes the hash of a document.
+     *
+     * @param document json document
+     * @return hex encoded hash
+     */
+    public static String of(final JSONObject document) {
+        final MessageDigest digest = Sha256.newDigest();
+        update(digest, document);
+        return Sha256.hex(digest.digest());
+    }
+
+    //------------------------------------- helper methods -------------------------------------//
+
+    private static void update(final MessageDigest digest, final Object value) {
+        if (value instanceof Map) {
+            final Map.Entry<?, ?>[] entries = ((Map<?, ?>) value).entrySet().toArray(new Map.Entry<?, ?>[0]);
+            Arrays.sort(entries, Comparator.comparing(entry -> String.valueOf(entry.getKey())));
+            digest.update(OBJECT);
+            for (final Map.Entry<?, ?> entry : entries) {
+                Sha256.updateString(digest, String.valueOf(entry.getKey()));
+                update(digest, entry.getValue());
+            }
+            digest.update(END);
+        } else if (value instanceof JSONObject) {
+            final JSONObject object = (JSONObject) value;
+            final String[] keys = object.keySet().toArray(new String[0]);
+            Arrays.sort(keys);
+            digest.update(OBJECT);
+            for (final String key : keys) {
+                Sha256.updateString(digest, key);
+                update(digest, object.opt(key));
+            }
+            digest.update(END);
+        } else if (value instanceof Collection || value instanceof JSONArray) {
+            digest.update(ARRAY);
+            for (final Object item : value instanceof JSONArray ? (JSONArray) value : (Collection<?>) value) {
+                update(digest, item);
+            }
+            digest.update(END);
+        } else if (value instanceof String) {
+            digest.update(STRING);
+            Sha256.updateString(digest, (String) value);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte
+                || value instanceof BigInteger) {
+            digest.update(INTEGER);
+            Sha256.updateString(digest, value.toString());
+        } else if (value instanceof Number) {
+            digest.update(DECIMAL);
+            Sha256.updateString(digest, value.toString());
+        } else if (value == null || value == JSONObject.NULL || value instanceof Boolean) {
+            digest.update(LITERAL);
+            Sha256.updateString(digest, String.valueOf(value));
+        } else {
+            // beans, enums, ... are hashed like the json value that JSONObject creates for them
+            final Object wrapped = JSONObject.wrap(value);
+            update(digest, wrapped == null || wrapped == value ? String.valueOf(value) : wrapped);
+        }
+    }
+}
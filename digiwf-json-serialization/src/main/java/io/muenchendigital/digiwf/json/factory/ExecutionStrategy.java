@@ -0,0 +1,22 @@
+package io.muenchendigital.digiwf.json.factory;
+
+/**
+ * How data is filtered or validated with a schema, chosen by the {@link SchemaComplexity} of the schema.
+ */
+public enum ExecutionStrategy {
+
+    /**
+     * Everything is processed on the calling thread, forking is more expensive than the work of the schema
+     */
+    SEQUENTIAL,
+
+    /**
+     * Items of large arrays are filtered in parallel
+     */
+    PARALLEL,
+
+    /**
+     * Unions of constants are indexed when the schema is loaded, see {@link JsonSchemaFactory#createValidationSchema}
+     */
+    COMPILED
+}
@@ -0,0 +1,11 @@
+package io.muenchendigital.digiwf.json.factory;
+
+/**
+ * Thrown if json input exceeds one of the configured {@link JsonLimits}.
+ */
+public class JsonLimitExceededException extends IllegalArgumentException {
+
+    public JsonLimitExceededException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,69 @@
+package io.muenchendigital.digiwf.json.factory;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Limits that are enforced while json input is parsed and processed and budgets of the schemas that are compiled.
+ */
+@Getter
+@Builder
+public class JsonLimits {
+
+    public static final JsonLimits DEFAULT = JsonLimits.builder().build();
+
+    /**
+     * Maximum nesting depth of objects and arrays
+     */
+    @Builder.Default
+    private final int maxDepth = 64;
+
+    /**
+     * Maximum number of characters of a single string
+     */
+    @Builder.Default
+    private final int maxStringLength = 1024 * 1024;
+
+    /**
+     * Maximum number of items of a single array
+     */
+    @Builder.Default
+    private final int maxArraySize = 100_000;
+
+    /**
+     * Maximum size of the whole json input in characters
+     */
+    @Builder.Default
+    private final long maxTotalChars = 10L * 1024 * 1024;
+
+    /**
+     * Maximum nesting depth of the nodes of a schema, see {@link SchemaComplexity}
+     */
+    @Builder.Default
+    private final int maxSchemaDepth = 64;
+
+    /**
+     * Maximum number of nodes of a schema
+     */
+    @Builder.Default
+    private final int maxSchemaNodes = 100_000;
+
+    /**
+     * Maximum number of options of a single allOf, anyOf or oneOf schema
+     */
+    @Builder.Default
+    private final int maxSchemaFanOut = 10_000;
+
+    /**
+     * Maximum estimated worst case cost of a schema, see {@link SchemaComplexity#getEstimatedCost()}
+     */
+    @Builder.Default
+    private final long maxSchemaCost = 100_000_000L;
+
+    /**
+     * Reject schemas that exceed one of the schema budgets, otherwise a warning is logged
+     */
+    @Builder.Default
+    private final boolean rejectComplexSchemas = false;
+
+}
@@ -0,0 +1,45 @@
+package io.muenchendigital.digiwf.json.factory;
+
+import com.jayway.jsonpath.JsonPath;
+
+/**
+ * Bounded cache of compiled json paths.
+ * <p>
+ * Compiled paths are immutable and thread-safe, so a path is compiled once and shared by all callers.
+ * The cache holds at most {@code maxSize} paths, the least recently used paths are evicted first, see {@link BoundedCache}.
+ */
+public class JsonPathCache {
+
+    public static final int DEFAULT_MAX_SIZE = 1000;
+
+    private final BoundedCache<String, JsonPath> paths;
+
+    public JsonPathCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param maxSize maximum number of cached paths
+     */
+    public JsonPathCache(final int maxSize) {
+        this.paths = new BoundedCache<>(maxSize);
+    }
+
+    /**
+     * Returns the compiled path.
+     *
+     * @param path json path, e.g. {@code $.items[*].name}
+     * @return compiled path
+     * @throws com.jayway.jsonpath.InvalidPathException if the path is invalid
+     */
+    public JsonPath get(final String path) {
+        return this.paths.get(path, JsonPath::compile);
+    }
+
+    /**
+     * @return number of cached paths
+     */
+    public int size() {
+        return this.paths.size();
+    }
+}
@@ -2,50 +2,293 @@ package io.muenchendigital.digiwf.json.factory;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
 import com.google.gson.JsonParseException;
+import com.google.gson.JsonSyntaxException;
 import com.google.gson.ToNumberStrategy;
 import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.MalformedJsonException;
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.Option;
+import org.everit.json.schema.Schema;
+import org.everit.json.schema.loader.SchemaClient;
+import org.everit.json.schema.loader.SchemaLoader;
+import org.json.JSONObject;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
 import java.util.Map;
 
 public class JsonSchemaFactory {
 
+    // Gson instances are immutable and thread-safe
+    private static final Gson GSON = new GsonBuilder()
+            .setNumberToNumberStrategy(new ExactNumberStrategy())
+            .setObjectToNumberStrategy(new ExactNumberStrategy())
+            .create();
+
+    // compiled patterns are shared by all schemas of the process
+    private static final CachingRegexpFactory REGEXP_FACTORY = new CachingRegexpFactory();
+
+    // json-smart provider that reads Map and List values directly, missing values are returned as null
+    private static final Configuration JSON_PATH_CONFIGURATION = Configuration.defaultConfiguration()
+            .addOptions(Option.SUPPRESS_EXCEPTIONS);
+
+    // the platform logger does not add a logging dependency, applications can bridge it to their logging framework
+    private static final System.Logger LOGGER = System.getLogger(JsonSchemaFactory.class.getName());
+
+    private static final Type MAP_TYPE = new TypeToken<Map<String, Object>>() {
+    }.getType();
+
     public static Gson gson() {
-        return new GsonBuilder()
-                .setNumberToNumberStrategy(new IntegerOrDoubleStrategy())
-                .setObjectToNumberStrategy(new IntegerOrDoubleStrategy())
+        return GSON;
+    }
+
+    /**
+     * Creates a Gson instance that reads {@code Map<String, Object>} filtered by the json schema.
+     *
+     * @param schema         Json Schema structure
+     * @param filterReadOnly filter readOnly values
+     * @return gson instance
+     */
+    public static Gson gson(final Schema schema, final boolean filterReadOnly) {
+        return gson(schema, filterReadOnly, JsonLimits.DEFAULT);
+    }
+
+    /**
+     * Creates a Gson instance that reads {@code Map<String, Object>} filtered by the json schema
+     * and enforces the given limits while reading.
+     *
+     * @param schema         Json Schema structure
+     * @param filterReadOnly filter readOnly values
+     * @param limits         limits for depth, string length and array size
+     * @return gson instance
+     */
+    public static Gson gson(final Schema schema, final boolean filterReadOnly, final JsonLimits limits) {
+        return GSON.newBuilder()
+                .registerTypeAdapterFactory(new SchemaFilteringTypeAdapterFactory(schema, filterReadOnly, limits))
                 .create();
     }
 
+    /**
+     * Parses a json object and enforces the given limits while reading.
+     *
+     * @param json   json input
+     * @param limits limits for depth, string length, array size and input size
+     * @return parsed json object
+     * @throws JsonLimitExceededException if the input exceeds one of the limits
+     */
+    public static Map<String, Object> parse(final Reader json, final JsonLimits limits) {
+        try {
+            return new LimitedJsonParser(limits).parseObject(json);
+        } catch (final MalformedJsonException e) {
+            throw new JsonSyntaxException(e);
+        } catch (final IOException e) {
+            throw new JsonIOException(e);
+        }
+    }
+
+    /**
+     * Create and load schema for json schema version draft 7.
+     * Referenced schemas are resolved with the given client, patterns are compiled with the shared {@link #regexpFactory()}.
+     *
+     * @param schema       raw json schema
+     * @param schemaClient client that resolves referenced schemas
+     * @return loaded schema
+     */
+    public static Schema createSchema(final JSONObject schema, final SchemaClient schemaClient) {
+        return SchemaLoader.builder().schemaJson(schema)
+                .draftV7Support()
+                .regexpFactory(REGEXP_FACTORY)
+                .schemaClient(schemaClient)
+                .build()
+                .load()
+                .build();
+    }
+
+    /**
+     * Analyzes a raw json schema before it is loaded and checks it against the schema budgets of the limits.
+     * If the schema exceeds a budget, it is rejected if {@link JsonLimits#isRejectComplexSchemas()} is set,
+     * otherwise a warning is logged. The schema is named by its $id or title, or by its fingerprint if it has neither.
+     *
+     * @param schema raw json schema
+     * @param limits limits with the schema budgets
+     * @return complexity of the schema
+     * @throws JsonLimitExceededException if the schema exceeds a budget and complex schemas are rejected
+     */
+    public static SchemaComplexity analyze(final JSONObject schema, final JsonLimits limits) {
+        final SchemaComplexity complexity = SchemaComplexity.of(schema);
+        final List<String> violations = complexity.getBudgetViolations(limits);
+        if (!violations.isEmpty()) {
+            final String message = String.join(", ", violations);
+            if (limits.isRejectComplexSchemas()) {
+                throw new JsonLimitExceededException(message);
+            }
+            LOGGER.log(System.Logger.Level.WARNING, "Schema {0} is too complex: {1}", getSchemaName(schema), message);
+        }
+        return complexity;
+    }
+
+    /**
+     * Create and load a schema that is only used for validation.
+     * anyOf and oneOf unions of constants, e.g. the options of select fields, are indexed, so a value is validated
+     * with a hash lookup instead of against every option. The schema accepts the same data as the schema of
+     * {@link #createSchema(JSONObject, SchemaClient)}, but the violations of indexed unions are reported differently.
+     * Referenced schemas are not indexed.
+     *
+     * @param schema       raw json schema
+     * @param schemaClient client that resolves referenced schemas
+     * @return loaded schema
+     */
+    public static Schema createValidationSchema(final JSONObject schema, final SchemaClient schemaClient) {
+        final ConstUnionIndexer indexer = new ConstUnionIndexer();
+        final SchemaLoader.SchemaLoaderBuilder builder = SchemaLoader.builder().schemaJson(indexer.index(schema))
+                .draftV7Support()
+                .regexpFactory(REGEXP_FACTORY)
+                .schemaClient(schemaClient);
+        indexer.getFormatValidators().forEach(builder::addFormatValidator);
+        return builder.build()
+                .load()
+                .build();
+    }
+
+    /**
+     * Generates a json object with the nested structure of the json schema.
+     * Nested objects are initialized as objects, arrays as empty arrays and leaf values with their default or
+     * const value or an empty string. Properties of combined schemas are added to the enclosing object.
+     *
+     * @param schema loaded schema
+     * @return generated skeleton
+     */
+    public static JSONObject generateSkeleton(final Schema schema) {
+        return SkeletonGenerator.generate(schema);
+    }
+
+    /**
+     * Creates a client that resolves referenced schemas from the classpath and the network and caches them.
+     *
+     * @return schema client
+     */
+    public static LocalSchemaClient schemaClient() {
+        return new LocalSchemaClient(Map.of(), SchemaClient.classPathAwareClient());
+    }
+
+    /**
+     * Returns the process-wide regexp factory that caches compiled patterns of all loaded schemas.
+     * Use it to monitor the hit rate of the cache.
+     *
+     * @return regexp factory
+     */
+    public static CachingRegexpFactory regexpFactory() {
+        return REGEXP_FACTORY;
+    }
+
+    /**
+     * Returns the configuration that evaluates json paths on {@code Map} and {@code List} data.
+     * Definite paths to missing values return null, indefinite paths an empty list.
+     *
+     * @return json path configuration
+     */
+    public static Configuration jsonPathConfiguration() {
+        return JSON_PATH_CONFIGURATION;
+    }
+
     public static Type mapType() {
-        return new TypeToken<Map<String, Object>>() {
-        }.getType();
+        return MAP_TYPE;
     }
 
-    static class IntegerOrDoubleStrategy implements ToNumberStrategy {
+    // anonymous schemas are named by their fingerprint, the same hash as in recorded events
+    private static String getSchemaName(final JSONObject schema) {
+        final String id = schema.optString("$id", schema.optString("title"));
+        return id.isEmpty() ? SchemaFingerprint.of(schema).getValue() : id;
+    }
+
+    /**
+     * Reads numbers as Integer, Long, BigDecimal or Double.
+     * <p>
+     * The number is scanned once to choose the type, so valid numbers are parsed without exceptions.
+     * Integers that do not fit into a long and decimals with more than 15 significant digits are read as BigDecimal
+     * to keep their precision.
+     */
+    static class ExactNumberStrategy implements ToNumberStrategy {
+
+        // a double does not represent most decimals exactly, but every decimal with up to 15 significant digits
+        // (in the normal range of a double) is converted back to the same decimal when it is printed with 15 digits
+        private static final int MAX_DOUBLE_DIGITS = 15;
 
         public Number readNumber(final JsonReader in) throws IOException, JsonParseException {
             final String value = in.nextString();
 
+            final Number number;
             try {
-                return Integer.parseInt(value);
-            } catch (final NumberFormatException var6) {
-                try {
-                    final Double d = Double.valueOf(value);
-                    if ((d.isInfinite() || d.isNaN()) && !in.isLenient()) {
-                        throw new MalformedJsonException("JSON forbids NaN and infinities: " + d + "; at path " + in.getPreviousPath());
-                    } else {
-                        return d;
+                number = parseNumber(value);
+            } catch (final NumberFormatException e) {
+                throw new JsonParseException("Cannot parse " + value + "; at path " + in.getPreviousPath(), e);
+            }
+            if (number instanceof Double && (((Double) number).isInfinite() || ((Double) number).isNaN()) && !in.isLenient()) {
+                throw new MalformedJsonException("JSON forbids NaN and infinities: " + number + "; at path " + in.getPreviousPath());
+            }
+            return number;
+        }
+
+        static Number parseNumber(final String value) {
+            final int start = !value.isEmpty() && value.charAt(0) == '-' ? 1 : 0;
+            boolean integral = true;
+            boolean exponent = false;
+            int significantDigits = 0;
+
+            for (int index = start; index < value.length(); index++) {
+                final char c = value.charAt(index);
+                if (c >= '0' && c <= '9') {
+                    if (!exponent && (significantDigits > 0 || c != '0')) {
+                        significantDigits++;
                     }
-                } catch (final NumberFormatException var5) {
-                    throw new JsonParseException("Cannot parse " + value + "; at path " + in.getPreviousPath(), var5);
+                } else if (c == 'e' || c == 'E') {
+                    integral = false;
+                    exponent = true;
+                } else if (c == '.' || c == '+' || c == '-') {
+                    integral = false;
+                } else {
+                    // NaN and Infinity in lenient mode, everything else is rejected by Double.valueOf
+                    return Double.valueOf(value);
                 }
             }
+
+            final int digits = value.length() - start;
+            if (integral && digits > 0) {
+                return parseInteger(value, digits);
+            }
+            if (significantDigits > MAX_DOUBLE_DIGITS) {
+                return new BigDecimal(value);
+            }
+            return Double.valueOf(value);
         }
-    }
 
+        private static Number parseInteger(final String value, final int digits) {
+            // up to 9 digits always fit into an int, up to 18 digits into a long
+            if (digits <= 9) {
+                return Integer.parseInt(value);
+            }
+            if (digits <= 18) {
+                final long longValue = Long.parseLong(value);
+                if (longValue == (int) longValue) {
+                    return (int) longValue;
+                }
+                return longValue;
+            }
+            final BigInteger bigInteger = new BigInteger(value);
+            if (bigInteger.bitLength() < Integer.SIZE) {
+                return bigInteger.intValue();
+            }
+            if (bigInteger.bitLength() < Long.SIZE) {
+                return bigInteger.longValue();
+            }
+            return new BigDecimal(bigInteger);
+        }
+    }
 }
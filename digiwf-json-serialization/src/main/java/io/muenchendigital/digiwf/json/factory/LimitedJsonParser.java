@@ -0,0 +1,141 @@
+package io.muenchendigital.digiwf.json.factory;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.ToNumberStrategy;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads json values into maps and lists and enforces {@link JsonLimits} while reading.
+ * <p>
+ * Values are read iteratively, so deeply nested input fails with a {@link JsonLimitExceededException}
+ * instead of a stack overflow. The parser is stateless and thread-safe.
+ */
+public class LimitedJsonParser {
+
+    private static final ToNumberStrategy NUMBER_STRATEGY = new JsonSchemaFactory.ExactNumberStrategy();
+
+    private final JsonLimits limits;
+
+    public LimitedJsonParser(final JsonLimits limits) {
+        this.limits = limits;
+    }
+
+    /**
+     * Parses a json object.
+     *
+     * @param json json input
+     * @return parsed object
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> parseObject(final Reader json) throws IOException {
+        final JsonReader in = new JsonReader(new LimitedReader(json, this.limits.getMaxTotalChars()));
+        if (in.peek() != JsonToken.BEGIN_OBJECT) {
+            throw new JsonParseException("json input is not an object; at path " + in.getPath());
+        }
+        return (Map<String, Object>) this.read(in, 0);
+    }
+
+    /**
+     * Reads the next value of the reader.
+     *
+     * @param in    reader
+     * @param depth depth of the value in the whole document
+     * @return value as map, list, string, number, boolean or null
+     */
+    @SuppressWarnings("unchecked")
+    public Object read(final JsonReader in, final int depth) throws IOException {
+        final Deque<Object> containers = new ArrayDeque<>();
+        String name = null;
+        Object root = null;
+
+        do {
+            final Object value;
+            switch (in.peek()) {
+                case BEGIN_OBJECT:
+                    this.checkDepth(depth + containers.size() + 1, in);
+                    in.beginObject();
+                    value = new LinkedHashMap<String, Object>();
+                    break;
+                case BEGIN_ARRAY:
+                    this.checkDepth(depth + containers.size() + 1, in);
+                    in.beginArray();
+                    value = new ArrayList<>();
+                    break;
+                case END_OBJECT:
+                    in.endObject();
+                    containers.pop();
+                    continue;
+                case END_ARRAY:
+                    in.endArray();
+                    containers.pop();
+                    continue;
+                case NAME:
+                    name = in.nextName();
+                    continue;
+                case STRING:
+                    value = this.readString(in);
+                    break;
+                case NUMBER:
+                    value = NUMBER_STRATEGY.readNumber(in);
+                    break;
+                case BOOLEAN:
+                    value = in.nextBoolean();
+                    break;
+                case NULL:
+                    in.nextNull();
+                    value = null;
+                    break;
+                default:
+                    throw new JsonParseException("unexpected end of json input; at path " + in.getPath());
+            }
+
+            if (containers.isEmpty()) {
+                root = value;
+            } else if (containers.peek() instanceof Map) {
+                ((Map<String, Object>) containers.peek()).put(name, value);
+            } else {
+                final List<Object> array = (List<Object>) containers.peek();
+                this.checkArraySize(array.size() + 1, in);
+                array.add(value);
+            }
+            if (value instanceof Map || value instanceof List) {
+                containers.push(value);
+            }
+        } while (!containers.isEmpty());
+
+        return root;
+    }
+
+    /**
+     * Reads a string and checks its length.
+     */
+    public String readString(final JsonReader in) throws IOException {
+        final String value = in.nextString();
+        if (value.length() > this.limits.getMaxStringLength()) {
+            throw new JsonLimitExceededException("string exceeds the maximum length of " + this.limits.getMaxStringLength() + "; at path " + in.getPath());
+        }
+        return value;
+    }
+
+    public void checkDepth(final int depth, final JsonReader in) {
+        if (depth > this.limits.getMaxDepth()) {
+            throw new JsonLimitExceededException("json input exceeds the maximum depth of " + this.limits.getMaxDepth() + "; at path " + in.getPath());
+        }
+    }
+
+    public void checkArraySize(final int size, final JsonReader in) {
+        if (size > this.limits.getMaxArraySize()) {
+            throw new JsonLimitExceededException("array exceeds the maximum size of " + this.limits.getMaxArraySize() + "; at path " + in.getPath());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package io.muenchendigital.digiwf.json.factory;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reader that fails as soon as more than the allowed number of characters is read.
+ */
+public class LimitedReader extends FilterReader {
+
+    private final long maxCharacters;
+    private long count;
+
+    public LimitedReader(final Reader in, final long maxCharacters) {
+        super(in);
+        this.maxCharacters = maxCharacters;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int c = super.read();
+        if (c != -1) {
+            this.count(1);
+        }
+        return c;
+    }
+
+    @Override
+    public int read(final char[] buffer, final int offset, final int length) throws IOException {
+        final int read = super.read(buffer, offset, length);
+        if (read > 0) {
+            this.count(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        final long skipped = super.skip(n);
+        this.count(skipped);
+        return skipped;
+    }
+
+    /**
+     * @return number of characters that were read or skipped
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    private void count(final long characters) {
+        this.count += characters;
+        if (this.count > this.maxCharacters) {
+            throw new JsonLimitExceededException("json input exceeds the maximum size of " + this.maxCharacters);
+        }
+    }
+}
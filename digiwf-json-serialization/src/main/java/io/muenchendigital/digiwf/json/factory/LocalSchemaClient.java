@@ -0,0 +1,122 @@
+package io.muenchendigital.digiwf.json.factory;
+
+import org.everit.json.schema.loader.SchemaClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SchemaClient that resolves referenced schemas ({@code $ref}) locally and caches the resolved documents.
+ * <p>
+ * Documents are resolved in this order:
+ * <ol>
+ *     <li>documents that were registered with {@link #register(String, String)} or resolved before</li>
+ *     <li>{@code classpath:} urls from the classpath</li>
+ *     <li>urls that start with a configured prefix from the mapped classpath location,
+ *     e.g. {@code https://example.com/schemas/} to {@code schema/}</li>
+ *     <li>the remote client, if one is configured</li>
+ * </ol>
+ * Without a remote client no network requests are made. The client is thread-safe, every document is read once.
+ */
+public class LocalSchemaClient implements SchemaClient {
+
+    private static final String CLASSPATH_PREFIX = "classpath:";
+
+    // url prefix -> classpath location
+    private final Map<String, String> classpathLocations;
+
+    private final SchemaClient remoteClient;
+
+    private final ClassLoader classLoader;
+
+    private final Map<String, CompletableFuture<byte[]>> documents = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a client that only resolves registered documents and classpath urls.
+     */
+    public LocalSchemaClient() {
+        this(Map.of(), null);
+    }
+
+    /**
+     * @param classpathLocations classpath locations by url prefix
+     * @param remoteClient       client for urls that cannot be resolved locally, null to resolve local documents only
+     */
+    public LocalSchemaClient(final Map<String, String> classpathLocations, final SchemaClient remoteClient) {
+        this.classpathLocations = new LinkedHashMap<>(classpathLocations);
+        this.remoteClient = remoteClient;
+        this.classLoader = LocalSchemaClient.class.getClassLoader();
+    }
+
+    /**
+     * Registers a schema document for an url.
+     *
+     * @param url    url that is used in {@code $ref}
+     * @param schema raw json schema
+     * @return this client
+     */
+    public LocalSchemaClient register(final String url, final String schema) {
+        this.documents.put(normalize(url), CompletableFuture.completedFuture(schema.getBytes(StandardCharsets.UTF_8)));
+        return this;
+    }
+
+    @Override
+    public InputStream get(final String url) {
+        final String normalizedUrl = normalize(url);
+        // resolved outside of the map, remote documents do not block the resolution of other urls
+        final byte[] document = SingleFlight.getOrCompute(this.documents, normalizedUrl, () -> this.resolve(normalizedUrl));
+        return new ByteArrayInputStream(document);
+    }
+
+    //------------------------------------- helper methods -------------------------------------//
+
+    private byte[] resolve(final String url) {
+        if (url.startsWith(CLASSPATH_PREFIX)) {
+            return this.readResource(url.substring(CLASSPATH_PREFIX.length()), url);
+        }
+        for (final Map.Entry<String, String> location : this.classpathLocations.entrySet()) {
+            if (url.startsWith(location.getKey())) {
+                return this.readResource(location.getValue() + "/" + url.substring(location.getKey().length()), url);
+            }
+        }
+        if (this.remoteClient != null) {
+            return read(this.remoteClient.get(url), url);
+        }
+        throw new UncheckedIOException(new FileNotFoundException("no local schema found for " + url));
+    }
+
+    private byte[] readResource(final String path, final String url) {
+        final InputStream resource = this.classLoader.getResourceAsStream(stripSlashes(path));
+        if (resource == null) {
+            throw new UncheckedIOException(new FileNotFoundException("schema " + url + " not found on the classpath"));
+        }
+        return read(resource, url);
+    }
+
+    private static byte[] read(final InputStream inputStream, final String url) {
+        try (inputStream) {
+            return inputStream.readAllBytes();
+        } catch (final IOException e) {
+            throw new UncheckedIOException("failed to read schema " + url, e);
+        }
+    }
+
+    // the fragment addresses a part of the document and is resolved by the schema loader
+    private static String normalize(final String url) {
+        final int fragment = url.indexOf('#');
+        return fragment < 0 ? url : url.substring(0, fragment);
+    }
+
+    private static String stripSlashes(final String path) {
+        final String normalized = path.replaceAll("/{2,}", "/");
+        return normalized.startsWith("/") ? normalized.substring(1) : normalized;
+    }
+}
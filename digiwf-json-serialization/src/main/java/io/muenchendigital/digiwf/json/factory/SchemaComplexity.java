@@ -0,0 +1,350 @@
+package io.muenchendigital.digiwf.json.factory;
+
+import lombok.Getter;
+import lombok.ToString;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONPointerException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Static analysis of a raw json schema.
+ * <p>
+ * The analysis runs on the json representation before the schema is loaded, so schemas that exceed the budgets of
+ * the {@link JsonLimits} can be rejected without loading them. The estimated cost is the number of schema nodes that
+ * are evaluated for a document in the worst case: every option of a union is evaluated, the more expensive branch of
+ * a condition is taken, and arrays, pattern properties and additional properties are assumed to contain
+ * {@link #ASSUMED_COLLECTION_SIZE} values (or {@code maxItems} if it is smaller). Local references are resolved,
+ * remote references count as a single node.
+ * <p>
+ * The analysis chooses the {@link ExecutionStrategy} of filter calls and validations.
+ */
+@Getter
+@ToString
+public class SchemaComplexity {
+
+    /**
+     * Number of values that are assumed for arrays and objects without a fixed size
+     */
+    public static final int ASSUMED_COLLECTION_SIZE = 10;
+
+    /**
+     * Minimum estimated cost of a single array item to filter the items of large arrays in parallel
+     */
+    public static final long PARALLEL_ITEM_COST = 16;
+
+    /**
+     * Minimum number of options of a union of constants to index the unions of the schema for validation
+     */
+    public static final int COMPILED_UNION_SIZE = 8;
+
+    /**
+     * Maximum nesting depth of schema nodes, the root schema has depth 1
+     */
+    private final int depth;
+
+    /**
+     * Number of schema nodes, including definitions
+     */
+    private final int nodeCount;
+
+    /**
+     * Largest number of options of an allOf, anyOf or oneOf schema
+     */
+    private final int maxFanOut;
+
+    /**
+     * Largest number of options of a union that is indexed for validation
+     */
+    private final int largestIndexableUnion;
+
+    /**
+     * Number of patterns of all patternProperties
+     */
+    private final int patternPropertyCount;
+
+    /**
+     * Worst case number of schema nodes that are evaluated for a document, {@link Long#MAX_VALUE} if it overflows
+     */
+    private final long estimatedCost;
+
+    /**
+     * Largest estimated cost of a single array item
+     */
+    private final long maxItemCost;
+
+    private SchemaComplexity(final Analysis analysis, final long estimatedCost) {
+        this.depth = analysis.depth;
+        this.nodeCount = analysis.nodeCount;
+        this.maxFanOut = analysis.maxFanOut;
+        this.largestIndexableUnion = analysis.largestIndexableUnion;
+        this.patternPropertyCount = analysis.patternPropertyCount;
+        this.estimatedCost = estimatedCost;
+        this.maxItemCost = analysis.maxItemCost;
+    }
+
+    /**
+     * Analyzes a raw json schema.
+     *
+     * @param schema raw json schema, the schema is not modified
+     * @return complexity of the schema
+     */
+    public static SchemaComplexity of(final JSONObject schema) {
+        final Analysis analysis = new Analysis(schema);
+        analysis.visit(schema, 1);
+        final long estimatedCost = analysis.cost(schema);
+        return new SchemaComplexity(analysis, estimatedCost);
+    }
+
+    /**
+     * Returns the strategy of filter calls: the items of large arrays are filtered in parallel if a single item
+     * is expensive enough, otherwise everything is filtered on the calling thread.
+     *
+     * @return {@link ExecutionStrategy#PARALLEL} or {@link ExecutionStrategy#SEQUENTIAL}
+     */
+    public ExecutionStrategy getFilterStrategy() {
+        return this.maxItemCost >= PARALLEL_ITEM_COST ? ExecutionStrategy.PARALLEL : ExecutionStrategy.SEQUENTIAL;
+    }
+
+    /**
+     * Returns the strategy of validations: schemas with large unions of constants are loaded with indexed unions,
+     * all other schemas are loaded as they are. A single validation always runs on the calling thread.
+     *
+     * @return {@link ExecutionStrategy#COMPILED} or {@link ExecutionStrategy#SEQUENTIAL}
+     */
+    public ExecutionStrategy getValidationStrategy() {
+        return this.largestIndexableUnion >= COMPILED_UNION_SIZE ? ExecutionStrategy.COMPILED : ExecutionStrategy.SEQUENTIAL;
+    }
+
+    /**
+     * Compares the complexity with the schema budgets of the limits.
+     *
+     * @param limits limits with the schema budgets
+     * @return description of every exceeded budget, empty if the schema is within the budgets
+     */
+    public List<String> getBudgetViolations(final JsonLimits limits) {
+        final List<String> violations = new ArrayList<>();
+        if (this.depth > limits.getMaxSchemaDepth()) {
+            violations.add("schema depth " + this.depth + " exceeds the maximum of " + limits.getMaxSchemaDepth());
+        }
+        if (this.nodeCount > limits.getMaxSchemaNodes()) {
+            violations.add("schema node count " + this.nodeCount + " exceeds the maximum of " + limits.getMaxSchemaNodes());
+        }
+        if (this.maxFanOut > limits.getMaxSchemaFanOut()) {
+            violations.add("schema combinator fan-out " + this.maxFanOut + " exceeds the maximum of " + limits.getMaxSchemaFanOut());
+        }
+        if (this.estimatedCost > limits.getMaxSchemaCost()) {
+            violations.add("estimated schema cost " + this.estimatedCost + " exceeds the maximum of " + limits.getMaxSchemaCost());
+        }
+        return violations;
+    }
+
+    //------------------------------------- helper methods -------------------------------------//
+
+    private static long add(final long a, final long b) {
+        final long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    private static long multiply(final long a, final long b) {
+        return b != 0 && a > Long.MAX_VALUE / b ? Long.MAX_VALUE : a * b;
+    }
+
+    /**
+     * Single analysis of a schema, the structure is visited once and the cost of referenced schemas is memoized.
+     */
+    private static class Analysis {
+
+        // keywords whose value is a schema
+        private static final Set<String> SCHEMA_KEYWORDS = Set.of(
+                "additionalItems", "contains", "additionalProperties", "propertyNames", "if", "then", "else", "not");
+
+        // keywords whose value is an object of schemas
+        private static final Set<String> SCHEMA_MAP_KEYWORDS = Set.of(
+                "properties", "patternProperties", "dependencies", "definitions", "$defs");
+
+        private static final Set<String> COMBINATOR_KEYWORDS = Set.of("allOf", "anyOf", "oneOf");
+
+        private final JSONObject root;
+
+        // cost of resolved local references by their pointer
+        private final Map<String, Long> referenceCosts = new HashMap<>();
+
+        // local references on the current path, stops recursive references
+        private final Set<String> resolving = new HashSet<>();
+
+        private int depth;
+
+        private int nodeCount;
+
+        private int maxFanOut;
+
+        private int largestIndexableUnion;
+
+        private int patternPropertyCount;
+
+        private long maxItemCost;
+
+        private Analysis(final JSONObject root) {
+            this.root = root;
+        }
+
+        private void visit(final JSONObject schema, final int level) {
+            this.nodeCount++;
+            this.depth = Math.max(this.depth, level);
+            for (final String keyword : schema.keySet()) {
+                final Object value = schema.get(keyword);
+                if (SCHEMA_KEYWORDS.contains(keyword) || "items".equals(keyword)) {
+                    this.visitSchemas(value, level + 1);
+                } else if (SCHEMA_MAP_KEYWORDS.contains(keyword) && value instanceof JSONObject) {
+                    final JSONObject schemas = (JSONObject) value;
+                    if ("patternProperties".equals(keyword)) {
+                        this.patternPropertyCount += schemas.length();
+                    }
+                    schemas.keySet().forEach(key -> this.visitSchemas(schemas.get(key), level + 1));
+                } else if (COMBINATOR_KEYWORDS.contains(keyword) && value instanceof JSONArray) {
+                    final JSONArray options = (JSONArray) value;
+                    this.maxFanOut = Math.max(this.maxFanOut, options.length());
+                    if (!"allOf".equals(keyword)) {
+                        this.largestIndexableUnion = Math.max(this.largestIndexableUnion, getIndexableSize(options));
+                    }
+                    this.visitSchemas(value, level + 1);
+                }
+            }
+        }
+
+        private void visitSchemas(final Object value, final int level) {
+            if (value instanceof JSONObject) {
+                this.visit((JSONObject) value, level);
+            } else if (value instanceof JSONArray) {
+                for (final Object item : (JSONArray) value) {
+                    if (item instanceof JSONObject) {
+                        this.visit((JSONObject) item, level);
+                    }
+                }
+            }
+        }
+
+        private long cost(final Object value) {
+            if (!(value instanceof JSONObject)) {
+                // true and false schemas
+                return 1;
+            }
+            final JSONObject schema = (JSONObject) value;
+            long cost = 1;
+            if (schema.has("$ref")) {
+                cost = add(cost, this.referenceCost(schema.optString("$ref")));
+            }
+            final JSONObject properties = schema.optJSONObject("properties");
+            if (properties != null) {
+                for (final String key : properties.keySet()) {
+                    cost = add(cost, this.cost(properties.get(key)));
+                }
+            }
+            final JSONObject patternProperties = schema.optJSONObject("patternProperties");
+            if (patternProperties != null) {
+                for (final String key : patternProperties.keySet()) {
+                    // every key is matched against every pattern
+                    cost = add(cost, multiply(ASSUMED_COLLECTION_SIZE, add(1, this.cost(patternProperties.get(key)))));
+                }
+            }
+            for (final String keyword : List.of("additionalProperties", "propertyNames")) {
+                if (schema.opt(keyword) instanceof JSONObject) {
+                    cost = add(cost, multiply(ASSUMED_COLLECTION_SIZE, this.cost(schema.get(keyword))));
+                }
+            }
+            final JSONObject dependencies = schema.optJSONObject("dependencies");
+            if (dependencies != null) {
+                for (final String key : dependencies.keySet()) {
+                    cost = add(cost, dependencies.get(key) instanceof JSONObject ? this.cost(dependencies.get(key)) : 1);
+                }
+            }
+            cost = add(cost, this.itemsCost(schema));
+            for (final String keyword : COMBINATOR_KEYWORDS) {
+                final JSONArray options = schema.optJSONArray(keyword);
+                if (options != null) {
+                    for (final Object option : options) {
+                        cost = add(cost, this.cost(option));
+                    }
+                }
+            }
+            if (schema.has("if")) {
+                final long thenCost = schema.has("then") ? this.cost(schema.get("then")) : 0;
+                final long elseCost = schema.has("else") ? this.cost(schema.get("else")) : 0;
+                cost = add(cost, add(this.cost(schema.get("if")), Math.max(thenCost, elseCost)));
+            }
+            if (schema.has("not")) {
+                cost = add(cost, this.cost(schema.get("not")));
+            }
+            return cost;
+        }
+
+        private long itemsCost(final JSONObject schema) {
+            final long size = Math.min(schema.optLong("maxItems", ASSUMED_COLLECTION_SIZE), ASSUMED_COLLECTION_SIZE);
+            long cost = 0;
+            final Object items = schema.opt("items");
+            if (items instanceof JSONObject) {
+                final long itemCost = this.cost(items);
+                this.maxItemCost = Math.max(this.maxItemCost, itemCost);
+                cost = multiply(size, itemCost);
+            } else if (items instanceof JSONArray) {
+                for (final Object item : (JSONArray) items) {
+                    final long itemCost = this.cost(item);
+                    this.maxItemCost = Math.max(this.maxItemCost, itemCost);
+                    cost = add(cost, itemCost);
+                }
+                if (schema.opt("additionalItems") instanceof JSONObject) {
+                    cost = add(cost, multiply(size, this.cost(schema.get("additionalItems"))));
+                }
+            }
+            if (schema.has("contains")) {
+                cost = add(cost, multiply(size, this.cost(schema.get("contains"))));
+            }
+            return cost;
+        }
+
+        private long referenceCost(final String reference) {
+            if (!reference.startsWith("#")) {
+                return 1;
+            }
+            final Long known = this.referenceCosts.get(reference);
+            if (known != null) {
+                return known;
+            }
+            if (!this.resolving.add(reference)) {
+                // recursive reference, its cost is counted on the outer level
+                return 1;
+            }
+            final long cost = this.cost(this.resolve(reference));
+            this.resolving.remove(reference);
+            this.referenceCosts.put(reference, cost);
+            return cost;
+        }
+
+        private Object resolve(final String reference) {
+            if ("#".equals(reference)) {
+                return this.root;
+            }
+            try {
+                return this.root.optQuery(reference);
+            } catch (final JSONPointerException e) {
+                return null;
+            }
+        }
+
+        // number of options of a union that ConstUnionIndexer rewrites, 0 if the union is not rewritten
+        private static int getIndexableSize(final JSONArray options) {
+            final List<Object> constants = ConstUnionIndexer.getConstants(options);
+            if (constants != null) {
+                return constants.size();
+            }
+            return ConstUnionIndexer.getDiscriminator(options) != null ? options.length() : 0;
+        }
+    }
+}
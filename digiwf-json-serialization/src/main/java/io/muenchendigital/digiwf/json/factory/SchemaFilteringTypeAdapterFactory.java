@@ -0,0 +1,258 @@
+package io.muenchendigital.digiwf.json.factory;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import lombok.RequiredArgsConstructor;
+import org.everit.json.schema.ArraySchema;
+import org.everit.json.schema.CombinedSchema;
+import org.everit.json.schema.ObjectSchema;
+import org.everit.json.schema.Schema;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gson TypeAdapterFactory that reads json directly into a filtered {@code Map<String, Object>}.
+ * <p>
+ * The result is the same as calling {@code JsonSerializerImpl.filter(schema, data, filterReadOnly).toMap()}
+ * on the parsed json, but the data is read only once: properties that are not part of the schema
+ * (and readOnly properties if filterReadOnly is set) are skipped with {@link JsonReader#skipValue()}.
+ * If/then/else schemas are not evaluated.
+ * <p>
+ * The property plan of the schema is computed once per factory. The factory is thread-safe.
+ * {@link JsonLimits} are enforced while reading, the size of the whole input has to be limited by the caller
+ * (see {@link LimitedReader}).
+ */
+public class SchemaFilteringTypeAdapterFactory implements TypeAdapterFactory {
+
+    private final boolean filterReadOnly;
+
+    private final LimitedJsonParser parser;
+
+    private final Map<String, PropertyPlan> rootPlan;
+
+    // plans of array item schemas by schema identity, created on first use because item schemas may be recursive;
+    // Schema.hashCode is structural and too expensive for a lookup
+    private final Map<SchemaKey, Map<String, PropertyPlan>> itemPlans = new ConcurrentHashMap<>();
+
+    public SchemaFilteringTypeAdapterFactory(final Schema schema, final boolean filterReadOnly) {
+        this(schema, filterReadOnly, JsonLimits.DEFAULT);
+    }
+
+    public SchemaFilteringTypeAdapterFactory(final Schema schema, final boolean filterReadOnly, final JsonLimits limits) {
+        this.filterReadOnly = filterReadOnly;
+        this.parser = new LimitedJsonParser(limits);
+        this.rootPlan = this.createPlan(schema);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(final Gson gson, final TypeToken<T> type) {
+        if (!Map.class.isAssignableFrom(type.getRawType())) {
+            return null;
+        }
+        final TypeAdapter<Map<String, Object>> delegate = (TypeAdapter<Map<String, Object>>) gson.getDelegateAdapter(this, type);
+        return (TypeAdapter<T>) new FilteringTypeAdapter(delegate);
+    }
+
+    //------------------------------------- plan creation -------------------------------------//
+
+    /**
+     * Mirrors JsonSerializerImpl.filter(Schema, ...): the properties of all sub schemas of a combined schema are
+     * added to the same level, later properties replace earlier ones.
+     */
+    private Map<String, PropertyPlan> createPlan(final Schema schema) {
+        final Map<String, PropertyPlan> plan = new LinkedHashMap<>();
+        this.addToPlan(schema, plan);
+        return plan;
+    }
+
+    private void addToPlan(final Schema schema, final Map<String, PropertyPlan> plan) {
+        if (schema instanceof ObjectSchema) {
+            this.addPropertiesToPlan(((ObjectSchema) schema).getPropertySchemas(), plan);
+        } else if (schema instanceof CombinedSchema) {
+            ((CombinedSchema) schema).getSubschemas().forEach(subSchema -> this.addToPlan(subSchema, plan));
+        }
+    }
+
+    private void addPropertiesToPlan(final Map<String, Schema> properties, final Map<String, PropertyPlan> plan) {
+        for (final Map.Entry<String, Schema> entry : properties.entrySet()) {
+            final Schema schema = entry.getValue();
+            if (schema instanceof ObjectSchema) {
+                final Map<String, PropertyPlan> nestedPlan = new LinkedHashMap<>();
+                this.addPropertiesToPlan(((ObjectSchema) schema).getPropertySchemas(), nestedPlan);
+                plan.put(entry.getKey(), new PropertyPlan(schema, nestedPlan));
+            } else if (schema instanceof CombinedSchema && !schema.getUnprocessedProperties().containsKey("fieldType")) {
+                this.addToPlan(schema, plan);
+            } else if (!this.filterReadOnly || Boolean.TRUE != schema.isReadOnly()) {
+                plan.put(entry.getKey(), new PropertyPlan(SchemaUtils.resolveReference(schema), null));
+            }
+        }
+    }
+
+    private Map<String, PropertyPlan> getItemPlan(final Schema itemSchema) {
+        return this.itemPlans.computeIfAbsent(new SchemaKey(itemSchema), key -> this.createPlan(key.schema));
+    }
+
+    /**
+     * The item schema is compared by identity, Schema.equals and Schema.hashCode are structural and deep.
+     */
+    @RequiredArgsConstructor
+    private static class SchemaKey {
+        private final Schema schema;
+
+        @Override
+        public boolean equals(final Object other) {
+            return other instanceof SchemaKey && ((SchemaKey) other).schema == this.schema;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this.schema);
+        }
+    }
+
+    /**
+     * A property of the schema. Nested object schemas have a plan for their properties, all other properties are leaves.
+     */
+    private static class PropertyPlan {
+        private final Schema schema;
+        private final Map<String, PropertyPlan> properties;
+
+        private PropertyPlan(final Schema schema, final Map<String, PropertyPlan> properties) {
+            this.schema = schema;
+            this.properties = properties;
+        }
+    }
+
+    //------------------------------------- type adapter -------------------------------------//
+
+    private class FilteringTypeAdapter extends TypeAdapter<Map<String, Object>> {
+
+        private final LimitedJsonParser parser = SchemaFilteringTypeAdapterFactory.this.parser;
+        private final TypeAdapter<Map<String, Object>> delegate;
+
+        private FilteringTypeAdapter(final TypeAdapter<Map<String, Object>> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(final JsonWriter out, final Map<String, Object> value) throws IOException {
+            this.delegate.write(out, value);
+        }
+
+        @Override
+        public Map<String, Object> read(final JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            return this.readObject(in, SchemaFilteringTypeAdapterFactory.this.rootPlan, 1);
+        }
+
+        private Map<String, Object> readObject(final JsonReader in, final Map<String, PropertyPlan> plan, final int depth) throws IOException {
+            this.parser.checkDepth(depth, in);
+            final Map<String, Object> result = new HashMap<>();
+            in.beginObject();
+            while (in.hasNext()) {
+                final String name = in.nextName();
+                final PropertyPlan property = plan.get(name);
+                if (property == null) {
+                    // not part of the schema
+                    in.skipValue();
+                } else if (property.properties != null) {
+                    if (in.peek() == JsonToken.BEGIN_OBJECT) {
+                        result.put(name, this.readObject(in, property.properties, depth + 1));
+                    } else {
+                        in.skipValue();
+                    }
+                } else {
+                    result.put(name, this.readValue(in, property.schema, depth));
+                }
+            }
+            in.endObject();
+            this.addMissingProperties(result, plan);
+            return result;
+        }
+
+        // depth is the depth of the enclosing object or array
+        private Object readValue(final JsonReader in, final Schema schema, final int depth) throws IOException {
+            if (schema instanceof ArraySchema && in.peek() == JsonToken.BEGIN_ARRAY) {
+                return this.readArray(in, (ArraySchema) schema, depth + 1);
+            }
+            return this.parser.read(in, depth);
+        }
+
+        private List<Object> readArray(final JsonReader in, final ArraySchema schema, final int depth) throws IOException {
+            this.parser.checkDepth(depth, in);
+            // the schema and the plan of the items are resolved once for all items
+            final Schema allItemSchema = schema.getAllItemSchema() != null ? SchemaUtils.resolveReference(schema.getAllItemSchema()) : null;
+            final Map<String, PropertyPlan> allItemPlan = this.getItemPlan(allItemSchema);
+            final List<Object> result = new ArrayList<>();
+            in.beginArray();
+            while (in.hasNext()) {
+                this.parser.checkArraySize(result.size() + 1, in);
+                if (allItemSchema != null) {
+                    result.add(this.readItem(in, allItemSchema, allItemPlan, depth));
+                } else {
+                    final Schema tupleSchema = this.getTupleItemSchema(schema, result.size());
+                    final Schema resolvedSchema = tupleSchema != null ? SchemaUtils.resolveReference(tupleSchema) : null;
+                    result.add(this.readItem(in, resolvedSchema, this.getItemPlan(resolvedSchema), depth));
+                }
+            }
+            in.endArray();
+            return result;
+        }
+
+        // itemPlan is null if the items do not define properties
+        private Object readItem(final JsonReader in, final Schema itemSchema, final Map<String, PropertyPlan> itemPlan, final int depth) throws IOException {
+            if (itemSchema == null) {
+                return this.parser.read(in, depth);
+            }
+            if (itemPlan != null && in.peek() == JsonToken.BEGIN_OBJECT) {
+                return this.readObject(in, itemPlan, depth + 1);
+            }
+            return this.readValue(in, itemSchema, depth);
+        }
+
+        private Map<String, PropertyPlan> getItemPlan(final Schema resolvedSchema) {
+            if (resolvedSchema == null || !SchemaUtils.definesProperties(resolvedSchema)) {
+                return null;
+            }
+            return SchemaFilteringTypeAdapterFactory.this.getItemPlan(resolvedSchema);
+        }
+
+        private Schema getTupleItemSchema(final ArraySchema schema, final int index) {
+            final List<Schema> tupleSchemas = schema.getItemSchemas();
+            if (tupleSchemas == null) {
+                return null;
+            }
+            return index < tupleSchemas.size() ? tupleSchemas.get(index) : schema.getSchemaOfAdditionalItems();
+        }
+
+        // properties that are not in the data are initialized with null, nested objects are always created
+        private void addMissingProperties(final Map<String, Object> result, final Map<String, PropertyPlan> plan) {
+            for (final Map.Entry<String, PropertyPlan> entry : plan.entrySet()) {
+                if (!result.containsKey(entry.getKey())) {
+                    if (entry.getValue().properties != null) {
+                        final Map<String, Object> nested = new HashMap<>();
+                        this.addMissingProperties(nested, entry.getValue().properties);
+                        result.put(entry.getKey(), nested);
+                    } else {
+                        result.put(entry.getKey(), null);
+                    }
+                }
+            }
+        }
+    }
+}
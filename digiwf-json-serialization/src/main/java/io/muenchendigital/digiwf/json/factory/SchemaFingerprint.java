@@ -0,0 +1,150 @@
+package io.muenchendigital.digiwf.json.factory;
+
+import lombok.Getter;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Structural hash of a json schema and all of its sub schemas.
+ * <p>
+ * The fingerprint is a SHA-256 hash over the canonical form of the json: object keys are sorted and numbers are
+ * normalized, so the formatting and the key order of the raw schema do not change the fingerprint.
+ * The hash of an object is computed from the hashes of its values (merkle tree), so identical sub schemas
+ * have the same fingerprint wherever they occur.
+ */
+@Getter
+public class SchemaFingerprint {
+
+    private static final byte OBJECT = 'o';
+    private static final byte ARRAY = 'a';
+    private static final byte STRING = 's';
+    private static final byte NUMBER = 'n';
+    private static final byte LITERAL = 'l';
+
+    /**
+     * Hex encoded hash of the schema
+     */
+    private final String value;
+
+    /**
+     * Length of the canonical json representation of the schema
+     */
+    private final long size;
+
+    /**
+     * Fingerprints of the nested objects (sub schemas), including objects nested in arrays
+     */
+    private final List<SchemaFingerprint> subschemas;
+
+    private SchemaFingerprint(final String value, final long size, final List<SchemaFingerprint> subschemas) {
+        this.value = value;
+        this.size = size;
+        this.subschemas = subschemas;
+    }
+
+    /**
+     * Computes the fingerprint of a schema.
+     *
+     * @param schema raw json schema
+     * @return fingerprint
+     */
+    public static SchemaFingerprint of(final JSONObject schema) {
+        return fingerprint(schema);
+    }
+
+    /**
+     * Computes the fingerprint of a schema.
+     *
+     * @param schema raw json schema
+     * @return fingerprint
+     */
+    public static SchemaFingerprint of(final String schema) {
+        return of(new JSONObject(schema));
+    }
+
+    @Override
+    public String toString() {
+        return this.value;
+    }
+
+    //------------------------------------- helper methods -------------------------------------//
+
+    private static SchemaFingerprint fingerprint(final JSONObject object) {
+        final MessageDigest digest = Sha256.newDigest();
+        final List<SchemaFingerprint> subschemas = new ArrayList<>();
+        digest.update(OBJECT);
+        long size = 2 + Math.max(0, object.length() - 1);
+        for (final String key : new TreeSet<>(object.keySet())) {
+            final Node value = node(object.get(key), subschemas);
+            Sha256.updateString(digest, key);
+            digest.update(value.hash);
+            size += JSONObject.quote(key).length() + 1 + value.size;
+        }
+        return new SchemaFingerprint(Sha256.hex(digest.digest()), size, Collections.unmodifiableList(subschemas));
+    }
+
+    private static Node node(final Object value, final List<SchemaFingerprint> subschemas) {
+        if (value instanceof JSONObject) {
+            final SchemaFingerprint fingerprint = fingerprint((JSONObject) value);
+            subschemas.add(fingerprint);
+            return new Node(fingerprint.value.getBytes(StandardCharsets.US_ASCII), fingerprint.size);
+        }
+        final MessageDigest digest = Sha256.newDigest();
+        final long size;
+        if (value instanceof JSONArray) {
+            final JSONArray array = (JSONArray) value;
+            digest.update(ARRAY);
+            long arraySize = 2 + Math.max(0, array.length() - 1);
+            for (final Object item : array) {
+                final Node itemNode = node(item, subschemas);
+                digest.update(itemNode.hash);
+                arraySize += itemNode.size;
+            }
+            size = arraySize;
+        } else if (value instanceof String) {
+            digest.update(STRING);
+            Sha256.updateString(digest, (String) value);
+            size = JSONObject.quote((String) value).length();
+        } else if (value instanceof Number) {
+            final String number = normalize((Number) value);
+            digest.update(NUMBER);
+            Sha256.updateString(digest, number);
+            size = number.length();
+        } else {
+            // booleans and null
+            final String literal = String.valueOf(value);
+            digest.update(LITERAL);
+            Sha256.updateString(digest, literal);
+            size = literal.length();
+        }
+        return new Node(digest.digest(), size);
+    }
+
+    // 1, 1.0 and 1e0 are the same number in json
+    private static String normalize(final Number number) {
+        try {
+            final BigDecimal decimal = new BigDecimal(number.toString()).stripTrailingZeros();
+            return decimal.signum() == 0 ? "0" : decimal.toString();
+        } catch (final NumberFormatException e) {
+            return number.toString();
+        }
+    }
+
+    private static class Node {
+        private final byte[] hash;
+        private final long size;
+
+        private Node(final byte[] hash, final long size) {
+            this.hash = hash;
+            this.size = size;
+        }
+    }
+}
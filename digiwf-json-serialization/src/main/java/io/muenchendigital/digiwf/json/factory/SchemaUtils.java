@@ -0,0 +1,45 @@
+package io.muenchendigital.digiwf.json.factory;
+
+import org.everit.json.schema.CombinedSchema;
+import org.everit.json.schema.ObjectSchema;
+import org.everit.json.schema.ReferenceSchema;
+import org.everit.json.schema.Schema;
+
+/**
+ * Schema rules that are shared by the filter, the skeleton generator, the streaming filter and the migration.
+ */
+public final class SchemaUtils {
+
+    private SchemaUtils() {
+    }
+
+    /**
+     * Returns the referred schema of a resolved reference.
+     *
+     * @param schema schema
+     * @return referred schema, or the schema itself if it is not a reference or the reference is not resolved
+     */
+    public static Schema resolveReference(final Schema schema) {
+        if (schema instanceof ReferenceSchema && ((ReferenceSchema) schema).getReferredSchema() != null) {
+            return ((ReferenceSchema) schema).getReferredSchema();
+        }
+        return schema;
+    }
+
+    /**
+     * Checks whether the schema defines properties, directly or in one of its combined sub schemas.
+     * Values of schemas without properties are kept as they are.
+     *
+     * @param schema schema
+     * @return true if the schema defines properties
+     */
+    public static boolean definesProperties(final Schema schema) {
+        if (schema instanceof ObjectSchema) {
+            return !((ObjectSchema) schema).getPropertySchemas().isEmpty();
+        }
+        if (schema instanceof CombinedSchema) {
+            return ((CombinedSchema) schema).getSubschemas().stream().anyMatch(SchemaUtils::definesProperties);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,54 @@
+package io.muenchendigital.digiwf.json.factory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 helpers shared by {@link SchemaFingerprint} and {@link DocumentHash}.
+ */
+final class Sha256 {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private Sha256() {
+    }
+
+    /**
+     * @return new SHA-256 digest
+     */
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            // every java platform has to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Updates the digest with a length prefixed string, so adjacent values cannot be confused.
+     *
+     * @param digest digest that is updated
+     * @param value  string value
+     */
+    static void updateString(final MessageDigest digest, final String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.US_ASCII));
+        digest.update((byte) ':');
+        digest.update(bytes);
+    }
+
+    /**
+     * @param bytes hash
+     * @return hex encoded hash
+     */
+    static String hex(final byte[] bytes) {
+        final char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+}
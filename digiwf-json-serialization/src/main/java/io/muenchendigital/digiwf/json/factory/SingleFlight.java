@@ -0,0 +1,116 @@
+package io.muenchendigital.digiwf.json.factory;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Computes cached values once per key.
+ * <p>
+ * The first caller of a key registers a future in the cache and computes the value outside of the map,
+ * concurrent callers of the same key wait for the future. Unlike {@code computeIfAbsent} no lock of the map
+ * is held while the value is computed, so expensive or blocking computations (loading schemas, reading documents)
+ * do not block other keys. Failed computations are removed, so the next caller tries again.
+ * The futures are either held in a map or in a {@link BoundedCache}.
+ */
+public class SingleFlight {
+
+    private SingleFlight() {
+    }
+
+    /**
+     * Returns the cached value or computes it on the calling thread.
+     *
+     * @param cache    futures of the values by key
+     * @param key      key of the value
+     * @param supplier computes the value
+     * @param <K>      key type
+     * @param <T>      value type
+     * @return value
+     */
+    public static <K, T> T getOrCompute(final Map<K, CompletableFuture<T>> cache, final K key, final Supplier<T> supplier) {
+        return getOrCompute(cache::get, cache::putIfAbsent, cache::remove, key, supplier);
+    }
+
+    /**
+     * Returns the cached value or computes it on the calling thread.
+     *
+     * @param cache    bounded cache of the futures of the values by key
+     * @param key      key of the value
+     * @param supplier computes the value
+     * @param <K>      key type
+     * @param <T>      value type
+     * @return value
+     */
+    public static <K, T> T getOrCompute(final BoundedCache<K, CompletableFuture<T>> cache, final K key, final Supplier<T> supplier) {
+        return getOrCompute(cache::get, cache::putIfAbsent, cache::remove, key, supplier);
+    }
+
+    /**
+     * Completes a future that was registered in the cache with the computed value.
+     *
+     * @param cache    futures of the values by key
+     * @param key      key of the value
+     * @param future   future that was registered for the key
+     * @param supplier computes the value
+     * @param <K>      key type
+     * @param <T>      value type
+     */
+    public static <K, T> void complete(final Map<K, CompletableFuture<T>> cache, final K key, final CompletableFuture<T> future,
+                                       final Supplier<T> supplier) {
+        complete(cache::remove, key, future, supplier);
+    }
+
+    /**
+     * Completes a future that was registered in the bounded cache with the computed value.
+     *
+     * @param cache    bounded cache of the futures of the values by key
+     * @param key      key of the value
+     * @param future   future that was registered for the key
+     * @param supplier computes the value
+     * @param <K>      key type
+     * @param <T>      value type
+     */
+    public static <K, T> void complete(final BoundedCache<K, CompletableFuture<T>> cache, final K key, final CompletableFuture<T> future,
+                                       final Supplier<T> supplier) {
+        complete(cache::remove, key, future, supplier);
+    }
+
+    //------------------------------------- helper methods -------------------------------------//
+
+    private static <K, T> T getOrCompute(final Function<K, CompletableFuture<T>> get,
+                                         final BiFunction<K, CompletableFuture<T>, CompletableFuture<T>> putIfAbsent,
+                                         final BiConsumer<K, CompletableFuture<T>> remove, final K key, final Supplier<T> supplier) {
+        CompletableFuture<T> future = get.apply(key);
+        if (future == null) {
+            final CompletableFuture<T> created = new CompletableFuture<>();
+            future = putIfAbsent.apply(key, created);
+            if (future == null) {
+                future = created;
+                complete(remove, key, created, supplier);
+            }
+        }
+        try {
+            return future.join();
+        } catch (final CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static <K, T> void complete(final BiConsumer<K, CompletableFuture<T>> remove, final K key, final CompletableFuture<T> future,
+                                        final Supplier<T> supplier) {
+        try {
+            future.complete(supplier.get());
+        } catch (final RuntimeException | Error e) {
+            remove.accept(key, future);
+            future.completeExceptionally(e);
+        }
+    }
+}
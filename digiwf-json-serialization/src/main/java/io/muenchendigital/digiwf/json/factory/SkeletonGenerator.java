@@ -0,0 +1,101 @@
+package io.muenchendigital.digiwf.json.factory;
+
+import org.everit.json.schema.ArraySchema;
+import org.everit.json.schema.CombinedSchema;
+import org.everit.json.schema.ConstSchema;
+import org.everit.json.schema.ObjectSchema;
+import org.everit.json.schema.ReferenceSchema;
+import org.everit.json.schema.Schema;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Generates the nested structure of a json schema.
+ * <p>
+ * Nested object schemas are initialized as json objects and array schemas as empty arrays.
+ * Combined schemas are handled the same way as by the filter, their properties are added to the enclosing object.
+ * Leaf values are initialized with their default or const value or an empty string.
+ */
+class SkeletonGenerator {
+
+    private SkeletonGenerator() {
+    }
+
+    static JSONObject generate(final Schema schema) {
+        final JSONObject result = new JSONObject();
+        appendSkeleton(schema, result, Collections.newSetFromMap(new IdentityHashMap<>()));
+        return result;
+    }
+
+    //------------------------------------- helper methods -------------------------------------//
+
+    private static void appendSkeleton(final Schema schema, final JSONObject result, final Set<Schema> visited) {
+        // stop at recursive references
+        if (!visited.add(schema)) {
+            return;
+        }
+        if (schema instanceof ObjectSchema) {
+            ((ObjectSchema) schema).getPropertySchemas().forEach((key, propertySchema) -> appendSkeletonProperty(key, propertySchema, result, visited));
+        } else if (schema instanceof CombinedSchema) {
+            ((CombinedSchema) schema).getSubschemas().forEach(subSchema -> appendSkeleton(subSchema, result, visited));
+        } else if (schema instanceof ReferenceSchema && ((ReferenceSchema) schema).getReferredSchema() != null) {
+            appendSkeleton(((ReferenceSchema) schema).getReferredSchema(), result, visited);
+        }
+        visited.remove(schema);
+    }
+
+    private static void appendSkeletonProperty(final String key, final Schema schema, final JSONObject result, final Set<Schema> visited) {
+        if (hasDefaultValue(schema)) {
+            result.put(key, getDefaultValue(schema));
+            return;
+        }
+        final Schema resolvedSchema = SchemaUtils.resolveReference(schema);
+        if (resolvedSchema instanceof ObjectSchema) {
+            final JSONObject nested = new JSONObject();
+            appendSkeleton(resolvedSchema, nested, visited);
+            result.put(key, nested);
+        } else if (resolvedSchema instanceof ArraySchema) {
+            result.put(key, new JSONArray());
+        } else if (resolvedSchema instanceof CombinedSchema && !resolvedSchema.getUnprocessedProperties().containsKey("fieldType")
+                && SchemaUtils.definesProperties(resolvedSchema)) {
+            appendSkeleton(resolvedSchema, result, visited);
+        } else {
+            result.put(key, getInitialValue(resolvedSchema));
+        }
+    }
+
+    private static Object getInitialValue(final Schema schema) {
+        if (hasDefaultValue(schema)) {
+            return getDefaultValue(schema);
+        }
+        if (schema instanceof ConstSchema) {
+            return ((ConstSchema) schema).getPermittedValue();
+        }
+        // e.g. {"type": "string", "const": "value"} is loaded as combined schema
+        if (schema instanceof CombinedSchema) {
+            for (final Schema subSchema : ((CombinedSchema) schema).getSubschemas()) {
+                final Object value = getInitialValue(subSchema);
+                if (!"".equals(value)) {
+                    return value;
+                }
+            }
+        }
+        return "";
+    }
+
+    // without useDefaults(true) the schema loader keeps default values as unprocessed properties
+    private static boolean hasDefaultValue(final Schema schema) {
+        return schema.hasDefaultValue() || schema.getUnprocessedProperties().containsKey("default");
+    }
+
+    private static Object getDefaultValue(final Schema schema) {
+        if (schema.hasDefaultValue()) {
+            return schema.getDefaultValue();
+        }
+        return JSONObject.wrap(schema.getUnprocessedProperties().get("default"));
+    }
+}
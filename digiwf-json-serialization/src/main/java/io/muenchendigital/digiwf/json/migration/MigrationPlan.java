@@ -0,0 +1,248 @@
+package io.muenchendigital.digiwf.json.migration;
+
+import io.muenchendigital.digiwf.json.serialization.model.JsonPointer;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.everit.json.schema.Schema;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reusable plan that migrates data from one schema version to another.
+ * <p>
+ * The plan is computed once from the {@link SchemaDiff} of the two schemas and applied to any number of documents:
+ * <ul>
+ *     <li>moved values are copied to their new path</li>
+ *     <li>retyped values are converted to the new type, e.g. {@code "42"} to {@code 42}, values that cannot be
+ *     converted are removed</li>
+ *     <li>removed values are deleted, objects that only existed in the old schema are deleted if they are empty</li>
+ *     <li>added properties are initialized with their default value if the new schema defines one</li>
+ * </ul>
+ * Values that are not described by the old schema are kept. The plan is immutable and thread-safe,
+ * documents are copied and never modified.
+ */
+public class MigrationPlan {
+
+    @Getter
+    private final SchemaDiff diff;
+
+    private final List<Operation> moves = new ArrayList<>();
+
+    private final List<Operation> retypes = new ArrayList<>();
+
+    private final List<Operation> removes = new ArrayList<>();
+
+    private final List<Operation> defaults = new ArrayList<>();
+
+    // objects of the old schema that do not exist in the new schema, deepest first
+    private final List<List<String>> removedObjects;
+
+    private MigrationPlan(final PropertyTree from, final PropertyTree to) {
+        this.diff = SchemaDiff.between(from, to);
+        for (final PropertyChange change : this.diff.getChanges()) {
+            final List<String> fromPath = change.getFrom() != null ? new JsonPointer(change.getFrom()).getRefTokens() : null;
+            final List<String> toPath = change.getTo() != null ? new JsonPointer(change.getTo()).getRefTokens() : null;
+            switch (change.getType()) {
+                case MOVED:
+                    this.moves.add(new Operation(fromPath, toPath, change.getToType(), null));
+                    break;
+                case RETYPED:
+                    this.retypes.add(new Operation(fromPath, toPath, change.getToType(), null));
+                    break;
+                case REMOVED:
+                    this.removes.add(new Operation(fromPath, null, null, null));
+                    break;
+                case ADDED:
+                    final Schema schema = to.getLeaves().get(toPath);
+                    if (hasDefaultValue(schema)) {
+                        this.defaults.add(new Operation(null, toPath, change.getToType(), getDefaultValue(schema)));
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("unknown change " + change.getType());
+            }
+        }
+        this.removedObjects = from.getObjects().stream()
+                .filter(path -> !to.getObjects().contains(path))
+                .sorted(Comparator.comparingInt(List<String>::size).reversed())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Computes the plan that migrates data of the old schema to the new schema.
+     *
+     * @param from old schema
+     * @param to   new schema
+     * @return migration plan
+     */
+    public static MigrationPlan between(final Schema from, final Schema to) {
+        return new MigrationPlan(new PropertyTree(from), new PropertyTree(to));
+    }
+
+    /**
+     * Migrates a document.
+     *
+     * @param document data of the old schema, the document is not modified
+     * @return migrated data
+     */
+    public Map<String, Object> apply(final Map<String, Object> document) {
+        final Map<String, Object> result = copy(document);
+
+        // read all moved values before anything is removed, so values can be swapped
+        final List<Object> movedValues = this.moves.stream()
+                .map(move -> get(result, move.from))
+                .collect(Collectors.toList());
+        this.moves.forEach(move -> remove(result, move.from));
+        for (int index = 0; index < this.moves.size(); index++) {
+            final Operation move = this.moves.get(index);
+            final Object value = movedValues.get(index);
+            if (value != null) {
+                this.putConverted(result, move.to, value, move.type);
+            }
+        }
+
+        for (final Operation retype : this.retypes) {
+            final Object value = get(result, retype.from);
+            if (value != null) {
+                this.putConverted(result, retype.to, value, retype.type);
+            }
+        }
+
+        this.removes.forEach(remove -> remove(result, remove.from));
+        this.removedObjects.forEach(path -> {
+            final Object value = get(result, path);
+            if (value instanceof Map && ((Map<?, ?>) value).isEmpty()) {
+                remove(result, path);
+            }
+        });
+
+        for (final Operation initialization : this.defaults) {
+            if (get(result, initialization.to) == null) {
+                put(result, initialization.to, copyValue(initialization.value));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Migrates documents in parallel.
+     *
+     * @param documents data of the old schema, the documents are not modified
+     * @return migrated data in the order of the documents
+     */
+    public List<Map<String, Object>> applyAll(final Collection<Map<String, Object>> documents) {
+        return documents.parallelStream()
+                .map(this::apply)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Migrates a stream of documents lazily. The documents are migrated in parallel if the stream is parallel.
+     *
+     * @param documents data of the old schema, the documents are not modified
+     * @return stream of migrated data
+     */
+    public Stream<Map<String, Object>> apply(final Stream<Map<String, Object>> documents) {
+        return documents.map(this::apply);
+    }
+
+    //------------------------------------- helper methods -------------------------------------//
+
+    private void putConverted(final Map<String, Object> document, final List<String> path, final Object value, final String type) {
+        final Object converted = ValueConversion.convert(value, type);
+        if (converted == ValueConversion.NOT_CONVERTIBLE) {
+            remove(document, path);
+        } else {
+            put(document, path, converted);
+        }
+    }
+
+    private static Object get(final Map<String, Object> document, final List<String> path) {
+        Object current = document;
+        for (final String token : path) {
+            if (!(current instanceof Map)) {
+                return null;
+            }
+            current = ((Map<?, ?>) current).get(token);
+        }
+        return current;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void put(final Map<String, Object> document, final List<String> path, final Object value) {
+        Map<String, Object> current = document;
+        for (final String token : path.subList(0, path.size() - 1)) {
+            final Object next = current.get(token);
+            if (next == null) {
+                final Map<String, Object> created = new HashMap<>();
+                current.put(token, created);
+                current = created;
+            } else if (next instanceof Map) {
+                current = (Map<String, Object>) next;
+            } else {
+                // the data does not match the new schema, the value is not written
+                return;
+            }
+        }
+        current.put(path.get(path.size() - 1), value);
+    }
+
+    private static void remove(final Map<String, Object> document, final List<String> path) {
+        final Object parent = get(document, path.subList(0, path.size() - 1));
+        if (parent instanceof Map) {
+            ((Map<?, ?>) parent).remove(path.get(path.size() - 1));
+        }
+    }
+
+    private static Map<String, Object> copy(final Map<String, Object> document) {
+        final Map<String, Object> copy = new HashMap<>();
+        document.forEach((key, value) -> copy.put(key, copyValue(value)));
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object copyValue(final Object value) {
+        if (value instanceof Map) {
+            return copy((Map<String, Object>) value);
+        }
+        if (value instanceof List) {
+            return ((List<Object>) value).stream()
+                    .map(MigrationPlan::copyValue)
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+        return value;
+    }
+
+    // without useDefaults(true) the schema loader keeps default values as unprocessed properties
+    private static boolean hasDefaultValue(final Schema schema) {
+        return schema.hasDefaultValue() || schema.getUnprocessedProperties().containsKey("default");
+    }
+
+    private static Object getDefaultValue(final Schema schema) {
+        final Object value = schema.hasDefaultValue() ? schema.getDefaultValue() : JSONObject.wrap(schema.getUnprocessedProperties().get("default"));
+        if (value instanceof JSONObject) {
+            return ((JSONObject) value).toMap();
+        }
+        if (value instanceof JSONArray) {
+            return ((JSONArray) value).toList();
+        }
+        return value == JSONObject.NULL ? null : value;
+    }
+
+    @RequiredArgsConstructor
+    private static class Operation {
+        private final List<String> from;
+        private final List<String> to;
+        private final String type;
+        private final Object value;
+    }
+}
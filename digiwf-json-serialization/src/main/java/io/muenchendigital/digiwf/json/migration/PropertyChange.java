@@ -0,0 +1,58 @@
+package io.muenchendigital.digiwf.json.migration;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Change of a single property between two schema versions.
+ * <p>
+ * Properties are addressed by json pointers into the data, e.g. {@code /address/street}. Properties of combined
+ * schemas are part of the enclosing object, the same way as in the filter of the serializer.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class PropertyChange {
+
+    public enum Type {
+        /**
+         * The property only exists in the new schema
+         */
+        ADDED,
+        /**
+         * The property only exists in the old schema
+         */
+        REMOVED,
+        /**
+         * The property was moved to another object, its type may have changed as well
+         */
+        MOVED,
+        /**
+         * The property has another type in the new schema
+         */
+        RETYPED
+    }
+
+    private final Type type;
+
+    /**
+     * Pointer of the property in the old schema, null for added properties
+     */
+    private final String from;
+
+    /**
+     * Pointer of the property in the new schema, null for removed properties
+     */
+    private final String to;
+
+    /**
+     * Json type of the property in the old schema, null for added properties
+     */
+    private final String fromType;
+
+    /**
+     * Json type of the property in the new schema, null for removed properties
+     */
+    private final String toType;
+}
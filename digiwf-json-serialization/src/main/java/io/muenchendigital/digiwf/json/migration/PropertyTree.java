@@ -0,0 +1,176 @@
+package io.muenchendigital.digiwf.json.migration;
+
+import io.muenchendigital.digiwf.json.factory.SchemaUtils;
+import org.everit.json.schema.ArraySchema;
+import org.everit.json.schema.BooleanSchema;
+import org.everit.json.schema.CombinedSchema;
+import org.everit.json.schema.ConditionalSchema;
+import org.everit.json.schema.ConstSchema;
+import org.everit.json.schema.EnumSchema;
+import org.everit.json.schema.NullSchema;
+import org.everit.json.schema.NumberSchema;
+import org.everit.json.schema.ObjectSchema;
+import org.everit.json.schema.Schema;
+import org.everit.json.schema.StringSchema;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Properties of a schema by their path in the data.
+ * <p>
+ * Nested object schemas are followed, properties of combined schemas (and of then/else branches) are added to the
+ * enclosing object. All other properties are leaves, e.g. strings, numbers or arrays.
+ */
+class PropertyTree {
+
+    static final String ANY = "any";
+
+    // leaf schemas by their path
+    private final Map<List<String>, Schema> leaves = new LinkedHashMap<>();
+
+    // paths of nested objects
+    private final Set<List<String>> objects = new LinkedHashSet<>();
+
+    PropertyTree(final Schema schema) {
+        this.collect(schema, List.of(), Collections.newSetFromMap(new IdentityHashMap<>()));
+    }
+
+    Map<List<String>, Schema> getLeaves() {
+        return this.leaves;
+    }
+
+    Set<List<String>> getObjects() {
+        return this.objects;
+    }
+
+    /**
+     * Returns the json type of a leaf schema: string, integer, number, boolean, array, object, null or any
+     * if the schema does not require a single type.
+     */
+    static String typeOf(final Schema schema) {
+        final Schema resolvedSchema = SchemaUtils.resolveReference(schema);
+        if (resolvedSchema instanceof StringSchema) {
+            return "string";
+        }
+        if (resolvedSchema instanceof NumberSchema) {
+            return ((NumberSchema) resolvedSchema).requiresInteger() ? "integer" : "number";
+        }
+        if (resolvedSchema instanceof BooleanSchema) {
+            return "boolean";
+        }
+        if (resolvedSchema instanceof ArraySchema) {
+            return "array";
+        }
+        if (resolvedSchema instanceof ObjectSchema) {
+            return "object";
+        }
+        if (resolvedSchema instanceof NullSchema) {
+            return "null";
+        }
+        if (resolvedSchema instanceof ConstSchema) {
+            return typeOfValue(((ConstSchema) resolvedSchema).getPermittedValue());
+        }
+        if (resolvedSchema instanceof EnumSchema) {
+            return singleType(((EnumSchema) resolvedSchema).getPossibleValues().stream()
+                    .map(PropertyTree::typeOfValue)
+                    .collect(Collectors.toList()));
+        }
+        if (resolvedSchema instanceof CombinedSchema) {
+            // e.g. {"type": "string", "const": "value"} is loaded as combined schema
+            return singleType(((CombinedSchema) resolvedSchema).getSubschemas().stream()
+                    .map(PropertyTree::typeOf)
+                    .filter(type -> !ANY.equals(type))
+                    .collect(Collectors.toList()));
+        }
+        return ANY;
+    }
+
+    //------------------------------------- helper methods -------------------------------------//
+
+    private void collect(final Schema schema, final List<String> path, final Set<Schema> visited) {
+        final Schema resolvedSchema = SchemaUtils.resolveReference(schema);
+        // stop at recursive references
+        if (!visited.add(resolvedSchema)) {
+            return;
+        }
+        if (resolvedSchema instanceof ObjectSchema) {
+            ((ObjectSchema) resolvedSchema).getPropertySchemas().forEach((key, propertySchema) -> this.collectProperty(key, propertySchema, path, visited));
+        } else if (resolvedSchema instanceof CombinedSchema) {
+            ((CombinedSchema) resolvedSchema).getSubschemas().forEach(subSchema -> this.collect(subSchema, path, visited));
+        } else if (resolvedSchema instanceof ConditionalSchema) {
+            final ConditionalSchema conditionalSchema = (ConditionalSchema) resolvedSchema;
+            conditionalSchema.getThenSchema().ifPresent(thenSchema -> this.collect(thenSchema, path, visited));
+            conditionalSchema.getElseSchema().ifPresent(elseSchema -> this.collect(elseSchema, path, visited));
+        }
+        visited.remove(resolvedSchema);
+    }
+
+    private void collectProperty(final String key, final Schema schema, final List<String> path, final Set<Schema> visited) {
+        final Schema resolvedSchema = SchemaUtils.resolveReference(schema);
+        final List<String> propertyPath = append(path, key);
+        if (resolvedSchema instanceof ObjectSchema) {
+            this.objects.add(propertyPath);
+            this.collect(resolvedSchema, propertyPath, visited);
+        } else if (resolvedSchema instanceof CombinedSchema && !resolvedSchema.getUnprocessedProperties().containsKey("fieldType")
+                && definesProperties(resolvedSchema)) {
+            this.collect(resolvedSchema, path, visited);
+        } else {
+            this.leaves.put(propertyPath, schema);
+        }
+    }
+
+    private static List<String> append(final List<String> path, final String key) {
+        final List<String> result = new ArrayList<>(path.size() + 1);
+        result.addAll(path);
+        result.add(key);
+        return Collections.unmodifiableList(result);
+    }
+
+    private static String singleType(final Collection<String> types) {
+        final Set<String> distinctTypes = new LinkedHashSet<>(types);
+        return distinctTypes.size() == 1 ? distinctTypes.iterator().next() : ANY;
+    }
+
+    private static String typeOfValue(final Object value) {
+        if (value instanceof String) {
+            return "string";
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof BigDecimal && ((BigDecimal) value).stripTrailingZeros().scale() <= 0) {
+            return "integer";
+        }
+        if (value instanceof Number) {
+            return "number";
+        }
+        if (value instanceof Boolean) {
+            return "boolean";
+        }
+        if (value instanceof JSONArray) {
+            return "array";
+        }
+        if (value instanceof JSONObject) {
+            return "object";
+        }
+        return value == null || value == JSONObject.NULL ? "null" : ANY;
+    }
+
+    // unlike the filter, referenced and conditional sub schemas of combined schemas are migrated as well
+    private static boolean definesProperties(final Schema schema) {
+        final Schema resolvedSchema = SchemaUtils.resolveReference(schema);
+        if (resolvedSchema instanceof CombinedSchema) {
+            return ((CombinedSchema) resolvedSchema).getSubschemas().stream().anyMatch(PropertyTree::definesProperties);
+        }
+        return SchemaUtils.definesProperties(resolvedSchema) || resolvedSchema instanceof ConditionalSchema;
+    }
+}
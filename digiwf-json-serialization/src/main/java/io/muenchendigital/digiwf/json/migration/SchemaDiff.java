@@ -0,0 +1,105 @@
+package io.muenchendigital.digiwf.json.migration;
+
+import io.muenchendigital.digiwf.json.serialization.model.JsonPointer;
+import lombok.Getter;
+import lombok.ToString;
+import org.everit.json.schema.Schema;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Differences between the properties of two schema versions.
+ * <p>
+ * Properties with the same path and a different type are retyped. A removed and an added property with the same
+ * name are a move if no other property with this name was removed or added, e.g. {@code /street} to
+ * {@code /address/street}. All other properties are added or removed.
+ */
+@Getter
+@ToString
+public class SchemaDiff {
+
+    private final List<PropertyChange> changes;
+
+    private SchemaDiff(final List<PropertyChange> changes) {
+        this.changes = Collections.unmodifiableList(changes);
+    }
+
+    /**
+     * Compares the properties of two schemas.
+     *
+     * @param from old schema
+     * @param to   new schema
+     * @return differences
+     */
+    public static SchemaDiff between(final Schema from, final Schema to) {
+        return between(new PropertyTree(from), new PropertyTree(to));
+    }
+
+    /**
+     * Returns the changes of a type.
+     *
+     * @param type type of the change
+     * @return changes
+     */
+    public List<PropertyChange> getChanges(final PropertyChange.Type type) {
+        return this.changes.stream()
+                .filter(change -> change.getType() == type)
+                .collect(Collectors.toList());
+    }
+
+    public boolean isEmpty() {
+        return this.changes.isEmpty();
+    }
+
+    //------------------------------------- helper methods -------------------------------------//
+
+    static SchemaDiff between(final PropertyTree from, final PropertyTree to) {
+        final List<PropertyChange> changes = new ArrayList<>();
+        final Map<List<String>, Schema> removed = new LinkedHashMap<>();
+        final Map<List<String>, Schema> added = new LinkedHashMap<>(to.getLeaves());
+
+        from.getLeaves().forEach((path, schema) -> {
+            final Schema newSchema = added.remove(path);
+            if (newSchema == null) {
+                removed.put(path, schema);
+                return;
+            }
+            final String fromType = PropertyTree.typeOf(schema);
+            final String toType = PropertyTree.typeOf(newSchema);
+            if (!fromType.equals(toType)) {
+                changes.add(new PropertyChange(PropertyChange.Type.RETYPED, pointer(path), pointer(path), fromType, toType));
+            }
+        });
+
+        final Map<String, List<List<String>>> removedByName = groupByName(removed.keySet());
+        final Map<String, List<List<String>>> addedByName = groupByName(added.keySet());
+        removedByName.forEach((name, removedPaths) -> {
+            final List<List<String>> addedPaths = addedByName.getOrDefault(name, List.of());
+            if (removedPaths.size() == 1 && addedPaths.size() == 1) {
+                final List<String> fromPath = removedPaths.get(0);
+                final List<String> toPath = addedPaths.get(0);
+                changes.add(new PropertyChange(PropertyChange.Type.MOVED, pointer(fromPath), pointer(toPath),
+                        PropertyTree.typeOf(removed.remove(fromPath)), PropertyTree.typeOf(added.remove(toPath))));
+            }
+        });
+
+        removed.forEach((path, schema) -> changes.add(new PropertyChange(PropertyChange.Type.REMOVED, pointer(path), null, PropertyTree.typeOf(schema), null)));
+        added.forEach((path, schema) -> changes.add(new PropertyChange(PropertyChange.Type.ADDED, null, pointer(path), null, PropertyTree.typeOf(schema))));
+        return new SchemaDiff(changes);
+    }
+
+    private static Map<String, List<List<String>>> groupByName(final Iterable<List<String>> paths) {
+        final Map<String, List<List<String>>> result = new LinkedHashMap<>();
+        paths.forEach(path -> result.computeIfAbsent(path.get(path.size() - 1), key -> new ArrayList<>()).add(path));
+        return result;
+    }
+
+    private static String pointer(final List<String> path) {
+        return new JsonPointer(path).toString();
+    }
+}
@@ -0,0 +1,134 @@
+package io.muenchendigital.digiwf.json.migration;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Conversion of values to the json type of a retyped property.
+ */
+class ValueConversion {
+
+    /**
+     * Result of a value that cannot be converted to the type
+     */
+    static final Object NOT_CONVERTIBLE = new Object();
+
+    private ValueConversion() {
+    }
+
+    /**
+     * Converts a value, e.g. {@code "42"} to the integer {@code 42} or {@code true} to {@code "true"}.
+     * Single values are wrapped into an array and arrays with one item are unwrapped.
+     *
+     * @param value value of the old property
+     * @param type  json type of the new property
+     * @return converted value or {@link #NOT_CONVERTIBLE}
+     */
+    static Object convert(final Object value, final String type) {
+        if (PropertyTree.ANY.equals(type) || isType(value, type)) {
+            return value;
+        }
+        if ("array".equals(type)) {
+            final List<Object> list = new ArrayList<>();
+            list.add(value);
+            return list;
+        }
+        if (value instanceof List) {
+            final List<?> list = (List<?>) value;
+            return list.size() == 1 && list.get(0) != null ? convert(list.get(0), type) : NOT_CONVERTIBLE;
+        }
+        switch (type) {
+            case "string":
+                return value instanceof Number ? toPlainString((Number) value) : value instanceof Boolean ? value.toString() : NOT_CONVERTIBLE;
+            case "integer":
+                return toInteger(value);
+            case "number":
+                return toNumber(value);
+            case "boolean":
+                return toBoolean(value);
+            default:
+                return NOT_CONVERTIBLE;
+        }
+    }
+
+    //------------------------------------- helper methods -------------------------------------//
+
+    private static boolean isType(final Object value, final String type) {
+        switch (type) {
+            case "string":
+                return value instanceof String;
+            case "integer":
+                return value instanceof Integer || value instanceof Long || value instanceof BigInteger
+                        || value instanceof BigDecimal && isIntegral((BigDecimal) value);
+            case "number":
+                return value instanceof Number;
+            case "boolean":
+                return value instanceof Boolean;
+            case "array":
+                return value instanceof List;
+            case "object":
+                return value instanceof Map;
+            default:
+                return false;
+        }
+    }
+
+    private static Object toInteger(final Object value) {
+        final BigDecimal decimal = toDecimal(value);
+        if (decimal == null || !isIntegral(decimal)) {
+            return NOT_CONVERTIBLE;
+        }
+        return narrow(decimal.toBigIntegerExact());
+    }
+
+    private static Object toNumber(final Object value) {
+        final BigDecimal decimal = toDecimal(value);
+        if (decimal == null) {
+            return NOT_CONVERTIBLE;
+        }
+        return isIntegral(decimal) ? narrow(decimal.toBigIntegerExact()) : decimal.doubleValue();
+    }
+
+    private static Object toBoolean(final Object value) {
+        if (value instanceof String && ("true".equalsIgnoreCase(((String) value).trim()) || "false".equalsIgnoreCase(((String) value).trim()))) {
+            return Boolean.valueOf(((String) value).trim());
+        }
+        return NOT_CONVERTIBLE;
+    }
+
+    private static BigDecimal toDecimal(final Object value) {
+        try {
+            if (value instanceof Number) {
+                return new BigDecimal(value.toString());
+            }
+            if (value instanceof String) {
+                return new BigDecimal(((String) value).trim());
+            }
+        } catch (final NumberFormatException e) {
+            // NaN, infinity or text that is not a number
+        }
+        return null;
+    }
+
+    private static boolean isIntegral(final BigDecimal decimal) {
+        return decimal.signum() == 0 || decimal.stripTrailingZeros().scale() <= 0;
+    }
+
+    private static Number narrow(final BigInteger value) {
+        if (value.bitLength() < Integer.SIZE) {
+            return value.intValue();
+        }
+        if (value.bitLength() < Long.SIZE) {
+            return value.longValue();
+        }
+        return new BigDecimal(value);
+    }
+
+    private static String toPlainString(final Number number) {
+        final BigDecimal decimal = toDecimal(number);
+        return decimal != null ? decimal.stripTrailingZeros().toPlainString() : number.toString();
+    }
+}
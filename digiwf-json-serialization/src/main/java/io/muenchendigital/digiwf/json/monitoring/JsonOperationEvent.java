@@ -0,0 +1,140 @@
+package io.muenchendigital.digiwf.json.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.everit.json.schema.Schema;
+
+/**
+ * Java Flight Recorder event of a schema compilation, filter, merge or validation.
+ * <p>
+ * The event is emitted by the {@code JsonSerializationService} and the {@code JsonSchemaValidator}, so time and allocations
+ * in a recording can be attributed to a schema. Each call emits one event, the serializer that the service delegates to
+ * does not emit events.
+ * The payload is only measured if the event is recorded, without a recording an operation only creates the event.
+ * The payload is measured outside of the event class, the flight recorder cannot resolve library types in the code it instruments.
+ * Failed operations are recorded as well, with the class name of the exception.
+ * <pre>
+ * final JsonOperationEvent event = JsonOperationEvent.start(JsonOperationEvent.SERVICE, "filter");
+ * try {
+ *     return ...;
+ * } catch (final RuntimeException e) {
+ *     event.fail(e);
+ *     throw e;
+ * } finally {
+ *     event.complete(compiledSchema.getSchema(), compiledSchema.getFingerprint(), data);
+ * }
+ * </pre>
+ */
+@Name(JsonOperationEvent.NAME)
+@Label("JSON Schema Operation")
+@Category({"DigiWF", "JSON Serialization"})
+@Description("Compilation, filtering, merging or validation of json data with a json schema")
+@StackTrace(false)
+public class JsonOperationEvent extends Event {
+
+    public static final String NAME = "io.muenchendigital.digiwf.json.Operation";
+
+    public static final String SERVICE = "service";
+
+    public static final String VALIDATOR = "validator";
+
+    @Label("Component")
+    @Description("Component that emitted the event: service or validator")
+    private String component;
+
+    @Label("Operation")
+    private String operation;
+
+    @Label("Schema Id")
+    @Description("$id, location or title of the schema")
+    private String schemaId;
+
+    @Label("Schema Hash")
+    @Description("Fingerprint of the raw schema, if it is known to the component")
+    private String schemaHash;
+
+    @Label("Payload Size")
+    @Description("Length of the json representation of the payload")
+    @DataAmount
+    private long payloadSize;
+
+    @Label("Node Count")
+    @Description("Number of objects, arrays and values of the payload")
+    private long nodeCount;
+
+    @Label("Failure")
+    @Description("Class name of the exception the operation failed with, empty if the operation succeeded")
+    private String failure;
+
+    private JsonOperationEvent(final String component, final String operation) {
+        this.component = component;
+        this.operation = operation;
+    }
+
+    /**
+     * Creates and begins an event.
+     *
+     * @param component component that emits the event
+     * @param operation operation, e.g. filter or validate
+     * @return started event
+     */
+    public static JsonOperationEvent start(final String component, final String operation) {
+        final JsonOperationEvent event = new JsonOperationEvent(component, operation);
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Records the exception the operation failed with, the event is still completed with {@link #complete}.
+     *
+     * @param failure exception of the operation
+     */
+    public void fail(final Throwable failure) {
+        this.failure = failure.getClass().getName();
+    }
+
+    /**
+     * Ends the event and commits it if it is recorded.
+     *
+     * @param schema     schema of the operation
+     * @param schemaHash fingerprint of the schema or null
+     * @param payload    json payload that is measured, {@code Map} and {@code List} values or org.json values
+     */
+    public void complete(final Schema schema, final String schemaHash, final Object payload) {
+        this.end();
+        if (this.shouldCommit()) {
+            this.measureAndCommit(PayloadStatistics.schemaId(schema), schemaHash, payload, -1);
+        }
+    }
+
+    /**
+     * Ends the event and commits it if it is recorded.
+     *
+     * @param schema      schema of the operation
+     * @param schemaHash  fingerprint of the schema or null
+     * @param payload     json payload whose nodes are counted
+     * @param payloadSize length of the payload, e.g. the number of characters that were read
+     */
+    public void complete(final Schema schema, final String schemaHash, final Object payload, final long payloadSize) {
+        this.end();
+        if (this.shouldCommit()) {
+            this.measureAndCommit(PayloadStatistics.schemaId(schema), schemaHash, payload, payloadSize);
+        }
+    }
+
+    //------------------------------------- helper methods -------------------------------------//
+
+    private void measureAndCommit(final String schemaId, final String schemaHash, final Object payload, final long payloadSize) {
+        this.schemaId = schemaId;
+        this.schemaHash = schemaHash;
+        final PayloadStatistics statistics = PayloadStatistics.of(payload);
+        this.nodeCount = statistics.getNodeCount();
+        this.payloadSize = payloadSize >= 0 ? payloadSize : statistics.getSize();
+        this.commit();
+    }
+}
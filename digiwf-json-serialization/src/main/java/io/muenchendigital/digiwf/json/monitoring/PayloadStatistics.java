@@ -0,0 +1,76 @@
+package io.muenchendigital.digiwf.json.monitoring;
+
+import lombok.Getter;
+import org.everit.json.schema.Schema;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Number of nodes and length of the json representation of a payload, measured without serializing it.
+ */
+@Getter
+class PayloadStatistics {
+
+    private long nodeCount;
+
+    private long size;
+
+    private PayloadStatistics() {
+    }
+
+    /**
+     * @param payload {@code Map} and {@code List} values or org.json values
+     * @return statistics of the payload
+     */
+    static PayloadStatistics of(final Object payload) {
+        final PayloadStatistics statistics = new PayloadStatistics();
+        statistics.measure(payload);
+        return statistics;
+    }
+
+    /**
+     * @return $id, location or title of the schema
+     */
+    static String schemaId(final Schema schema) {
+        if (schema == null) {
+            return null;
+        }
+        if (schema.getId() != null) {
+            return schema.getId();
+        }
+        return schema.getSchemaLocation() != null ? schema.getSchemaLocation() : schema.getTitle();
+    }
+
+    //------------------------------------- helper methods -------------------------------------//
+
+    private void measure(final Object value) {
+        this.nodeCount++;
+        if (value instanceof JSONObject) {
+            final JSONObject object = (JSONObject) value;
+            this.size += 2 + Math.max(0, object.length() - 1);
+            for (final String key : object.keySet()) {
+                this.size += key.length() + 3;
+                this.measure(object.opt(key));
+            }
+        } else if (value instanceof Map) {
+            final Map<?, ?> map = (Map<?, ?>) value;
+            this.size += 2 + Math.max(0, map.size() - 1);
+            map.forEach((key, item) -> {
+                this.size += String.valueOf(key).length() + 3;
+                this.measure(item);
+            });
+        } else if (value instanceof Collection || value instanceof JSONArray) {
+            final Iterable<?> items = value instanceof JSONArray ? (JSONArray) value : (Collection<?>) value;
+            final int length = value instanceof JSONArray ? ((JSONArray) value).length() : ((Collection<?>) value).size();
+            this.size += 2 + Math.max(0, length - 1);
+            items.forEach(this::measure);
+        } else if (value instanceof String) {
+            this.size += ((String) value).length() + 2;
+        } else {
+            this.size += String.valueOf(value).length();
+        }
+    }
+}
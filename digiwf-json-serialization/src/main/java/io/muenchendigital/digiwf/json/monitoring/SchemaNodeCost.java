@@ -0,0 +1,52 @@
+package io.muenchendigital.digiwf.json.monitoring;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Cost of a schema node in a {@link SchemaProfile}.
+ */
+@Getter
+@ToString
+public class SchemaNodeCost {
+
+    /**
+     * Json pointer of the node in the schema, e.g. {@code #/properties/address}
+     */
+    private final String pointer;
+
+    /**
+     * Keyword or type of the node, e.g. object, string, anyOf or $ref
+     */
+    private final String keyword;
+
+    /**
+     * Number of values the node was applied to
+     */
+    private final long invocations;
+
+    /**
+     * Number of values that were invalid for the node, always 0 for filtering
+     */
+    private final long failures;
+
+    /**
+     * Time of the node including its sub schemas
+     */
+    private final long totalNanos;
+
+    /**
+     * Time of the node without its sub schemas
+     */
+    private final long selfNanos;
+
+    SchemaNodeCost(final String pointer, final String keyword, final long invocations, final long failures,
+                   final long totalNanos, final long selfNanos) {
+        this.pointer = pointer;
+        this.keyword = keyword;
+        this.invocations = invocations;
+        this.failures = failures;
+        this.totalNanos = totalNanos;
+        this.selfNanos = selfNanos;
+    }
+}
@@ -0,0 +1,70 @@
+package io.muenchendigital.digiwf.json.monitoring;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Cost report of a validation or filter call in explain mode.
+ * <p>
+ * The nodes are ranked by their own time (without their sub schemas), so the first nodes are the parts of the
+ * schema that should be simplified first.
+ */
+@Getter
+public class SchemaProfile {
+
+    /**
+     * Costs of the schema nodes, most expensive first
+     */
+    private final List<SchemaNodeCost> nodes;
+
+    /**
+     * Time of the whole call
+     */
+    private final long totalNanos;
+
+    SchemaProfile(final List<SchemaNodeCost> nodes, final long totalNanos) {
+        this.nodes = List.copyOf(nodes);
+        this.totalNanos = totalNanos;
+    }
+
+    /**
+     * @param limit maximum number of nodes
+     * @return most expensive nodes
+     */
+    public List<SchemaNodeCost> getTop(final int limit) {
+        return this.nodes.subList(0, Math.min(limit, this.nodes.size()));
+    }
+
+    /**
+     * @param pointer json pointer of the node in the schema
+     * @return costs of the nodes at the pointer, a pointer can have several nodes (e.g. type and const)
+     */
+    public List<SchemaNodeCost> getNodes(final String pointer) {
+        return this.nodes.stream()
+                .filter(node -> node.getPointer().equals(pointer))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Ranked report with one line per node: own time, share of the total time, total time, invocations,
+     * failures, pointer and keyword.
+     */
+    @Override
+    public String toString() {
+        final StringBuilder report = new StringBuilder(String.format(Locale.ROOT, "total %.3f ms%n", this.totalNanos / 1e6));
+        for (final SchemaNodeCost node : this.nodes) {
+            report.append(String.format(Locale.ROOT, "%10.3f ms %5.1f%% %10.3f ms %8dx %6d failed  %s %s%n",
+                    node.getSelfNanos() / 1e6,
+                    this.totalNanos == 0 ? 0 : 100.0 * node.getSelfNanos() / this.totalNanos,
+                    node.getTotalNanos() / 1e6,
+                    node.getInvocations(),
+                    node.getFailures(),
+                    node.getPointer(),
+                    node.getKeyword()));
+        }
+        return report.toString();
+    }
+}
@@ -0,0 +1,163 @@
+package io.muenchendigital.digiwf.json.monitoring;
+
+import org.everit.json.schema.ArraySchema;
+import org.everit.json.schema.BooleanSchema;
+import org.everit.json.schema.CombinedSchema;
+import org.everit.json.schema.ConditionalSchema;
+import org.everit.json.schema.ConstSchema;
+import org.everit.json.schema.EnumSchema;
+import org.everit.json.schema.FalseSchema;
+import org.everit.json.schema.NotSchema;
+import org.everit.json.schema.NullSchema;
+import org.everit.json.schema.NumberSchema;
+import org.everit.json.schema.ObjectSchema;
+import org.everit.json.schema.ReferenceSchema;
+import org.everit.json.schema.Schema;
+import org.everit.json.schema.StringSchema;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Collects time and invocation counts per schema node for a {@link SchemaProfile}.
+ * <p>
+ * Nodes are identified by their json pointer in the schema and their keyword. Nested measurements are subtracted
+ * from the own time of the enclosing node. Time of a recursive schema is counted for every level of the recursion.
+ * The profiler is thread-safe, a profiler collects the costs of one explained call.
+ */
+public class SchemaProfiler {
+
+    private final Map<String, Node> nodes = new ConcurrentHashMap<>();
+
+    // time of the measured children of the nodes that are measured on the current thread
+    private final ThreadLocal<Deque<long[]>> childNanos = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private final long start = System.nanoTime();
+
+    /**
+     * Measures an operation of a schema node. The time of nested measurements is not counted as own time.
+     *
+     * @param schema    schema node
+     * @param operation operation of the node
+     * @param <T>       result type
+     * @return result of the operation
+     */
+    public <T> T measure(final Schema schema, final Supplier<T> operation) {
+        final Deque<long[]> stack = this.childNanos.get();
+        final long[] children = new long[1];
+        stack.push(children);
+        final long nodeStart = System.nanoTime();
+        try {
+            return operation.get();
+        } finally {
+            final long total = System.nanoTime() - nodeStart;
+            stack.pop();
+            if (!stack.isEmpty()) {
+                stack.peek()[0] += total;
+            }
+            this.record(schema, total, total - children[0], false);
+        }
+    }
+
+    /**
+     * Records a measurement of a schema node.
+     *
+     * @param schema     schema node
+     * @param totalNanos time including the sub schemas
+     * @param selfNanos  time without the sub schemas
+     * @param failed     the value was invalid
+     */
+    public void record(final Schema schema, final long totalNanos, final long selfNanos, final boolean failed) {
+        final String pointer = pointer(schema);
+        final String keyword = keyword(schema);
+        final Node node = this.nodes.computeIfAbsent(pointer + ' ' + keyword, key -> new Node(pointer, keyword));
+        node.invocations.increment();
+        node.totalNanos.add(totalNanos);
+        node.selfNanos.add(Math.max(0, selfNanos));
+        if (failed) {
+            node.failures.increment();
+        }
+    }
+
+    /**
+     * @return ranked costs of all measured nodes
+     */
+    public SchemaProfile getProfile() {
+        return new SchemaProfile(this.nodes.values().stream()
+                .map(Node::toCost)
+                .sorted(Comparator.comparingLong(SchemaNodeCost::getSelfNanos).reversed())
+                .collect(Collectors.toList()),
+                System.nanoTime() - this.start);
+    }
+
+    //------------------------------------- helper methods -------------------------------------//
+
+    private static String pointer(final Schema schema) {
+        return schema.getSchemaLocation() != null ? schema.getSchemaLocation() : "#";
+    }
+
+    private static String keyword(final Schema schema) {
+        if (schema instanceof ObjectSchema) {
+            return "object";
+        }
+        if (schema instanceof ArraySchema) {
+            return "array";
+        }
+        if (schema instanceof StringSchema) {
+            return "string";
+        }
+        if (schema instanceof NumberSchema) {
+            return ((NumberSchema) schema).requiresInteger() ? "integer" : "number";
+        }
+        if (schema instanceof BooleanSchema) {
+            return "boolean";
+        }
+        if (schema instanceof NullSchema) {
+            return "null";
+        }
+        if (schema instanceof EnumSchema) {
+            return "enum";
+        }
+        if (schema instanceof ConstSchema) {
+            return "const";
+        }
+        if (schema instanceof CombinedSchema) {
+            return ((CombinedSchema) schema).getCriterion().toString();
+        }
+        if (schema instanceof ConditionalSchema) {
+            return "if";
+        }
+        if (schema instanceof NotSchema) {
+            return "not";
+        }
+        if (schema instanceof ReferenceSchema) {
+            return "$ref";
+        }
+        return schema instanceof FalseSchema ? "false" : "true";
+    }
+
+    private static class Node {
+        private final String pointer;
+        private final String keyword;
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder selfNanos = new LongAdder();
+
+        private Node(final String pointer, final String keyword) {
+            this.pointer = pointer;
+            this.keyword = keyword;
+        }
+
+        private SchemaNodeCost toCost() {
+            return new SchemaNodeCost(this.pointer, this.keyword, this.invocations.sum(), this.failures.sum(),
+                    this.totalNanos.sum(), this.selfNanos.sum());
+        }
+    }
+}
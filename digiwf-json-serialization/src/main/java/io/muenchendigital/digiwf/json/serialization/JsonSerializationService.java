@@ -1,34 +1,155 @@
 package io.muenchendigital.digiwf.json.serialization;
 
+import io.muenchendigital.digiwf.json.factory.BoundedCache;
+import io.muenchendigital.digiwf.json.factory.JsonLimits;
+import io.muenchendigital.digiwf.json.factory.JsonPathCache;
+import io.muenchendigital.digiwf.json.factory.JsonSchemaFactory;
+import io.muenchendigital.digiwf.json.factory.LimitedReader;
+import io.muenchendigital.digiwf.json.factory.SchemaComplexity;
+import io.muenchendigital.digiwf.json.factory.SchemaFingerprint;
+import io.muenchendigital.digiwf.json.factory.SingleFlight;
+import io.muenchendigital.digiwf.json.migration.MigrationPlan;
+import io.muenchendigital.digiwf.json.monitoring.JsonOperationEvent;
+import io.muenchendigital.digiwf.json.serialization.model.CompiledSchema;
 import io.muenchendigital.digiwf.json.serialization.model.JsonPointer;
+import io.muenchendigital.digiwf.json.serialization.model.SchemaDeduplicationReport;
+import io.muenchendigital.digiwf.json.serialization.model.ValidatedData;
 import io.muenchendigital.digiwf.json.serialization.serializer.JsonSerializer;
-import lombok.RequiredArgsConstructor;
 import org.everit.json.schema.Schema;
+import org.everit.json.schema.loader.SchemaClient;
 import org.everit.json.schema.loader.SchemaLoader;
-import org.everit.json.schema.regexp.RE2JRegexpFactory;
 import org.json.JSONObject;
 
+import java.io.Reader;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Service to handle data serialization and deserialization
+ * <p>
+ * The service is thread-safe. Compiled schemas are immutable and cached in a concurrent map.
+ * Schemas with the same {@link SchemaFingerprint} (e.g. versions of a schema that only differ in formatting
+ * or key order) share one compiled schema.
+ * <p>
+ * Each schema is compiled once (single-flight): concurrent requests for a schema that is not compiled yet wait for
+ * the same compilation instead of compiling the schema again. A failed compilation is not cached.
+ * The compiled schemas and migration plans are held in bounded caches, the least recently used entries are evicted.
+ * <p>
+ * Schemas are analyzed before they are compiled (see {@link JsonSchemaFactory#analyze}), schemas that exceed the
+ * schema budgets of the limits are rejected or logged. The analysis chooses whether large arrays are filtered in parallel.
+ * <p>
+ * Compilations and filter calls emit a {@link JsonOperationEvent} for Java Flight Recorder with the fingerprint of the schema.
  */
-@RequiredArgsConstructor
 public class JsonSerializationService {
 
+    /**
+     * Default number of threads of the compile executor
+     */
+    public static final int DEFAULT_COMPILE_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    /**
+     * Default number of compilations that wait for a thread of the compile executor
+     */
+    public static final int DEFAULT_COMPILE_QUEUE_CAPACITY = 256;
+
+    /**
+     * Maximum number of compiled schemas that are cached, by raw schema and by fingerprint
+     */
+    public static final int MAX_CACHED_SCHEMAS = 1000;
+
+    /**
+     * Maximum number of migration plans that are cached
+     */
+    public static final int MAX_CACHED_MIGRATION_PLANS = 1000;
+
+    /**
+     * Maximum number of schema and sub schema fingerprints that are tracked for the deduplication report
+     */
+    public static final int MAX_TRACKED_SUBSCHEMAS = 100_000;
+
     private final JsonSerializer serializer;
 
+    private final JsonLimits limits;
+
+    private final SchemaClient schemaClient;
+
+    private final Executor compileExecutor;
+
+    private final JsonPathCache jsonPaths = new JsonPathCache();
+
+    // compiled schemas by their raw json representation, incomplete while the schema is compiled
+    private final BoundedCache<String, CompletableFuture<CompiledSchema>> compiledSchemas = new BoundedCache<>(MAX_CACHED_SCHEMAS);
+
+    // compiled schemas by their fingerprint, shared by all raw schemas with the same structure
+    private final BoundedCache<String, CompletableFuture<CompiledSchema>> compiledSchemasByFingerprint = new BoundedCache<>(MAX_CACHED_SCHEMAS);
+
+    // migration plans by the fingerprints of the old and the new schema
+    private final BoundedCache<String, MigrationPlan> migrationPlans = new BoundedCache<>(MAX_CACHED_MIGRATION_PLANS);
+
+    // canonical size of the schemas and sub schemas by their fingerprint
+    private final BoundedCache<String, Long> subschemaSizes = new BoundedCache<>(MAX_TRACKED_SUBSCHEMAS);
+
+    private final LongAdder subschemaCount = new LongAdder();
+
+    private final LongAdder totalBytes = new LongAdder();
+
+    private final LongAdder duplicateBytes = new LongAdder();
+
+    public JsonSerializationService(final JsonSerializer serializer) {
+        this(serializer, JsonLimits.DEFAULT);
+    }
+
+    /**
+     * @param serializer serializer that is used
+     * @param limits     limits that are enforced when json input is read
+     */
+    public JsonSerializationService(final JsonSerializer serializer, final JsonLimits limits) {
+        this(serializer, limits, JsonSchemaFactory.schemaClient());
+    }
+
+    /**
+     * @param serializer   serializer that is used
+     * @param limits       limits that are enforced when json input is read
+     * @param schemaClient client that resolves referenced schemas
+     */
+    public JsonSerializationService(final JsonSerializer serializer, final JsonLimits limits, final SchemaClient schemaClient) {
+        this(serializer, limits, schemaClient, DefaultCompileExecutor.INSTANCE);
+    }
+
+    /**
+     * @param serializer      serializer that is used
+     * @param limits          limits that are enforced when json input is read
+     * @param schemaClient    client that resolves referenced schemas
+     * @param compileExecutor executor that compiles schemas for {@link #compileAsync(String)}
+     */
+    public JsonSerializationService(final JsonSerializer serializer, final JsonLimits limits, final SchemaClient schemaClient,
+                                    final Executor compileExecutor) {
+        this.serializer = serializer;
+        this.limits = limits;
+        this.schemaClient = schemaClient;
+        this.compileExecutor = compileExecutor;
+    }
+
     /**
      * Extract a value from a json object
      *
+     * The schema is compiled once like a raw schema, see {@link #compile(String)}.
+     *
      * @param schema schema
      * @param data   data to extract value from
      * @return filtered object
      */
     public JSONObject filter(final Map<String, Object> schema, final Map<String, Object> data, final boolean filterReadOnly) {
-        final Schema schemaObj = JsonSerializationService.createSchema(new JSONObject(schema));
-        return this.serializer.filter(schemaObj, new JSONObject(data), filterReadOnly);
+        return this.filter(new JSONObject(schema).toString(), data, filterReadOnly);
     }
 
     /**
@@ -39,10 +160,147 @@ public class JsonSerializationService {
      * @return filtered object
      */
     public JSONObject filter(final String schema, final Map<String, Object> data, final boolean filterReadOnly) {
-        final Schema schemaObj = JsonSerializationService.createSchema(new JSONObject(schema));
-        return this.serializer.filter(schemaObj, new JSONObject(data), filterReadOnly);
+        final JsonOperationEvent event = JsonOperationEvent.start(JsonOperationEvent.SERVICE, "filter");
+        final CompiledSchema compiledSchema = this.compile(schema);
+        try {
+            return this.serializer.filter(compiledSchema.getSchema(), new JSONObject(data), filterReadOnly, false,
+                    compiledSchema.getComplexity().getFilterStrategy());
+        } catch (final RuntimeException e) {
+            event.fail(e);
+            throw e;
+        } finally {
+            event.complete(compiledSchema.getSchema(), compiledSchema.getFingerprint(), data);
+        }
+    }
+
+    /**
+     * Filter data and readOnly values.
+     * If evaluateConditions is set, only the properties of the active if/then/else branches are kept.
+     *
+     * @param schema             schema
+     * @param data               data that is filtered
+     * @param filterReadOnly     filter readOnly values
+     * @param evaluateConditions evaluate if/then/else schemas against the data
+     * @return filtered object
+     */
+    public JSONObject filter(final String schema, final Map<String, Object> data, final boolean filterReadOnly, final boolean evaluateConditions) {
+        final JsonOperationEvent event = JsonOperationEvent.start(JsonOperationEvent.SERVICE, "filter");
+        final CompiledSchema compiledSchema = this.compile(schema);
+        try {
+            return this.serializer.filter(compiledSchema.getSchema(), new JSONObject(data), filterReadOnly, evaluateConditions,
+                    compiledSchema.getComplexity().getFilterStrategy());
+        } catch (final RuntimeException e) {
+            event.fail(e);
+            throw e;
+        } finally {
+            event.complete(compiledSchema.getSchema(), compiledSchema.getFingerprint(), data);
+        }
+    }
+
+
+    /**
+     * Validate data against the schema and filter it. The schema is compiled and the data is converted only once.
+     *
+     * @param schema         schema
+     * @param data           data that is validated and filtered
+     * @param filterReadOnly filter readOnly values
+     * @return filtered data and violations
+     */
+    public ValidatedData validateAndFilter(final String schema, final Map<String, Object> data, final boolean filterReadOnly) {
+        return this.validateAndFilter(schema, data, filterReadOnly, false);
+    }
+
+    /**
+     * Validate data against the schema and filter it. The schema is compiled and the data is converted only once.
+     * If evaluateConditions is set, only the properties of the active if/then/else branches are kept and
+     * the conditions that were evaluated by the validation are not evaluated again.
+     *
+     * @param schema             schema
+     * @param data               data that is validated and filtered
+     * @param filterReadOnly     filter readOnly values
+     * @param evaluateConditions evaluate if/then/else schemas against the data
+     * @return filtered data and violations
+     */
+    public ValidatedData validateAndFilter(final String schema, final Map<String, Object> data, final boolean filterReadOnly, final boolean evaluateConditions) {
+        final JsonOperationEvent event = JsonOperationEvent.start(JsonOperationEvent.SERVICE, "validateAndFilter");
+        final CompiledSchema compiledSchema = this.compile(schema);
+        try {
+            return this.serializer.validateAndFilter(compiledSchema.getSchema(), new JSONObject(data), filterReadOnly, evaluateConditions);
+        } catch (final RuntimeException e) {
+            event.fail(e);
+            throw e;
+        } finally {
+            event.complete(compiledSchema.getSchema(), compiledSchema.getFingerprint(), data);
+        }
+    }
+
+    /**
+     * Filter data and readOnly values and merge the filtered data into the previous data.
+     * The result is the same as merge(filter(schema, data, filterReadOnly), new JSONObject(previousData)),
+     * neither the data nor the previous data is modified.
+     *
+     * @param schema         schema
+     * @param data           data that is filtered
+     * @param previousData   data the filtered data is merged into
+     * @param filterReadOnly filter readOnly values
+     * @return merged data
+     */
+    public Map<String, Object> filterAndMerge(final String schema, final Map<String, Object> data, final Map<String, Object> previousData, final boolean filterReadOnly) {
+        return this.filterAndMerge(schema, data, previousData, filterReadOnly, false);
+    }
+
+    /**
+     * Filter data and readOnly values and merge the filtered data into the previous data.
+     * The data is filtered with the same options and execution strategy as by filter(schema, data, filterReadOnly, evaluateConditions).
+     *
+     * @param schema             schema
+     * @param data               data that is filtered
+     * @param previousData       data the filtered data is merged into
+     * @param filterReadOnly     filter readOnly values
+     * @param evaluateConditions evaluate if/then/else schemas against the data
+     * @return merged data
+     */
+    public Map<String, Object> filterAndMerge(final String schema, final Map<String, Object> data, final Map<String, Object> previousData,
+                                              final boolean filterReadOnly, final boolean evaluateConditions) {
+        final JsonOperationEvent event = JsonOperationEvent.start(JsonOperationEvent.SERVICE, "filterAndMerge");
+        final CompiledSchema compiledSchema = this.compile(schema);
+        try {
+            return this.serializer.filterAndMerge(compiledSchema.getSchema(), new JSONObject(data), new JSONObject(previousData),
+                    filterReadOnly, evaluateConditions, compiledSchema.getComplexity().getFilterStrategy());
+        } catch (final RuntimeException e) {
+            event.fail(e);
+            throw e;
+        } finally {
+            event.complete(compiledSchema.getSchema(), compiledSchema.getFingerprint(), data);
+        }
     }
 
+    /**
+     * Read json and filter it while reading. Values that are not in the schema are skipped without being parsed.
+     * The result is the same as filter(schema, data, filterReadOnly).toMap().
+     * The configured limits are enforced while reading, a JsonLimitExceededException is thrown if they are exceeded.
+     *
+     * @param schema         schema
+     * @param json           json data that is filtered
+     * @param filterReadOnly filter readOnly values
+     * @return filtered data
+     */
+    public Map<String, Object> filter(final String schema, final Reader json, final boolean filterReadOnly) {
+        final JsonOperationEvent event = JsonOperationEvent.start(JsonOperationEvent.SERVICE, "filterStream");
+        final LimitedReader limitedJson = new LimitedReader(json, this.limits.getMaxTotalChars());
+        final CompiledSchema compiledSchema = this.compile(schema);
+        Map<String, Object> result = null;
+        try {
+            result = compiledSchema.getGson(filterReadOnly).fromJson(limitedJson, JsonSchemaFactory.mapType());
+            return result;
+        } catch (final RuntimeException e) {
+            event.fail(e);
+            throw e;
+        } finally {
+            // the nodes of the filtered result are counted, the size is the length of the read json
+            event.complete(compiledSchema.getSchema(), compiledSchema.getFingerprint(), result, limitedJson.getCount());
+        }
+    }
 
     /**
      * Merge two JSON Objects.
@@ -52,7 +310,35 @@ public class JsonSerializationService {
      * @return merged data
      */
     public Map<String, Object> merge(final JSONObject source, final JSONObject target) {
-        return this.serializer.merge(source, target);
+        final JsonOperationEvent event = JsonOperationEvent.start(JsonOperationEvent.SERVICE, "merge");
+        try {
+            return this.serializer.merge(source, target);
+        } catch (final RuntimeException e) {
+            event.fail(e);
+            throw e;
+        } finally {
+            event.complete(null, null, source);
+        }
+    }
+
+    /**
+     * Merge two JSON Objects without modifying the source or the target.
+     * Use this method if the target (e.g. the previous data) is shared between threads.
+     *
+     * @param source
+     * @param target
+     * @return merged data
+     */
+    public Map<String, Object> mergeCopy(final JSONObject source, final JSONObject target) {
+        final JsonOperationEvent event = JsonOperationEvent.start(JsonOperationEvent.SERVICE, "mergeCopy");
+        try {
+            return this.serializer.mergeCopy(source, target);
+        } catch (final RuntimeException e) {
+            event.fail(e);
+            throw e;
+        } finally {
+            event.complete(null, null, source);
+        }
     }
 
     /**
@@ -66,6 +352,18 @@ public class JsonSerializationService {
         return this.serializer.extractValue(new JSONObject(data), new JsonPointer(jsonPointer));
     }
 
+    /**
+     * Extract values from data with a json path, e.g. {@code $.items[*].name}, {@code $.items[?(@.amount > 10)]}
+     * or {@code $.items[0:2]}. Compiled paths are cached, the path is evaluated directly on the data.
+     *
+     * @param data     data to extract values from
+     * @param jsonPath json path
+     * @return value of a definite path (null if it is missing) or list of the values of an indefinite path
+     */
+    public Object extractValues(final Map<String, Object> data, final String jsonPath) {
+        return this.serializer.extractValues(data, this.jsonPaths.get(jsonPath));
+    }
+
     /**
      * Generates a json object with value for a given pointer
      *
@@ -80,14 +378,104 @@ public class JsonSerializationService {
 
     /**
      * Initialize the give schema with default values.
+     * The nested structure of the schema is generated once per schema and copied for every call.
      *
      * @param schema that should be initialized
      * @return data
      */
     public JSONObject initialize(final String schema) {
-        final Schema schemaObj = JsonSerializationService.createSchema(new JSONObject(schema));
-        final Set<String> rootKeys = this.serializer.extractRootKeys(schemaObj);
-        return this.serializer.generateObject(rootKeys);
+        return this.compile(schema).newInstance();
+    }
+
+    /**
+     * Compile the given schema or return the already compiled schema from the cache.
+     * The root keys and the initialization skeleton are computed once per schema.
+     *
+     * @param schema raw json schema
+     * @return compiled schema
+     */
+    public CompiledSchema compile(final String schema) {
+        return SingleFlight.getOrCompute(this.compiledSchemas, schema, () -> this.compileSchema(schema));
+    }
+
+    /**
+     * Compile the given schema on the compile executor or return the already compiled schema from the cache.
+     * Request threads are not blocked by the compilation. If a compilation of the schema is already running,
+     * the returned future completes with its result.
+     * If the queue of the compile executor is full, the future fails with a RejectedExecutionException.
+     *
+     * @param schema raw json schema
+     * @return future of the compiled schema
+     */
+    public CompletableFuture<CompiledSchema> compileAsync(final String schema) {
+        final CompletableFuture<CompiledSchema> existing = this.compiledSchemas.get(schema);
+        if (existing != null) {
+            return existing.copy();
+        }
+        final CompletableFuture<CompiledSchema> future = new CompletableFuture<>();
+        final CompletableFuture<CompiledSchema> running = this.compiledSchemas.putIfAbsent(schema, future);
+        if (running != null) {
+            return running.copy();
+        }
+        try {
+            this.compileExecutor.execute(() -> SingleFlight.complete(this.compiledSchemas, schema, future, () -> this.compileSchema(schema)));
+        } catch (final RejectedExecutionException e) {
+            this.compiledSchemas.remove(schema, future);
+            future.completeExceptionally(e);
+        }
+        // callers cannot complete the cached future
+        return future.copy();
+    }
+
+    /**
+     * Creates a bounded executor for schema compilations with daemon threads.
+     * Compilations that do not fit into the queue are rejected.
+     *
+     * @param threads       maximum number of threads
+     * @param queueCapacity maximum number of compilations that wait for a thread
+     * @return executor
+     */
+    public static ExecutorService newCompileExecutor(final int threads, final int queueCapacity) {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), runnable -> {
+            final Thread thread = new Thread(runnable, "json-schema-compiler-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Returns the plan that migrates data from one schema version to another.
+     * The plan is computed once per pair of schemas and can be applied to any number of documents.
+     *
+     * @param fromSchema raw json schema of the data
+     * @param toSchema   raw json schema the data is migrated to
+     * @return migration plan
+     */
+    public MigrationPlan getMigrationPlan(final String fromSchema, final String toSchema) {
+        final CompiledSchema from = this.compile(fromSchema);
+        final CompiledSchema to = this.compile(toSchema);
+        return this.migrationPlans.get(from.getFingerprint() + ":" + to.getFingerprint(),
+                key -> MigrationPlan.between(from.getSchema(), to.getSchema()));
+    }
+
+    /**
+     * Returns statistics about the compiled schemas and how many of their sub schemas are shared.
+     * The distinct counts are the sizes of the bounded caches, schemas that were evicted are counted again when they are compiled again.
+     *
+     * @return deduplication report
+     */
+    public SchemaDeduplicationReport getDeduplicationReport() {
+        return new SchemaDeduplicationReport(
+                this.compiledSchemas.size(),
+                this.compiledSchemasByFingerprint.size(),
+                this.subschemaCount.sum(),
+                this.subschemaSizes.size(),
+                this.totalBytes.sum(),
+                this.duplicateBytes.sum());
     }
 
     /**
@@ -98,12 +486,21 @@ public class JsonSerializationService {
      * @return deserialized data
      */
     public Map<String, Object> deserializeData(final String schema, final Map<String, Object> data) {
-        final Schema schemaObject = JsonSerializationService.createSchema(new JSONObject(schema));
-        return this.serializer.deserialize(schemaObject, data);
+        final JsonOperationEvent event = JsonOperationEvent.start(JsonOperationEvent.SERVICE, "deserialize");
+        final CompiledSchema compiledSchema = this.compile(schema);
+        try {
+            return this.serializer.deserialize(compiledSchema.getSchema(), data);
+        } catch (final RuntimeException e) {
+            event.fail(e);
+            throw e;
+        } finally {
+            event.complete(compiledSchema.getSchema(), compiledSchema.getFingerprint(), data);
+        }
     }
 
     /**
-     * Create and load schema for json schema version draft 7
+     * Create and load schema for json schema version draft 7.
+     * The schema is loaded on every call, use {@link #compile(String)} to load a schema once.
      *
      * @param schema
      * @return
@@ -111,7 +508,7 @@ public class JsonSerializationService {
     public static Schema createSchema(final JSONObject schema) {
         return SchemaLoader.builder().schemaJson(schema)
                 .draftV7Support()
-                .regexpFactory(new RE2JRegexpFactory())
+                .regexpFactory(JsonSchemaFactory.regexpFactory())
                 .build()
                 .load()
                 .build();
@@ -127,4 +524,49 @@ public class JsonSerializationService {
         return createSchema(new JSONObject(schema));
     }
 
+    //------------------------------------- helper methods -------------------------------------//
+
+    private CompiledSchema compileSchema(final String schema) {
+        final JSONObject schemaJson = new JSONObject(schema);
+        final SchemaFingerprint fingerprint = SchemaFingerprint.of(schemaJson);
+        this.totalBytes.add(fingerprint.getSize());
+        this.registerSubschemas(fingerprint);
+        return SingleFlight.getOrCompute(this.compiledSchemasByFingerprint, fingerprint.getValue(),
+                () -> this.compileFingerprintedSchema(schemaJson, fingerprint.getValue()));
+    }
+
+    // only called by compileSchema(String) through the single-flight cache, once per fingerprint
+    private CompiledSchema compileFingerprintedSchema(final JSONObject schema, final String fingerprint) {
+        final JsonOperationEvent event = JsonOperationEvent.start(JsonOperationEvent.SERVICE, "compile");
+        Schema schemaObj = null;
+        try {
+            final SchemaComplexity complexity = JsonSchemaFactory.analyze(schema, this.limits);
+            schemaObj = JsonSchemaFactory.createSchema(schema, this.schemaClient);
+            final Set<String> rootKeys = this.serializer.extractRootKeys(schemaObj);
+            return new CompiledSchema(schemaObj, fingerprint, complexity, rootKeys, this.serializer.generateSkeleton(schemaObj), this.limits);
+        } catch (final RuntimeException e) {
+            event.fail(e);
+            throw e;
+        } finally {
+            event.complete(schemaObj, fingerprint, schema);
+        }
+    }
+
+    // the sub schemas of an already known schema are known as well and are not counted again
+    private void registerSubschemas(final SchemaFingerprint fingerprint) {
+        this.subschemaCount.increment();
+        if (this.subschemaSizes.putIfAbsent(fingerprint.getValue(), fingerprint.getSize()) != null) {
+            this.duplicateBytes.add(fingerprint.getSize());
+            return;
+        }
+        fingerprint.getSubschemas().forEach(this::registerSubschemas);
+    }
+
+    /**
+     * Executor that is shared by all services without an explicit compile executor, created on first use
+     */
+    private static class DefaultCompileExecutor {
+        private static final ExecutorService INSTANCE = newCompileExecutor(DEFAULT_COMPILE_THREADS, DEFAULT_COMPILE_QUEUE_CAPACITY);
+    }
+
 }
@@ -0,0 +1,116 @@
+package io.muenchendigital.digiwf.json.serialization.model;
+
+import com.google.gson.Gson;
+import io.muenchendigital.digiwf.json.factory.JsonLimits;
+import io.muenchendigital.digiwf.json.factory.JsonSchemaFactory;
+import io.muenchendigital.digiwf.json.factory.SchemaComplexity;
+import io.muenchendigital.digiwf.json.factory.SchemaFingerprint;
+import lombok.Getter;
+import org.everit.json.schema.Schema;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.Set;
+
+/**
+ * A loaded json schema together with the artifacts that are derived from it once.
+ * <p>
+ * Instances are immutable and can be shared between threads. The initialization template is never handed out
+ * directly, every call to {@link #newInstance()} returns a fresh copy.
+ */
+public class CompiledSchema {
+
+    @Getter
+    private final Schema schema;
+
+    /**
+     * Structural hash of the schema, see {@link SchemaFingerprint}
+     */
+    @Getter
+    private final String fingerprint;
+
+    /**
+     * Immutable set of all root keys of the schema
+     */
+    @Getter
+    private final Set<String> rootKeys;
+
+    /**
+     * Static analysis of the raw schema, chooses the execution strategy of filter calls
+     */
+    @Getter
+    private final SchemaComplexity complexity;
+
+    private final JSONObject template;
+
+    private final Gson gson;
+
+    private final Gson gsonFilterReadOnly;
+
+    /**
+     * @param schema      loaded schema
+     * @param fingerprint structural hash of the raw schema
+     * @param complexity  static analysis of the raw schema
+     * @param rootKeys    root keys of the schema
+     * @param template    initialization template, copied
+     * @param limits      limits of the Gson instances that read json into filtered data
+     */
+    public CompiledSchema(final Schema schema, final String fingerprint, final SchemaComplexity complexity, final Set<String> rootKeys,
+                          final JSONObject template, final JsonLimits limits) {
+        this.schema = schema;
+        this.fingerprint = fingerprint;
+        this.complexity = complexity;
+        this.rootKeys = Set.copyOf(rootKeys);
+        this.template = copy(template);
+        this.gson = JsonSchemaFactory.gson(schema, false, limits);
+        this.gsonFilterReadOnly = JsonSchemaFactory.gson(schema, true, limits);
+    }
+
+    /**
+     * Creates a new initialized data object from the cached template.
+     *
+     * @return copy of the template
+     */
+    public JSONObject newInstance() {
+        return copy(this.template);
+    }
+
+    /**
+     * Returns a Gson instance that reads json directly into filtered data.
+     *
+     * @param filterReadOnly filter readOnly values
+     * @return gson instance
+     */
+    public Gson getGson(final boolean filterReadOnly) {
+        return filterReadOnly ? this.gsonFilterReadOnly : this.gson;
+    }
+
+    //------------------------------------- helper methods -------------------------------------//
+
+    private static JSONObject copy(final JSONObject source) {
+        final JSONObject copy = new JSONObject();
+        for (final String key : source.keySet()) {
+            copy.put(key, copyValue(source.get(key)));
+        }
+        return copy;
+    }
+
+    private static JSONArray copy(final JSONArray source) {
+        final JSONArray copy = new JSONArray();
+        for (final Object item : source) {
+            copy.put(copyValue(item));
+        }
+        return copy;
+    }
+
+    private static Object copyValue(final Object value) {
+        if (value instanceof JSONObject) {
+            return copy((JSONObject) value);
+        }
+        if (value instanceof JSONArray) {
+            return copy((JSONArray) value);
+        }
+        // all other values (strings, numbers, booleans, JSONObject.NULL) are immutable
+        return value;
+    }
+}
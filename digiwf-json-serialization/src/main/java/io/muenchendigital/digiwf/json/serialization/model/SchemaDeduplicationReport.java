@@ -0,0 +1,56 @@
+package io.muenchendigital.digiwf.json.serialization.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Statistics about the schemas compiled by a JsonSerializationService.
+ * <p>
+ * Schemas with the same fingerprint share one compiled schema. The sub schema statistics show how much of the
+ * compiled schemas consists of sub schemas that also occur in other schemas (or elsewhere in the same schema).
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class SchemaDeduplicationReport {
+
+    /**
+     * Number of raw schemas that were compiled
+     */
+    private final long schemas;
+
+    /**
+     * Number of distinct compiled schemas (by fingerprint)
+     */
+    private final long distinctSchemas;
+
+    /**
+     * Number of schemas and sub schemas that were fingerprinted, the sub schemas of duplicates are not counted
+     */
+    private final long subschemas;
+
+    /**
+     * Number of distinct schemas and sub schemas (by fingerprint)
+     */
+    private final long distinctSubschemas;
+
+    /**
+     * Canonical json length of all fingerprinted schemas
+     */
+    private final long totalBytes;
+
+    /**
+     * Canonical json length of the schemas and sub schemas that were already known
+     */
+    private final long duplicateBytes;
+
+    /**
+     * Share of duplicate bytes in the total bytes
+     *
+     * @return ratio between 0 and 1
+     */
+    public double getDuplicateRatio() {
+        return this.totalBytes == 0 ? 0 : (double) this.duplicateBytes / this.totalBytes;
+    }
+}
@@ -0,0 +1,64 @@
+package io.muenchendigital.digiwf.json.serialization.model;
+
+import lombok.Getter;
+import lombok.ToString;
+import org.everit.json.schema.ValidationException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Result of a combined validation and filtering of data.
+ */
+@Getter
+@ToString
+public class ValidatedData {
+
+    /**
+     * Filtered data
+     */
+    private final JSONObject data;
+
+    /**
+     * Single violations of the data, empty if the data is valid
+     */
+    private final List<ValidationException> violations;
+
+    /**
+     * @param data    filtered data
+     * @param failure exception thrown by the validation, null if the data is valid
+     */
+    public ValidatedData(final JSONObject data, final ValidationException failure) {
+        this.data = data;
+        this.violations = failure == null ? List.of() : Collections.unmodifiableList(flatten(failure, new ArrayList<>()));
+    }
+
+    public boolean isValid() {
+        return this.violations.isEmpty();
+    }
+
+    /**
+     * Messages of all violations, the same as ValidationException.getAllMessages() of a validation.
+     *
+     * @return messages
+     */
+    public List<String> getMessages() {
+        return this.violations.stream()
+                .map(ValidationException::getMessage)
+                .collect(Collectors.toList());
+    }
+
+    //------------------------------------- helper methods -------------------------------------//
+
+    private static List<ValidationException> flatten(final ValidationException failure, final List<ValidationException> violations) {
+        if (failure.getCausingExceptions().isEmpty()) {
+            violations.add(failure);
+        } else {
+            failure.getCausingExceptions().forEach(cause -> flatten(cause, violations));
+        }
+        return violations;
+    }
+}
@@ -0,0 +1,180 @@
+package io.muenchendigital.digiwf.json.serialization.serializer;
+
+import io.muenchendigital.digiwf.json.factory.JsonLimitExceededException;
+import io.muenchendigital.digiwf.json.monitoring.SchemaProfiler;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.everit.json.schema.ObjectSchema;
+import org.everit.json.schema.Schema;
+import org.everit.json.schema.ValidationException;
+import org.everit.json.schema.Validator;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * State of a single filter call.
+ * <p>
+ * Holds the filter options and memoizes the results of if conditions, so conditions that are shared
+ * between several sub schemas are evaluated only once per call. In explain mode the context holds the
+ * {@link SchemaProfiler} that measures the schema nodes.
+ */
+class FilterContext {
+
+    private static final Validator CONDITION_VALIDATOR = Validator.builder().failEarly().build();
+
+    @Getter
+    private final boolean filterReadOnly;
+
+    @Getter
+    private final boolean evaluateConditions;
+
+    private final int maxDepth;
+
+    // depth of the data that is currently filtered
+    private final int depth;
+
+    // shared by all nested contexts of a call
+    private final Map<ConditionKey, Boolean> conditionResults;
+
+    // items of large arrays may be filtered in parallel
+    @Getter
+    private final boolean parallel;
+
+    // null if the call is not explained
+    @Getter
+    private final SchemaProfiler profiler;
+
+    FilterContext(final boolean filterReadOnly, final boolean evaluateConditions, final int maxDepth) {
+        this(filterReadOnly, evaluateConditions, maxDepth, true);
+    }
+
+    FilterContext(final boolean filterReadOnly, final boolean evaluateConditions, final int maxDepth, final boolean parallel) {
+        this(filterReadOnly, evaluateConditions, maxDepth, 1, new ConcurrentHashMap<>(), parallel, null);
+    }
+
+    // explained calls are measured on one thread
+    FilterContext(final boolean filterReadOnly, final boolean evaluateConditions, final int maxDepth, final SchemaProfiler profiler) {
+        this(filterReadOnly, evaluateConditions, maxDepth, 1, new ConcurrentHashMap<>(), false, profiler);
+    }
+
+    private FilterContext(final boolean filterReadOnly, final boolean evaluateConditions, final int maxDepth, final int depth,
+                          final Map<ConditionKey, Boolean> conditionResults, final boolean parallel, final SchemaProfiler profiler) {
+        this.filterReadOnly = filterReadOnly;
+        this.evaluateConditions = evaluateConditions;
+        this.maxDepth = maxDepth;
+        this.depth = depth;
+        this.conditionResults = conditionResults;
+        this.parallel = parallel;
+        this.profiler = profiler;
+    }
+
+    /**
+     * Returns the context for a nested object or array item.
+     *
+     * @return nested context
+     * @throws JsonLimitExceededException if the maximum depth is exceeded
+     */
+    FilterContext enter() {
+        if (this.depth >= this.maxDepth) {
+            throw new JsonLimitExceededException("data exceeds the maximum depth of " + this.maxDepth);
+        }
+        return new FilterContext(this.filterReadOnly, this.evaluateConditions, this.maxDepth, this.depth + 1, this.conditionResults,
+                this.parallel, this.profiler);
+    }
+
+    /**
+     * Evaluates the if schema of a conditional schema against the data.
+     *
+     * @param ifSchema if schema of the conditional schema
+     * @param data     data the condition is evaluated against
+     * @return true if the data matches the condition
+     */
+    boolean matches(final Schema ifSchema, final JSONObject data) {
+        final ConditionKey key = new ConditionKey(ifSchema, this.getReferencedValues(ifSchema, data));
+        return this.conditionResults.computeIfAbsent(key, k -> this.evaluate(ifSchema, data));
+    }
+
+    /**
+     * Records the result of a condition that was already evaluated, e.g. while the data was validated.
+     *
+     * @param ifSchema if schema of the conditional schema
+     * @param data     data the condition was evaluated against
+     * @param matches  true if the data matched the condition
+     */
+    void record(final Schema ifSchema, final JSONObject data, final boolean matches) {
+        this.conditionResults.putIfAbsent(new ConditionKey(ifSchema, this.getReferencedValues(ifSchema, data)), matches);
+    }
+
+    //------------------------------------- helper methods -------------------------------------//
+
+    private boolean evaluate(final Schema ifSchema, final JSONObject data) {
+        if (this.profiler != null) {
+            return this.profiler.measure(ifSchema, () -> validate(ifSchema, data));
+        }
+        return validate(ifSchema, data);
+    }
+
+    private static boolean validate(final Schema ifSchema, final JSONObject data) {
+        try {
+            CONDITION_VALIDATOR.performValidation(ifSchema, data);
+            return true;
+        } catch (final ValidationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the values the condition depends on. If the condition only checks properties of the data
+     * the values of these properties are used, otherwise the data object itself (compared by identity).
+     */
+    private Object getReferencedValues(final Schema ifSchema, final JSONObject data) {
+        if (!this.dependsOnPropertiesOnly(ifSchema)) {
+            return data;
+        }
+        final ObjectSchema objectSchema = (ObjectSchema) ifSchema;
+        final List<Object> values = new ArrayList<>(objectSchema.getPropertySchemas().size() + objectSchema.getRequiredProperties().size());
+        objectSchema.getPropertySchemas().keySet().forEach(key -> values.add(data.opt(key)));
+        objectSchema.getRequiredProperties().forEach(key -> values.add(data.has(key)));
+        return values;
+    }
+
+    private boolean dependsOnPropertiesOnly(final Schema schema) {
+        if (!(schema instanceof ObjectSchema)) {
+            return false;
+        }
+        final ObjectSchema objectSchema = (ObjectSchema) schema;
+        return objectSchema.getPatternProperties().isEmpty()
+                && objectSchema.getPropertyDependencies().isEmpty()
+                && objectSchema.getSchemaDependencies().isEmpty()
+                && objectSchema.permitsAdditionalProperties()
+                && objectSchema.getSchemaOfAdditionalProperties() == null
+                && objectSchema.getPropertyNameSchema() == null
+                && objectSchema.getMinProperties() == null
+                && objectSchema.getMaxProperties() == null;
+    }
+
+    /**
+     * The if schema is compared by identity, Schema.equals and Schema.hashCode are structural and deep.
+     */
+    @RequiredArgsConstructor
+    private static class ConditionKey {
+        private final Schema schema;
+        private final Object values;
+
+        @Override
+        public boolean equals(final Object other) {
+            return other instanceof ConditionKey && ((ConditionKey) other).schema == this.schema
+                    && Objects.equals(((ConditionKey) other).values, this.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(this.schema) + Objects.hashCode(this.values);
+        }
+    }
+}
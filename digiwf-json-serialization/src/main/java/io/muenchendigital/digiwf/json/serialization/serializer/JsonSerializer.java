@@ -1,7 +1,15 @@
 package io.muenchendigital.digiwf.json.serialization.serializer;
 
+import com.jayway.jsonpath.JsonPath;
+import io.muenchendigital.digiwf.json.factory.ExecutionStrategy;
+import io.muenchendigital.digiwf.json.factory.JsonSchemaFactory;
+import io.muenchendigital.digiwf.json.factory.SchemaComplexity;
 import io.muenchendigital.digiwf.json.serialization.model.JsonPointer;
+import io.muenchendigital.digiwf.json.serialization.model.ValidatedData;
+import io.muenchendigital.digiwf.json.serialization.serializer.tree.OrgJsonTree;
 import org.everit.json.schema.Schema;
+import org.everit.json.schema.ValidationException;
+import org.json.JSONArray;
 import org.json.JSONObject;
 
 import java.util.Map;
@@ -9,6 +17,8 @@ import java.util.Set;
 
 /**
  * JsonSchemaBaseSerializer is an interface which is used in the JsonSchemaSerializationService to serialize and deserialize data based on a json schema.
+ * <p>
+ * Implementations are shared between threads (e.g. as a singleton bean) and have to be thread-safe.
  */
 public interface JsonSerializer {
 
@@ -31,6 +41,60 @@ public interface JsonSerializer {
      */
     JSONObject filter(final Schema schema, final JSONObject data, boolean filterReadOnly);
 
+    /**
+     * Filter data and readOnly values. Optionally evaluates if/then/else schemas and keeps only the active branch.
+     * By default data is filtered by filter(schema, data, filterReadOnly) if no conditions are evaluated,
+     * otherwise by a {@link JsonTreeSerializer} on the org.json tree.
+     *
+     * @param schema             Json Schema structure
+     * @param data               data that is filtered
+     * @param filterReadOnly     filter readOnly values
+     * @param evaluateConditions evaluate if/then/else schemas against the data
+     * @return filtered values
+     */
+    default JSONObject filter(final Schema schema, final JSONObject data, final boolean filterReadOnly, final boolean evaluateConditions) {
+        if (!evaluateConditions) {
+            return this.filter(schema, data, filterReadOnly);
+        }
+        final FilterContext context = new FilterContext(filterReadOnly, true, Integer.MAX_VALUE);
+        return (JSONObject) new JsonTreeSerializer<>(new OrgJsonTree()).filter(schema, data, context);
+    }
+
+    /**
+     * Filter data and readOnly values with the given execution strategy.
+     * Serializers that do not support execution strategies filter the data as by filter(schema, data, filterReadOnly, evaluateConditions).
+     *
+     * @param schema             Json Schema structure
+     * @param data               data that is filtered
+     * @param filterReadOnly     filter readOnly values
+     * @param evaluateConditions evaluate if/then/else schemas against the data
+     * @param strategy           execution strategy, e.g. chosen by the {@link SchemaComplexity} of the schema
+     * @return filtered values
+     */
+    default JSONObject filter(final Schema schema, final JSONObject data, final boolean filterReadOnly, final boolean evaluateConditions,
+                              final ExecutionStrategy strategy) {
+        return this.filter(schema, data, filterReadOnly, evaluateConditions);
+    }
+
+    /**
+     * Validate data against the schema and filter it. The data is filtered even if it is invalid.
+     *
+     * @param schema             Json Schema structure
+     * @param data               data that is validated and filtered
+     * @param filterReadOnly     filter readOnly values
+     * @param evaluateConditions evaluate if/then/else schemas against the data
+     * @return filtered data and violations
+     */
+    default ValidatedData validateAndFilter(final Schema schema, final JSONObject data, final boolean filterReadOnly, final boolean evaluateConditions) {
+        ValidationException failure = null;
+        try {
+            schema.validate(data);
+        } catch (final ValidationException e) {
+            failure = e;
+        }
+        return new ValidatedData(this.filter(schema, data, filterReadOnly, evaluateConditions), failure);
+    }
+
     /**
      * Merge two JSON Objects.
      *
@@ -40,6 +104,53 @@ public interface JsonSerializer {
      */
     Map<String, Object> merge(final JSONObject source, JSONObject target);
 
+    /**
+     * Merge two JSON Objects without modifying the source or the target.
+     * By default both objects are copied and the copies are merged.
+     *
+     * @param source
+     * @param target
+     * @return merged data
+     */
+    default Map<String, Object> mergeCopy(final JSONObject source, final JSONObject target) {
+        return this.merge((JSONObject) deepCopy(source), (JSONObject) deepCopy(target));
+    }
+
+    /**
+     * Filter data and readOnly values and merge the filtered data into the previous data in one traversal.
+     * The result is the same as merge(filter(schema, data, filterReadOnly), previousData),
+     * but neither the data nor the previous data is modified.
+     *
+     * @param schema         Json Schema structure
+     * @param data           data that is filtered
+     * @param previousData   data the filtered data is merged into
+     * @param filterReadOnly filter readOnly values
+     * @return merged data
+     */
+    default Map<String, Object> filterAndMerge(final Schema schema, final JSONObject data, final JSONObject previousData, final boolean filterReadOnly) {
+        return this.filterAndMerge(schema, data, previousData, filterReadOnly, false, ExecutionStrategy.PARALLEL);
+    }
+
+    /**
+     * Filter data with the given options and merge the filtered data into the previous data.
+     * The result is the same as merge(filter(schema, data, filterReadOnly, evaluateConditions, strategy), previousData),
+     * but neither the data nor the previous data is modified. By default the data is filtered and merged in one traversal
+     * with a {@link JsonTreeSerializer} on the org.json tree.
+     *
+     * @param schema             Json Schema structure
+     * @param data               data that is filtered
+     * @param previousData       data the filtered data is merged into
+     * @param filterReadOnly     filter readOnly values
+     * @param evaluateConditions evaluate if/then/else schemas against the data
+     * @param strategy           execution strategy, e.g. chosen by the {@link SchemaComplexity} of the schema
+     * @return merged data
+     */
+    default Map<String, Object> filterAndMerge(final Schema schema, final JSONObject data, final JSONObject previousData, final boolean filterReadOnly,
+                                               final boolean evaluateConditions, final ExecutionStrategy strategy) {
+        final FilterContext context = new FilterContext(filterReadOnly, evaluateConditions, Integer.MAX_VALUE, strategy != ExecutionStrategy.SEQUENTIAL);
+        return ((JSONObject) new JsonTreeSerializer<>(new OrgJsonTree()).filterAndMerge(schema, data, previousData, context)).toMap();
+    }
+
     /**
      * Returns all root keys that are in the json schema.
      *
@@ -57,6 +168,17 @@ public interface JsonSerializer {
      */
     Object extractValue(final JSONObject data, final JsonPointer jsonPointer);
 
+    /**
+     * Extract values from data with a json path. The path is evaluated directly on the maps and lists of the data.
+     *
+     * @param data     data to extract values from
+     * @param jsonPath compiled json path, e.g. {@code $.items[?(@.amount > 10)].name}
+     * @return value of a definite path (null if it is missing) or list of the values of an indefinite path
+     */
+    default Object extractValues(final Map<String, Object> data, final JsonPath jsonPath) {
+        return jsonPath.read(data, JsonSchemaFactory.jsonPathConfiguration());
+    }
+
     /**
      * Generates a json object with value for a given pointer
      *
@@ -72,5 +194,41 @@ public interface JsonSerializer {
      * @return generated value
      */
     JSONObject generateObject(Set<String> keys);
-}
 
+    /**
+     * Generates a json object with the nested structure of the json schema.
+     * Default and const values are used where available, other values are initialized with empty strings.
+     *
+     * @param schema Json Schema structure
+     * @return generated skeleton
+     */
+    default JSONObject generateSkeleton(final Schema schema) {
+        return JsonSchemaFactory.generateSkeleton(schema);
+    }
+
+    /**
+     * Returns a serializer that filters, merges and extracts data directly on the given json tree implementation.
+     *
+     * @param tree json tree implementation, e.g. OrgJsonTree, JacksonJsonTree or GsonJsonTree
+     * @param <N>  node type of the tree
+     * @return tree serializer
+     */
+    default <N> JsonTreeSerializer<N> forTree(final JsonTree<N> tree) {
+        return new JsonTreeSerializer<>(tree);
+    }
+
+    // json nulls are kept, they remove values of the target
+    private static Object deepCopy(final Object value) {
+        if (value instanceof JSONObject) {
+            final JSONObject copy = new JSONObject();
+            ((JSONObject) value).keySet().forEach(key -> copy.put(key, deepCopy(((JSONObject) value).get(key))));
+            return copy;
+        }
+        if (value instanceof JSONArray) {
+            final JSONArray copy = new JSONArray();
+            ((JSONArray) value).forEach(item -> copy.put(deepCopy(item)));
+            return copy;
+        }
+        return value;
+    }
+}
@@ -1,9 +1,22 @@
 package io.muenchendigital.digiwf.json.serialization.serializer;
 
+import io.muenchendigital.digiwf.json.factory.ExecutionStrategy;
+import io.muenchendigital.digiwf.json.factory.JsonLimits;
+import io.muenchendigital.digiwf.json.monitoring.SchemaProfile;
+import io.muenchendigital.digiwf.json.monitoring.SchemaProfiler;
 import io.muenchendigital.digiwf.json.serialization.model.JsonPointer;
+import io.muenchendigital.digiwf.json.serialization.model.ValidatedData;
+import io.muenchendigital.digiwf.json.serialization.serializer.tree.OrgJsonTree;
+import lombok.RequiredArgsConstructor;
 import org.everit.json.schema.CombinedSchema;
 import org.everit.json.schema.ObjectSchema;
 import org.everit.json.schema.Schema;
+import org.everit.json.schema.ValidationException;
+import org.everit.json.schema.Validator;
+import org.everit.json.schema.event.ConditionalSchemaMatchEvent;
+import org.everit.json.schema.event.ConditionalSchemaMismatchEvent;
+import org.everit.json.schema.event.ConditionalSchemaValidationEvent;
+import org.everit.json.schema.event.ValidationListener;
 import org.json.JSONObject;
 
 import java.util.*;
@@ -12,9 +25,49 @@ import java.util.stream.Collectors;
 /**
  * JsonSchemaSerializer is an implementation of the JsonSchemaBaseSerializer that provides functionality
  * to serialize and deserialize data based on a json schema.
+ * <p>
+ * The serializer is stateless and thread-safe. State of a single call is kept in a {@link FilterContext}.
+ * Filtering and merging are implemented by the {@link JsonTreeSerializer} on the {@link OrgJsonTree}.
+ * Note that {@link #merge(JSONObject, JSONObject)} modifies the target, use {@link #mergeCopy(JSONObject, JSONObject)}
+ * if the target is shared.
  */
 public class JsonSerializerImpl implements JsonSerializer {
 
+    /**
+     * Arrays with at least this number of items are filtered in parallel
+     */
+    public static final int DEFAULT_PARALLEL_ARRAY_THRESHOLD = 1000;
+
+    private final int parallelArrayThreshold;
+
+    private final int maxDepth;
+
+    // the filter and merge rules are implemented once on the json tree SPI
+    private final JsonTreeSerializer<Object> orgJson;
+
+    public JsonSerializerImpl() {
+        this(DEFAULT_PARALLEL_ARRAY_THRESHOLD);
+    }
+
+    /**
+     * The depth of the filtered data is not limited, the data is expected to be parsed with {@link JsonLimits} already.
+     *
+     * @param parallelArrayThreshold minimum number of array items to filter the items in parallel
+     */
+    public JsonSerializerImpl(final int parallelArrayThreshold) {
+        this(parallelArrayThreshold, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param parallelArrayThreshold minimum number of array items to filter the items in parallel
+     * @param maxDepth               maximum depth of nested objects and arrays that are filtered, see {@link JsonLimits#getMaxDepth()}
+     */
+    public JsonSerializerImpl(final int parallelArrayThreshold, final int maxDepth) {
+        this.parallelArrayThreshold = parallelArrayThreshold;
+        this.maxDepth = maxDepth;
+        this.orgJson = new JsonTreeSerializer<>(new OrgJsonTree(), maxDepth, parallelArrayThreshold);
+    }
+
     /**
      * Deserialize data based on the schema.
      * <p>
@@ -47,35 +100,151 @@ public class JsonSerializerImpl implements JsonSerializer {
 
     @Override
     public JSONObject filter(final Schema schema, final JSONObject data, final boolean filterReadOnly) {
-        if (schema instanceof ObjectSchema) {
-            return this.filter(((ObjectSchema) schema).getPropertySchemas(), data, filterReadOnly);
-        }
+        return this.filter(schema, data, filterReadOnly, false);
+    }
 
-        final JSONObject result = new JSONObject();
+    /**
+     * Filter data and readOnly values.
+     * <p>
+     * If evaluateConditions is set, the if schema of every conditional schema is evaluated against the data
+     * and only the properties of the active then or else branch are kept. The result of a condition is
+     * memoized for the duration of the call.
+     *
+     * @param schema             Json Schema structure
+     * @param data               data that is filtered
+     * @param filterReadOnly     filter readOnly values
+     * @param evaluateConditions evaluate if/then/else schemas
+     * @return filtered values
+     */
+    @Override
+    public JSONObject filter(final Schema schema, final JSONObject data, final boolean filterReadOnly, final boolean evaluateConditions) {
+        return this.filter(schema, data, new FilterContext(filterReadOnly, evaluateConditions, this.maxDepth));
+    }
 
-        // combined schemas are saved on the next higher object schema level -> search for the next object schema
-        // therefore iterate all sub schemas of the schema and serialize the data for every schema
-        // by calling filter(...) recursively
-        if (schema instanceof CombinedSchema) {
-            final CombinedSchema combinedSchema = (CombinedSchema) schema;
-            combinedSchema.getSubschemas().stream()
-                    .map(subSchema -> this.filter(subSchema, data, filterReadOnly))
-                    .forEach(obj -> obj.keySet().forEach(key -> result.put(key, obj.get(key))));
-        }
+    /**
+     * Filter data and readOnly values with the given execution strategy.
+     * With {@link ExecutionStrategy#SEQUENTIAL} all array items are filtered on the calling thread, otherwise
+     * arrays with at least parallelArrayThreshold items are filtered in parallel.
+     *
+     * @param schema             Json Schema structure
+     * @param data               data that is filtered
+     * @param filterReadOnly     filter readOnly values
+     * @param evaluateConditions evaluate if/then/else schemas
+     * @param strategy           execution strategy
+     * @return filtered values
+     */
+    @Override
+    public JSONObject filter(final Schema schema, final JSONObject data, final boolean filterReadOnly, final boolean evaluateConditions,
+                             final ExecutionStrategy strategy) {
+        final FilterContext context = new FilterContext(filterReadOnly, evaluateConditions, this.maxDepth, strategy != ExecutionStrategy.SEQUENTIAL);
+        return this.filter(schema, data, context);
+    }
 
-        return result;
+    /**
+     * Filter data in explain mode and return the time and the number of invocations of every schema node.
+     * <p>
+     * The object, array and combined schemas that are filtered and the evaluated if schemas are measured,
+     * the nodes are identified by their json pointer in the schema. Arrays are filtered sequentially,
+     * so the time of the items is attributed to the array schema.
+     *
+     * @param schema             Json Schema structure
+     * @param data               data that is filtered
+     * @param filterReadOnly     filter readOnly values
+     * @param evaluateConditions evaluate if/then/else schemas
+     * @return cost report, most expensive nodes first
+     */
+    public SchemaProfile explainFilter(final Schema schema, final JSONObject data, final boolean filterReadOnly, final boolean evaluateConditions) {
+        final SchemaProfiler profiler = new SchemaProfiler();
+        this.filter(schema, data, new FilterContext(filterReadOnly, evaluateConditions, this.maxDepth, profiler));
+        return profiler.getProfile();
+    }
+
+    /**
+     * Validate data against the schema and filter it with the same parsed data.
+     * <p>
+     * If evaluateConditions is set, the results of the if schemas that are evaluated by the validation are recorded
+     * and reused by the filter, so each condition is evaluated only once. The data is filtered even if it is invalid.
+     *
+     * @param schema             Json Schema structure
+     * @param data               data that is validated and filtered
+     * @param filterReadOnly     filter readOnly values
+     * @param evaluateConditions evaluate if/then/else schemas
+     * @return filtered data and violations
+     */
+    @Override
+    public ValidatedData validateAndFilter(final Schema schema, final JSONObject data, final boolean filterReadOnly, final boolean evaluateConditions) {
+        final FilterContext context = new FilterContext(filterReadOnly, evaluateConditions, this.maxDepth);
+        final Validator validator = Validator.builder()
+                .withListener(evaluateConditions ? new ConditionRecorder(context) : ValidationListener.NOOP)
+                .build();
+        ValidationException failure = null;
+        try {
+            validator.performValidation(schema, data);
+        } catch (final ValidationException e) {
+            failure = e;
+        }
+        return new ValidatedData(this.filter(schema, data, context), failure);
     }
 
     /**
      * Merge two json objects
      *
      * @param source object that should be merged
-     * @param target object to be merged into
+     * @param target object to be merged into, the object is modified
      * @return merged object
      */
     @Override
     public Map<String, Object> merge(final JSONObject source, final JSONObject target) {
-        return this.deepMerge(source, target).toMap();
+        return ((JSONObject) this.orgJson.merge(source, target)).toMap();
+    }
+
+    /**
+     * Merge two json objects without modifying them.
+     * The result is the same as in merge(...), but it is built directly as a new map.
+     *
+     * @param source object that should be merged
+     * @param target object to be merged into
+     * @return merged object
+     */
+    @Override
+    public Map<String, Object> mergeCopy(final JSONObject source, final JSONObject target) {
+        return ((JSONObject) this.orgJson.mergeCopy(source, target)).toMap();
+    }
+
+    /**
+     * Filter data and readOnly values and merge the filtered data into the previous data.
+     * <p>
+     * The result is the same as merge(filter(schema, data, filterReadOnly), previousData),
+     * but neither the data nor the previous data is modified.
+     *
+     * @param schema         Json Schema structure
+     * @param data           data that is filtered
+     * @param previousData   data the filtered data is merged into
+     * @param filterReadOnly filter readOnly values
+     * @return merged data
+     */
+    @Override
+    public Map<String, Object> filterAndMerge(final Schema schema, final JSONObject data, final JSONObject previousData, final boolean filterReadOnly) {
+        return this.filterAndMerge(schema, data, previousData, filterReadOnly, false, ExecutionStrategy.PARALLEL);
+    }
+
+    /**
+     * Filter data with the given options and merge the filtered data into the previous data in one traversal.
+     * The filtered object is not created, the merged object is built while the schema and the data are walked.
+     *
+     * @param schema             Json Schema structure
+     * @param data               data that is filtered
+     * @param previousData       data the filtered data is merged into
+     * @param filterReadOnly     filter readOnly values
+     * @param evaluateConditions evaluate if/then/else schemas
+     * @param strategy           execution strategy
+     * @return merged data
+     */
+    @Override
+    public Map<String, Object> filterAndMerge(final Schema schema, final JSONObject data, final JSONObject previousData, final boolean filterReadOnly,
+                                              final boolean evaluateConditions, final ExecutionStrategy strategy) {
+        final FilterContext context = new FilterContext(filterReadOnly, evaluateConditions, this.maxDepth, strategy != ExecutionStrategy.SEQUENTIAL);
+        return ((JSONObject) this.orgJson.filterAndMerge(schema, data, previousData, context)).toMap();
     }
 
     /**
@@ -139,67 +308,48 @@ public class JsonSerializerImpl implements JsonSerializer {
         return jsonObject;
     }
 
+    /**
+     * Returns a serializer that works directly on the given json tree implementation with the same maximum depth.
+     *
+     * @param tree json tree implementation
+     * @param <N>  node type of the tree
+     * @return tree serializer
+     */
+    @Override
+    public <N> JsonTreeSerializer<N> forTree(final JsonTree<N> tree) {
+        return new JsonTreeSerializer<>(tree, this.maxDepth, this.parallelArrayThreshold);
+    }
+
     //--------------------------------------------------- helper methods ---------------------------------------------------//
 
-    private JSONObject deepMerge(final JSONObject source, final JSONObject target) {
-        for (final String key : source.keySet()) {
-            final Object value = source.get(key);
-            if (!target.has(key)) {
-                //target does not have the same key, should be added to target
-                if (value != null && value != JSONObject.NULL) //only add if the source value is not null
-                    target.put(key, value);
-            } else {
-                if (value != null && value != JSONObject.NULL) {
-                    if (value instanceof JSONObject) {
-                        //source value is json object, start deep merge
-                        target.put(key, this.deepMerge((JSONObject) value, this.getObjectOrEmpty(target.get(key))));
-                    } else {
-                        target.put(key, value);
-                    }
-                } else {
-                    target.remove(key);
-                }
-            }
-        }
-        return target;
+    private JSONObject filter(final Schema schema, final JSONObject data, final FilterContext context) {
+        return (JSONObject) this.orgJson.filter(schema, data, context);
     }
 
-    private JSONObject getObjectOrEmpty(final Object object) {
-        if (object == null | !(object instanceof JSONObject)) {
-            return new JSONObject();
-        }
-        return (JSONObject) object;
-    }
-
-    private JSONObject filter(final Map<String, Schema> schema, final JSONObject data, final boolean filterReadOnly) {
-        final JSONObject result = new JSONObject();
-
-        // iterate through props and fill them with values
-        for (final Map.Entry<String, Schema> entry : schema.entrySet()) {
-            // if it is a nested object go recursive
-            if (entry.getValue() instanceof ObjectSchema) {
-                result.put(entry.getKey(), this.filterObject(this.getDataOrEmptyObject(data, entry.getKey()), entry, filterReadOnly));
-            } else if (entry.getValue() instanceof CombinedSchema && !entry.getValue().getUnprocessedProperties().containsKey("fieldType")) {
-                final JSONObject obj = this.filter(entry.getValue(), data, filterReadOnly);
-                obj.keySet().forEach(key -> result.put(key, obj.get(key)));
-            } else {
-                if (!filterReadOnly || Boolean.TRUE != entry.getValue().isReadOnly()) {
-                    result.put(entry.getKey(), data.has(entry.getKey()) ? data.get(entry.getKey()) : JSONObject.NULL);
-                }
-            }
+    /**
+     * Records the results of the if schemas that are evaluated during a validation in the filter context.
+     */
+    @RequiredArgsConstructor
+    private static class ConditionRecorder implements ValidationListener {
+
+        private final FilterContext context;
+
+        @Override
+        public void ifSchemaMatch(final ConditionalSchemaMatchEvent event) {
+            this.record(event, true);
         }
-        return result;
-    }
 
-    private JSONObject filterObject(JSONObject data, final Map.Entry<String, Schema> schema, final boolean filterReadOnly) {
-        if (data == null) {
-            data = new JSONObject();
+        @Override
+        public void ifSchemaMismatch(final ConditionalSchemaMismatchEvent event) {
+            this.record(event, false);
         }
-        return this.filter(((ObjectSchema) schema.getValue()).getPropertySchemas(), data, filterReadOnly);
-    }
 
-    private JSONObject getDataOrEmptyObject(final JSONObject data, final String key) {
-        return data.has(key) ? (JSONObject) data.get(key) : null;
+        private void record(final ConditionalSchemaValidationEvent event, final boolean matches) {
+            // the event does not expose the validated instance directly, toJSON adds it without copying
+            final Object instance = event.toJSON(false, true).opt("instance");
+            if (instance instanceof JSONObject) {
+                event.getSchema().getIfSchema().ifPresent(ifSchema -> this.context.record(ifSchema, (JSONObject) instance, matches));
+            }
+        }
     }
-
 }
@@ -0,0 +1,80 @@
+package io.muenchendigital.digiwf.json.serialization.serializer;
+
+import java.util.Collection;
+
+/**
+ * Access to the nodes of a json tree implementation (e.g. org.json, Jackson or Gson).
+ * <p>
+ * The {@link JsonTreeSerializer} filters, merges and extracts data with these operations, so it works directly on the
+ * tree the caller already holds. Implementations have to be stateless and thread-safe.
+ *
+ * @param <N> node type of the tree
+ */
+public interface JsonTree<N> {
+
+    boolean isObject(N node);
+
+    boolean isArray(N node);
+
+    /**
+     * @param node node or null
+     * @return true if the node is missing or a json null
+     */
+    boolean isNull(N node);
+
+    /**
+     * @param object object node
+     * @return keys of the object
+     */
+    Collection<String> keys(N object);
+
+    /**
+     * @param object object node
+     * @param key    key of the value
+     * @return value or null if the object does not contain the key
+     */
+    N get(N object, String key);
+
+    /**
+     * @param array array node
+     * @return number of items
+     */
+    int size(N array);
+
+    /**
+     * @param array array node
+     * @param index index of the item
+     * @return item
+     */
+    N get(N array, int index);
+
+    N createObject();
+
+    N createArray();
+
+    void put(N object, String key, N value);
+
+    void remove(N object, String key);
+
+    void add(N array, N value);
+
+    /**
+     * @return json null
+     */
+    N nullValue();
+
+    /**
+     * @param node node
+     * @return deep copy of the node
+     */
+    N deepCopy(N node);
+
+    /**
+     * Converts the node into the org.json representation (JSONObject, JSONArray, String, Number, Boolean or JSONObject.NULL)
+     * that is used to validate schemas against the data.
+     *
+     * @param node node
+     * @return org.json value
+     */
+    Object toJson(N node);
+}
@@ -0,0 +1,482 @@
+package io.muenchendigital.digiwf.json.serialization.serializer;
+
+import io.muenchendigital.digiwf.json.factory.JsonLimits;
+import io.muenchendigital.digiwf.json.factory.SchemaUtils;
+import io.muenchendigital.digiwf.json.serialization.model.JsonPointer;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.everit.json.schema.ArraySchema;
+import org.everit.json.schema.CombinedSchema;
+import org.everit.json.schema.ConditionalSchema;
+import org.everit.json.schema.ObjectSchema;
+import org.everit.json.schema.Schema;
+import org.json.JSONObject;
+import org.json.JSONPointerException;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+import static java.lang.String.format;
+
+/**
+ * Filters, merges and extracts data on any json tree implementation.
+ * <p>
+ * This is the only implementation of the filter and merge rules, {@link JsonSerializerImpl} uses it with the
+ * {@code OrgJsonTree}. The data is read and written with a {@link JsonTree}, so callers that hold e.g. a Jackson
+ * {@code JsonNode} do not have to convert it to org.json and back. If/then/else conditions are evaluated on the
+ * org.json representation of the object the condition belongs to, each object is converted at most once per call
+ * (org.json objects are not converted at all). The items of large arrays are filtered in parallel.
+ * <p>
+ * The serializer is thread-safe as long as the same data is not modified concurrently.
+ *
+ * @param <N> node type of the tree
+ */
+public class JsonTreeSerializer<N> {
+
+    @Getter
+    private final JsonTree<N> tree;
+
+    private final int maxDepth;
+
+    private final int parallelArrayThreshold;
+
+    /**
+     * The depth of the filtered data is not limited.
+     *
+     * @param tree json tree implementation
+     */
+    public JsonTreeSerializer(final JsonTree<N> tree) {
+        this(tree, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param tree     json tree implementation
+     * @param maxDepth maximum depth of nested objects and arrays that are filtered, see {@link JsonLimits#getMaxDepth()}
+     */
+    public JsonTreeSerializer(final JsonTree<N> tree, final int maxDepth) {
+        this(tree, maxDepth, JsonSerializerImpl.DEFAULT_PARALLEL_ARRAY_THRESHOLD);
+    }
+
+    /**
+     * @param tree                   json tree implementation
+     * @param maxDepth               maximum depth of nested objects and arrays that are filtered
+     * @param parallelArrayThreshold minimum number of array items to filter the items in parallel
+     */
+    public JsonTreeSerializer(final JsonTree<N> tree, final int maxDepth, final int parallelArrayThreshold) {
+        this.tree = tree;
+        this.maxDepth = maxDepth;
+        this.parallelArrayThreshold = parallelArrayThreshold;
+    }
+
+    /**
+     * Filter data and readOnly values
+     *
+     * @param schema         Json Schema structure
+     * @param data           object node that is filtered
+     * @param filterReadOnly filter readOnly values
+     * @return filtered values
+     */
+    public N filter(final Schema schema, final N data, final boolean filterReadOnly) {
+        return this.filter(schema, data, filterReadOnly, false);
+    }
+
+    /**
+     * Filter data and readOnly values. Optionally evaluates if/then/else schemas and keeps only the active branch.
+     *
+     * @param schema             Json Schema structure
+     * @param data               object node that is filtered
+     * @param filterReadOnly     filter readOnly values
+     * @param evaluateConditions evaluate if/then/else schemas against the data
+     * @return filtered values
+     */
+    public N filter(final Schema schema, final N data, final boolean filterReadOnly, final boolean evaluateConditions) {
+        return this.filter(schema, data, new FilterContext(filterReadOnly, evaluateConditions, this.maxDepth));
+    }
+
+    /**
+     * Merge two object nodes
+     *
+     * @param source object that should be merged
+     * @param target object to be merged into, the object is modified
+     * @return merged object (the target)
+     */
+    public N merge(final N source, final N target) {
+        final Deque<MergeStep<N>> pending = new ArrayDeque<>();
+        pending.push(new MergeStep<>(source, target, target));
+        while (!pending.isEmpty()) {
+            final MergeStep<N> step = pending.pop();
+            for (final String key : this.tree.keys(step.source)) {
+                final N value = this.tree.get(step.source, key);
+                final N targetValue = this.tree.get(step.target, key);
+                if (this.tree.isNull(value)) {
+                    //null values are not added and remove the value of the target
+                    this.tree.remove(step.target, key);
+                } else if (targetValue != null && this.tree.isObject(value)) {
+                    //source value is json object, start deep merge
+                    final N nestedTarget = this.tree.isObject(targetValue) ? targetValue : this.tree.createObject();
+                    this.tree.put(step.target, key, nestedTarget);
+                    pending.push(new MergeStep<>(value, nestedTarget, nestedTarget));
+                } else {
+                    this.tree.put(step.target, key, value);
+                }
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Merge two object nodes without modifying them.
+     *
+     * @param source object that should be merged
+     * @param target object to be merged into
+     * @return new merged object
+     */
+    public N mergeCopy(final N source, final N target) {
+        final N result = this.tree.createObject();
+        final Deque<MergeStep<N>> pending = new ArrayDeque<>();
+        pending.push(new MergeStep<>(source, target, result));
+        while (!pending.isEmpty()) {
+            final MergeStep<N> step = pending.pop();
+            for (final String key : this.tree.keys(step.target)) {
+                if (this.tree.get(step.source, key) == null) {
+                    this.tree.put(step.result, key, this.tree.deepCopy(this.tree.get(step.target, key)));
+                }
+            }
+            for (final String key : this.tree.keys(step.source)) {
+                final N value = this.tree.get(step.source, key);
+                final N targetValue = this.tree.get(step.target, key);
+                if (this.tree.isNull(value)) {
+                    continue;
+                }
+                if (targetValue != null && this.tree.isObject(value)) {
+                    final N nestedResult = this.tree.createObject();
+                    this.tree.put(step.result, key, nestedResult);
+                    pending.push(new MergeStep<>(value, this.tree.isObject(targetValue) ? targetValue : this.tree.createObject(), nestedResult));
+                } else {
+                    this.tree.put(step.result, key, this.tree.deepCopy(value));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Filter data and readOnly values and merge the filtered data into the previous data in one traversal.
+     * <p>
+     * The schema, the data and the previous data are walked together and the merged object is built directly,
+     * the filtered object is not created. The result is the same as merge(filter(schema, data, filterReadOnly,
+     * evaluateConditions), previous), but neither the data nor the previous data is modified.
+     *
+     * @param schema             Json Schema structure
+     * @param data               object node that is filtered
+     * @param previous           object node the filtered data is merged into
+     * @param filterReadOnly     filter readOnly values
+     * @param evaluateConditions evaluate if/then/else schemas against the data
+     * @return new merged object
+     */
+    public N filterAndMerge(final Schema schema, final N data, final N previous, final boolean filterReadOnly, final boolean evaluateConditions) {
+        return this.filterAndMerge(schema, data, previous, new FilterContext(filterReadOnly, evaluateConditions, this.maxDepth));
+    }
+
+    /**
+     * Extract a value from an object node
+     *
+     * @param data        data to extract value from
+     * @param jsonPointer path to property
+     * @return value or null if the data does not contain the value
+     * @throws JSONPointerException if the pointer addresses a value inside of a primitive value
+     */
+    public N extractValue(final N data, final JsonPointer jsonPointer) {
+        N current = data;
+        for (final String token : jsonPointer.getRefTokens()) {
+            if (current == null) {
+                return null;
+            }
+            if (this.tree.isObject(current)) {
+                current = this.tree.get(current, token);
+            } else if (this.tree.isArray(current)) {
+                current = this.getItem(current, token);
+            } else {
+                throw new JSONPointerException(format(
+                        "value [%s] is not an array or object therefore its key %s cannot be resolved", current, token));
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Filters data with the options of the context.
+     *
+     * @param schema  Json Schema structure
+     * @param data    object node that is filtered
+     * @param context state of the filter call
+     * @return filtered values
+     */
+    N filter(final Schema schema, final N data, final FilterContext context) {
+        return this.filter(schema, new ObjectData<>(data), context);
+    }
+
+    /**
+     * Filters data with the options of the context and merges the filtered data into the previous data.
+     *
+     * @param schema   Json Schema structure
+     * @param data     object node that is filtered
+     * @param previous object node the filtered data is merged into
+     * @param context  state of the filter call
+     * @return new merged object
+     */
+    N filterAndMerge(final Schema schema, final N data, final N previous, final FilterContext context) {
+        return this.mergeObject(schema, new ObjectData<>(data), previous, context);
+    }
+
+    //------------------------------------- helper methods -------------------------------------//
+
+    private N filter(final Schema schema, final ObjectData<N> data, final FilterContext context) {
+        if (context.getProfiler() != null) {
+            return context.getProfiler().measure(schema, () -> this.filterSchema(schema, data, context));
+        }
+        return this.filterSchema(schema, data, context);
+    }
+
+    private N filterSchema(final Schema schema, final ObjectData<N> data, final FilterContext context) {
+        if (schema instanceof ObjectSchema) {
+            return this.filterProperties(((ObjectSchema) schema).getPropertySchemas(), data, context);
+        }
+
+        final N result = this.tree.createObject();
+
+        // combined schemas are saved on the next higher object schema level
+        if (schema instanceof CombinedSchema) {
+            for (final Schema subSchema : ((CombinedSchema) schema).getSubschemas()) {
+                this.putAll(result, this.filter(subSchema, data, context));
+            }
+        }
+
+        // only the properties of the active branch are filtered
+        if (schema instanceof ConditionalSchema && context.isEvaluateConditions()) {
+            final ConditionalSchema conditionalSchema = (ConditionalSchema) schema;
+            conditionalSchema.getIfSchema()
+                    .flatMap(ifSchema -> context.matches(ifSchema, data.toJson(this.tree)) ? conditionalSchema.getThenSchema() : conditionalSchema.getElseSchema())
+                    .map(branchSchema -> this.filter(branchSchema, data, context))
+                    .ifPresent(branch -> this.putAll(result, branch));
+        }
+
+        return result;
+    }
+
+    private N filterProperties(final Map<String, Schema> schema, final ObjectData<N> data, final FilterContext context) {
+        final N result = this.tree.createObject();
+
+        for (final Map.Entry<String, Schema> entry : schema.entrySet()) {
+            final Schema propertySchema = entry.getValue();
+            if (propertySchema instanceof ObjectSchema) {
+                final N nestedData = this.tree.get(data.node, entry.getKey());
+                final N nested = nestedData != null && this.tree.isObject(nestedData) ? nestedData : this.tree.createObject();
+                this.tree.put(result, entry.getKey(), this.filterObject((ObjectSchema) propertySchema, nested, context.enter()));
+            } else if (propertySchema instanceof CombinedSchema && !propertySchema.getUnprocessedProperties().containsKey("fieldType")) {
+                this.putAll(result, this.filter(propertySchema, data, context));
+            } else if (!context.isFilterReadOnly() || Boolean.TRUE != propertySchema.isReadOnly()) {
+                final N value = this.tree.get(data.node, entry.getKey());
+                this.tree.put(result, entry.getKey(), value != null ? this.filterValue(propertySchema, value, context) : this.tree.nullValue());
+            }
+        }
+        return result;
+    }
+
+    private N filterObject(final ObjectSchema schema, final N data, final FilterContext context) {
+        if (context.getProfiler() != null) {
+            return context.getProfiler().measure(schema, () -> this.filterProperties(schema.getPropertySchemas(), new ObjectData<>(data), context));
+        }
+        return this.filterProperties(schema.getPropertySchemas(), new ObjectData<>(data), context);
+    }
+
+    private N filterValue(final Schema schema, final N value, final FilterContext context) {
+        final Schema resolvedSchema = SchemaUtils.resolveReference(schema);
+        if (resolvedSchema instanceof ArraySchema && this.tree.isArray(value)) {
+            final FilterContext itemContext = context.enter();
+            if (context.getProfiler() != null) {
+                return context.getProfiler().measure(resolvedSchema, () -> this.filterArray((ArraySchema) resolvedSchema, value, itemContext));
+            }
+            return this.filterArray((ArraySchema) resolvedSchema, value, itemContext);
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private N filterArray(final ArraySchema schema, final N data, final FilterContext context) {
+        // resolve the item schema once for all items
+        final Schema itemSchema = schema.getAllItemSchema() != null ? SchemaUtils.resolveReference(schema.getAllItemSchema()) : null;
+        final List<Schema> tupleSchemas = schema.getItemSchemas();
+        if ((itemSchema == null || !isFilterable(itemSchema)) && (tupleSchemas == null || tupleSchemas.isEmpty())) {
+            // items do not contain any properties that could be filtered
+            return data;
+        }
+
+        final IntFunction<N> itemFilter = index -> {
+            final Schema schemaOfItem = itemSchema != null ? itemSchema : getTupleItemSchema(schema, index);
+            return this.filterItem(schemaOfItem, this.tree.get(data, index), context);
+        };
+
+        final Object[] items = new Object[this.tree.size(data)];
+        if (items.length >= this.parallelArrayThreshold && context.isParallel()) {
+            IntStream.range(0, items.length).parallel().forEach(index -> items[index] = itemFilter.apply(index));
+        } else {
+            for (int index = 0; index < items.length; index++) {
+                items[index] = itemFilter.apply(index);
+            }
+        }
+
+        final N result = this.tree.createArray();
+        for (final Object item : items) {
+            this.tree.add(result, (N) item);
+        }
+        return result;
+    }
+
+    private N filterItem(final Schema schema, final N item, final FilterContext context) {
+        if (schema == null) {
+            return item;
+        }
+        final Schema resolvedSchema = SchemaUtils.resolveReference(schema);
+        if (this.tree.isObject(item) && (resolvedSchema instanceof ObjectSchema || resolvedSchema instanceof CombinedSchema)) {
+            return this.filter(resolvedSchema, new ObjectData<>(item), context);
+        }
+        return this.filterValue(resolvedSchema, item, context);
+    }
+
+    // previous is null if the merged object is not in the previous data, the filtered object is then kept with its null values
+    private N mergeObject(final Schema schema, final ObjectData<N> data, final N previous, final FilterContext context) {
+        final MergedObject<N> merged = new MergedObject<>(previous, this.tree.createObject());
+        this.mergeSchema(schema, data, merged, context);
+        if (previous != null) {
+            for (final String key : this.tree.keys(previous)) {
+                if (!merged.filteredKeys.contains(key)) {
+                    this.tree.put(merged.result, key, this.tree.deepCopy(this.tree.get(previous, key)));
+                }
+            }
+        }
+        return merged.result;
+    }
+
+    // same walk as filterSchema(...), the filtered values are merged instead of collected
+    private void mergeSchema(final Schema schema, final ObjectData<N> data, final MergedObject<N> merged, final FilterContext context) {
+        if (schema instanceof ObjectSchema) {
+            this.mergeProperties(((ObjectSchema) schema).getPropertySchemas(), data, merged, context);
+            return;
+        }
+        if (schema instanceof CombinedSchema) {
+            for (final Schema subSchema : ((CombinedSchema) schema).getSubschemas()) {
+                this.mergeSchema(subSchema, data, merged, context);
+            }
+        }
+        if (schema instanceof ConditionalSchema && context.isEvaluateConditions()) {
+            final ConditionalSchema conditionalSchema = (ConditionalSchema) schema;
+            conditionalSchema.getIfSchema()
+                    .flatMap(ifSchema -> context.matches(ifSchema, data.toJson(this.tree)) ? conditionalSchema.getThenSchema() : conditionalSchema.getElseSchema())
+                    .ifPresent(branchSchema -> this.mergeSchema(branchSchema, data, merged, context));
+        }
+    }
+
+    private void mergeProperties(final Map<String, Schema> schema, final ObjectData<N> data, final MergedObject<N> merged, final FilterContext context) {
+        for (final Map.Entry<String, Schema> entry : schema.entrySet()) {
+            final String key = entry.getKey();
+            final Schema propertySchema = entry.getValue();
+            if (propertySchema instanceof ObjectSchema) {
+                final N nestedData = this.tree.get(data.node, key);
+                final N nested = nestedData != null && this.tree.isObject(nestedData) ? nestedData : this.tree.createObject();
+                final N previousValue = merged.previous != null ? this.tree.get(merged.previous, key) : null;
+                final N nestedPrevious = previousValue == null || this.tree.isObject(previousValue) ? previousValue : this.tree.createObject();
+                merged.filteredKeys.add(key);
+                this.tree.put(merged.result, key, this.mergeObject(propertySchema, new ObjectData<>(nested), nestedPrevious, context.enter()));
+            } else if (propertySchema instanceof CombinedSchema && !propertySchema.getUnprocessedProperties().containsKey("fieldType")) {
+                this.mergeSchema(propertySchema, data, merged, context);
+            } else if (!context.isFilterReadOnly() || Boolean.TRUE != propertySchema.isReadOnly()) {
+                final N value = this.tree.get(data.node, key);
+                this.mergeValue(key, value != null ? this.filterValue(propertySchema, value, context) : null, merged);
+            }
+        }
+    }
+
+    private void mergeValue(final String key, final N value, final MergedObject<N> merged) {
+        merged.filteredKeys.add(key);
+        final N previousValue = merged.previous != null ? this.tree.get(merged.previous, key) : null;
+        if (value == null || this.tree.isNull(value)) {
+            //null values are not added and remove the value of the previous data
+            if (merged.previous != null) {
+                this.tree.remove(merged.result, key);
+            } else {
+                this.tree.put(merged.result, key, this.tree.nullValue());
+            }
+        } else if (previousValue != null && this.tree.isObject(value)) {
+            this.tree.put(merged.result, key, this.mergeCopy(value, this.tree.isObject(previousValue) ? previousValue : this.tree.createObject()));
+        } else {
+            this.tree.put(merged.result, key, this.tree.deepCopy(value));
+        }
+    }
+
+    private void putAll(final N target, final N source) {
+        for (final String key : this.tree.keys(source)) {
+            this.tree.put(target, key, this.tree.get(source, key));
+        }
+    }
+
+    private N getItem(final N array, final String token) {
+        try {
+            final int index = Integer.parseInt(token);
+            return index >= 0 && index < this.tree.size(array) ? this.tree.get(array, index) : null;
+        } catch (final NumberFormatException e) {
+            throw new JSONPointerException(format("%s is not an array index", token), e);
+        }
+    }
+
+    private static Schema getTupleItemSchema(final ArraySchema schema, final int index) {
+        final List<Schema> tupleSchemas = schema.getItemSchemas();
+        return index < tupleSchemas.size() ? tupleSchemas.get(index) : schema.getSchemaOfAdditionalItems();
+    }
+
+    private static boolean isFilterable(final Schema schema) {
+        return schema instanceof ArraySchema || SchemaUtils.definesProperties(schema);
+    }
+
+    /**
+     * Object node that is filtered, the org.json representation for conditions is created once on first use.
+     */
+    private static class ObjectData<N> {
+        private final N node;
+        private JSONObject json;
+
+        private ObjectData(final N node) {
+            this.node = node;
+        }
+
+        private JSONObject toJson(final JsonTree<N> tree) {
+            if (this.json == null) {
+                this.json = (JSONObject) tree.toJson(this.node);
+            }
+            return this.json;
+        }
+    }
+
+    /**
+     * Object that is built by filterAndMerge(...) with the keys that are set by the filtered data.
+     */
+    @RequiredArgsConstructor
+    private static class MergedObject<N> {
+        private final N previous;
+        private final N result;
+        private final Set<String> filteredKeys = new HashSet<>();
+    }
+
+    @RequiredArgsConstructor
+    private static class MergeStep<N> {
+        private final N source;
+        private final N target;
+        private final N result;
+    }
+}
@@ -0,0 +1,118 @@
+package io.muenchendigital.digiwf.json.serialization.serializer.tree;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import io.muenchendigital.digiwf.json.serialization.serializer.JsonTree;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * JsonTree for Gson {@link JsonElement}s.
+ */
+public class GsonJsonTree implements JsonTree<JsonElement> {
+
+    @Override
+    public boolean isObject(final JsonElement node) {
+        return node != null && node.isJsonObject();
+    }
+
+    @Override
+    public boolean isArray(final JsonElement node) {
+        return node != null && node.isJsonArray();
+    }
+
+    @Override
+    public boolean isNull(final JsonElement node) {
+        return node == null || node.isJsonNull();
+    }
+
+    @Override
+    public Collection<String> keys(final JsonElement object) {
+        return new ArrayList<>(object.getAsJsonObject().keySet());
+    }
+
+    @Override
+    public JsonElement get(final JsonElement object, final String key) {
+        return object.getAsJsonObject().get(key);
+    }
+
+    @Override
+    public int size(final JsonElement array) {
+        return array.getAsJsonArray().size();
+    }
+
+    @Override
+    public JsonElement get(final JsonElement array, final int index) {
+        return array.getAsJsonArray().get(index);
+    }
+
+    @Override
+    public JsonElement createObject() {
+        return new JsonObject();
+    }
+
+    @Override
+    public JsonElement createArray() {
+        return new JsonArray();
+    }
+
+    @Override
+    public void put(final JsonElement object, final String key, final JsonElement value) {
+        object.getAsJsonObject().add(key, value);
+    }
+
+    @Override
+    public void remove(final JsonElement object, final String key) {
+        object.getAsJsonObject().remove(key);
+    }
+
+    @Override
+    public void add(final JsonElement array, final JsonElement value) {
+        array.getAsJsonArray().add(value);
+    }
+
+    @Override
+    public JsonElement nullValue() {
+        return JsonNull.INSTANCE;
+    }
+
+    @Override
+    public JsonElement deepCopy(final JsonElement node) {
+        return node.deepCopy();
+    }
+
+    @Override
+    public Object toJson(final JsonElement node) {
+        if (node == null || node.isJsonNull()) {
+            return JSONObject.NULL;
+        }
+        if (node.isJsonObject()) {
+            final JSONObject object = new JSONObject();
+            for (final Map.Entry<String, JsonElement> entry : node.getAsJsonObject().entrySet()) {
+                object.put(entry.getKey(), this.toJson(entry.getValue()));
+            }
+            return object;
+        }
+        if (node.isJsonArray()) {
+            final JSONArray array = new JSONArray();
+            node.getAsJsonArray().forEach(item -> array.put(this.toJson(item)));
+            return array;
+        }
+        final JsonPrimitive primitive = node.getAsJsonPrimitive();
+        if (primitive.isBoolean()) {
+            return primitive.getAsBoolean();
+        }
+        if (primitive.isNumber()) {
+            // same number types as when org.json parses the value
+            return JSONObject.stringToValue(primitive.getAsString());
+        }
+        return primitive.getAsString();
+    }
+}
@@ -0,0 +1,129 @@
+package io.muenchendigital.digiwf.json.serialization.serializer.tree;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.muenchendigital.digiwf.json.serialization.serializer.JsonTree;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * JsonTree for Jackson {@link JsonNode}s. Requires jackson-databind on the classpath.
+ */
+public class JacksonJsonTree implements JsonTree<JsonNode> {
+
+    private final JsonNodeFactory nodeFactory;
+
+    public JacksonJsonTree() {
+        this(JsonNodeFactory.instance);
+    }
+
+    /**
+     * @param nodeFactory factory for new object and array nodes, e.g. from the ObjectMapper of the application
+     */
+    public JacksonJsonTree(final JsonNodeFactory nodeFactory) {
+        this.nodeFactory = nodeFactory;
+    }
+
+    @Override
+    public boolean isObject(final JsonNode node) {
+        return node != null && node.isObject();
+    }
+
+    @Override
+    public boolean isArray(final JsonNode node) {
+        return node != null && node.isArray();
+    }
+
+    @Override
+    public boolean isNull(final JsonNode node) {
+        return node == null || node.isNull() || node.isMissingNode();
+    }
+
+    @Override
+    public Collection<String> keys(final JsonNode object) {
+        final List<String> keys = new ArrayList<>(object.size());
+        object.fieldNames().forEachRemaining(keys::add);
+        return keys;
+    }
+
+    @Override
+    public JsonNode get(final JsonNode object, final String key) {
+        return object.get(key);
+    }
+
+    @Override
+    public int size(final JsonNode array) {
+        return array.size();
+    }
+
+    @Override
+    public JsonNode get(final JsonNode array, final int index) {
+        return array.get(index);
+    }
+
+    @Override
+    public JsonNode createObject() {
+        return this.nodeFactory.objectNode();
+    }
+
+    @Override
+    public JsonNode createArray() {
+        return this.nodeFactory.arrayNode();
+    }
+
+    @Override
+    public void put(final JsonNode object, final String key, final JsonNode value) {
+        ((ObjectNode) object).set(key, value);
+    }
+
+    @Override
+    public void remove(final JsonNode object, final String key) {
+        ((ObjectNode) object).remove(key);
+    }
+
+    @Override
+    public void add(final JsonNode array, final JsonNode value) {
+        ((ArrayNode) array).add(value);
+    }
+
+    @Override
+    public JsonNode nullValue() {
+        return NullNode.getInstance();
+    }
+
+    @Override
+    public JsonNode deepCopy(final JsonNode node) {
+        return node.deepCopy();
+    }
+
+    @Override
+    public Object toJson(final JsonNode node) {
+        if (this.isNull(node)) {
+            return JSONObject.NULL;
+        }
+        if (node.isObject()) {
+            final JSONObject object = new JSONObject();
+            node.fields().forEachRemaining(field -> object.put(field.getKey(), this.toJson(field.getValue())));
+            return object;
+        }
+        if (node.isArray()) {
+            final JSONArray array = new JSONArray();
+            node.forEach(item -> array.put(this.toJson(item)));
+            return array;
+        }
+        if (node.isBoolean()) {
+            return node.booleanValue();
+        }
+        if (node.isNumber()) {
+            return node.numberValue();
+        }
+        return node.asText();
+    }
+}
@@ -0,0 +1,100 @@
+package io.muenchendigital.digiwf.json.serialization.serializer.tree;
+
+import io.muenchendigital.digiwf.json.serialization.serializer.JsonTree;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * JsonTree for org.json. Nodes are JSONObject, JSONArray, primitive values and JSONObject.NULL.
+ */
+public class OrgJsonTree implements JsonTree<Object> {
+
+    @Override
+    public boolean isObject(final Object node) {
+        return node instanceof JSONObject;
+    }
+
+    @Override
+    public boolean isArray(final Object node) {
+        return node instanceof JSONArray;
+    }
+
+    @Override
+    public boolean isNull(final Object node) {
+        return node == null || node == JSONObject.NULL;
+    }
+
+    @Override
+    public Collection<String> keys(final Object object) {
+        return new ArrayList<>(((JSONObject) object).keySet());
+    }
+
+    @Override
+    public Object get(final Object object, final String key) {
+        return ((JSONObject) object).opt(key);
+    }
+
+    @Override
+    public int size(final Object array) {
+        return ((JSONArray) array).length();
+    }
+
+    @Override
+    public Object get(final Object array, final int index) {
+        return ((JSONArray) array).get(index);
+    }
+
+    @Override
+    public Object createObject() {
+        return new JSONObject();
+    }
+
+    @Override
+    public Object createArray() {
+        return new JSONArray();
+    }
+
+    @Override
+    public void put(final Object object, final String key, final Object value) {
+        ((JSONObject) object).put(key, value);
+    }
+
+    @Override
+    public void remove(final Object object, final String key) {
+        ((JSONObject) object).remove(key);
+    }
+
+    @Override
+    public void add(final Object array, final Object value) {
+        ((JSONArray) array).put(value);
+    }
+
+    @Override
+    public Object nullValue() {
+        return JSONObject.NULL;
+    }
+
+    @Override
+    public Object deepCopy(final Object node) {
+        if (node instanceof JSONObject) {
+            final JSONObject copy = new JSONObject();
+            ((JSONObject) node).keySet().forEach(key -> copy.put(key, this.deepCopy(((JSONObject) node).get(key))));
+            return copy;
+        }
+        if (node instanceof JSONArray) {
+            final JSONArray copy = new JSONArray();
+            ((JSONArray) node).forEach(item -> copy.put(this.deepCopy(item)));
+            return copy;
+        }
+        // strings, numbers, booleans and JSONObject.NULL are immutable
+        return node;
+    }
+
+    @Override
+    public Object toJson(final Object node) {
+        return node;
+    }
+}
@@ -0,0 +1,173 @@
+package io.muenchendigital.digiwf.json.validation;
+
+import io.muenchendigital.digiwf.json.monitoring.SchemaProfile;
+import io.muenchendigital.digiwf.json.monitoring.SchemaProfiler;
+import org.everit.json.schema.ArraySchema;
+import org.everit.json.schema.CombinedSchema;
+import org.everit.json.schema.ConditionalSchema;
+import org.everit.json.schema.NotSchema;
+import org.everit.json.schema.ObjectSchema;
+import org.everit.json.schema.ReferenceSchema;
+import org.everit.json.schema.Schema;
+import org.everit.json.schema.ValidationException;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Validation that measures the cost of every schema node ("explain" mode).
+ * <p>
+ * Every node is validated against every value it is applied to, the time of the validation is the total time of
+ * the node. The sub schemas are then measured on their values the same way, the own time of a node is its total
+ * time without the total time of its sub schemas. Sub schemas are validated once more for every level above them,
+ * so an explained validation is much slower than a validation. Only the sub schemas that a validation evaluates are
+ * measured, e.g. the then or the else schema of a condition and the properties that are in the data.
+ */
+class ExplainedValidation {
+
+    private final SchemaProfiler profiler = new SchemaProfiler();
+
+    // schemas (by identity) that are measured on a value (by identity) on the current path, stops recursive references
+    private final Set<Visit> visits = new HashSet<>();
+
+    /**
+     * Measures the validation of the data.
+     *
+     * @param schema root schema
+     * @param data   validated data
+     * @return cost report
+     */
+    SchemaProfile explain(final Schema schema, final Object data) {
+        this.measure(schema, data);
+        return this.profiler.getProfile();
+    }
+
+    //------------------------------------- helper methods -------------------------------------//
+
+    private long measure(final Schema schema, final Object value) {
+        final Visit visit = new Visit(schema, value);
+        if (!this.visits.add(visit)) {
+            return 0;
+        }
+        final long start = System.nanoTime();
+        boolean failed = false;
+        try {
+            schema.validate(value);
+        } catch (final ValidationException e) {
+            failed = true;
+        }
+        final long total = System.nanoTime() - start;
+
+        long children = 0;
+        for (final Object[] child : this.getChildren(schema, value)) {
+            children += this.measure((Schema) child[0], child[1]);
+        }
+        this.profiler.record(schema, total, total - children, failed);
+        this.visits.remove(visit);
+        return total;
+    }
+
+    // sub schemas with the values they are applied to
+    private List<Object[]> getChildren(final Schema schema, final Object value) {
+        final List<Object[]> children = new ArrayList<>();
+        if (schema instanceof ObjectSchema && value instanceof JSONObject) {
+            addPropertyChildren((ObjectSchema) schema, (JSONObject) value, children);
+        } else if (schema instanceof ArraySchema && value instanceof JSONArray) {
+            addItemChildren((ArraySchema) schema, (JSONArray) value, children);
+        } else if (schema instanceof CombinedSchema) {
+            ((CombinedSchema) schema).getSubschemas().forEach(subschema -> children.add(new Object[]{subschema, value}));
+        } else if (schema instanceof ConditionalSchema) {
+            final ConditionalSchema conditionalSchema = (ConditionalSchema) schema;
+            conditionalSchema.getIfSchema().ifPresent(ifSchema -> {
+                children.add(new Object[]{ifSchema, value});
+                (isValid(ifSchema, value) ? conditionalSchema.getThenSchema() : conditionalSchema.getElseSchema())
+                        .ifPresent(branchSchema -> children.add(new Object[]{branchSchema, value}));
+            });
+        } else if (schema instanceof NotSchema) {
+            children.add(new Object[]{((NotSchema) schema).getMustNotMatch(), value});
+        } else if (schema instanceof ReferenceSchema && ((ReferenceSchema) schema).getReferredSchema() != null) {
+            children.add(new Object[]{((ReferenceSchema) schema).getReferredSchema(), value});
+        }
+        return children;
+    }
+
+    private static void addPropertyChildren(final ObjectSchema schema, final JSONObject value, final List<Object[]> children) {
+        for (final String key : value.keySet()) {
+            final Object propertyValue = value.get(key);
+            boolean matched = false;
+            final Schema propertySchema = schema.getPropertySchemas().get(key);
+            if (propertySchema != null) {
+                children.add(new Object[]{propertySchema, propertyValue});
+                matched = true;
+            }
+            for (final Map.Entry<Pattern, Schema> pattern : schema.getPatternProperties().entrySet()) {
+                if (pattern.getKey().matcher(key).find()) {
+                    children.add(new Object[]{pattern.getValue(), propertyValue});
+                    matched = true;
+                }
+            }
+            if (!matched && schema.getSchemaOfAdditionalProperties() != null) {
+                children.add(new Object[]{schema.getSchemaOfAdditionalProperties(), propertyValue});
+            }
+            if (schema.getPropertyNameSchema() != null) {
+                children.add(new Object[]{schema.getPropertyNameSchema(), key});
+            }
+            final Schema dependency = schema.getSchemaDependencies().get(key);
+            if (dependency != null) {
+                children.add(new Object[]{dependency, value});
+            }
+        }
+    }
+
+    private static void addItemChildren(final ArraySchema schema, final JSONArray value, final List<Object[]> children) {
+        final List<Schema> itemSchemas = schema.getItemSchemas();
+        for (int index = 0; index < value.length(); index++) {
+            final Object item = value.get(index);
+            if (schema.getAllItemSchema() != null) {
+                children.add(new Object[]{schema.getAllItemSchema(), item});
+            } else if (itemSchemas != null && index < itemSchemas.size()) {
+                children.add(new Object[]{itemSchemas.get(index), item});
+            } else if (itemSchemas != null && schema.getSchemaOfAdditionalItems() != null) {
+                children.add(new Object[]{schema.getSchemaOfAdditionalItems(), item});
+            }
+            if (schema.getContainedItemSchema() != null) {
+                children.add(new Object[]{schema.getContainedItemSchema(), item});
+            }
+        }
+    }
+
+    private static boolean isValid(final Schema schema, final Object value) {
+        try {
+            schema.validate(value);
+            return true;
+        } catch (final ValidationException e) {
+            return false;
+        }
+    }
+
+    private static class Visit {
+        private final Schema schema;
+        private final Object value;
+
+        private Visit(final Schema schema, final Object value) {
+            this.schema = schema;
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return other instanceof Visit && ((Visit) other).schema == this.schema && ((Visit) other).value == this.value;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(this.schema) + System.identityHashCode(this.value);
+        }
+    }
+}
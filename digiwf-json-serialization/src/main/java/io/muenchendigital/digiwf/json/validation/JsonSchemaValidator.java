@@ -4,18 +4,89 @@
 
 package io.muenchendigital.digiwf.json.validation;
 
+import io.muenchendigital.digiwf.json.factory.DocumentHash;
+import io.muenchendigital.digiwf.json.factory.ExecutionStrategy;
+import io.muenchendigital.digiwf.json.factory.JsonLimitExceededException;
+import io.muenchendigital.digiwf.json.factory.JsonLimits;
+import io.muenchendigital.digiwf.json.factory.JsonSchemaFactory;
+import io.muenchendigital.digiwf.json.factory.SchemaComplexity;
+import io.muenchendigital.digiwf.json.factory.SchemaFingerprint;
+import io.muenchendigital.digiwf.json.factory.SingleFlight;
+import io.muenchendigital.digiwf.json.monitoring.JsonOperationEvent;
+import io.muenchendigital.digiwf.json.monitoring.SchemaProfile;
+import io.muenchendigital.digiwf.json.serialization.model.JsonPointer;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 import org.everit.json.schema.Schema;
-import org.everit.json.schema.loader.SchemaLoader;
-import org.everit.json.schema.regexp.RE2JRegexpFactory;
+import org.everit.json.schema.loader.SchemaClient;
 import org.json.JSONObject;
 
+import java.io.Reader;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Json Schema Validator
+ * <p>
+ * The validator is thread-safe. Loaded schemas are cached by their json representation, at most
+ * {@link #MAX_CACHED_SCHEMAS} schemas are kept. A schema is loaded once, concurrent callers wait for it.
+ * Schemas are analyzed before they are loaded, see {@link JsonSchemaFactory#analyze}. Schemas that exceed the schema
+ * budgets of the limits are rejected or logged. If a schema contains large anyOf or oneOf unions of constants,
+ * the unions are indexed when the schema is loaded, see {@link JsonSchemaFactory#createValidationSchema}.
+ * <p>
+ * With a {@link ValidationResultCache} the results of complete validations are cached, so documents that are
+ * submitted again are not validated again.
+ * <p>
+ * Loading a schema and every validation emit a {@link JsonOperationEvent} for Java Flight Recorder.
  */
 public class JsonSchemaValidator {
 
+    /**
+     * Maximum number of cached schemas, an arbitrary schema is evicted when the cache is full
+     */
+    public static final int MAX_CACHED_SCHEMAS = 1000;
+
+    private final Map<String, CompletableFuture<LoadedSchema>> schemas = new ConcurrentHashMap<>();
+
+    private final JsonLimits limits;
+
+    private final SchemaClient schemaClient;
+
+    private final ValidationResultCache resultCache;
+
+    public JsonSchemaValidator() {
+        this(JsonLimits.DEFAULT);
+    }
+
+    /**
+     * @param limits limits that are enforced when json input is read
+     */
+    public JsonSchemaValidator(final JsonLimits limits) {
+        this(limits, JsonSchemaFactory.schemaClient());
+    }
+
+    /**
+     * @param limits       limits that are enforced when json input is read
+     * @param schemaClient client that resolves referenced schemas
+     */
+    public JsonSchemaValidator(final JsonLimits limits, final SchemaClient schemaClient) {
+        this(limits, schemaClient, null);
+    }
+
+    /**
+     * @param limits       limits that are enforced when json input is read
+     * @param schemaClient client that resolves referenced schemas
+     * @param resultCache  cache of validation results, null to validate every document
+     */
+    public JsonSchemaValidator(final JsonLimits limits, final SchemaClient schemaClient, final ValidationResultCache resultCache) {
+        this.limits = limits;
+        this.schemaClient = schemaClient;
+        this.resultCache = resultCache;
+    }
+
     /**
      * Validates data against a json schema
      *
@@ -33,24 +104,143 @@ public class JsonSchemaValidator {
      * @param data   data that is validated
      */
     public void validate(final String schema, final Map<String, Object> data) {
-        final Schema schemaObj = this.createSchema(new JSONObject(schema));
-        schemaObj.validate(new JSONObject(data));
+        this.validate(schema, new JSONObject(data));
     }
 
+    /**
+     * Validates json data against a json schema.
+     * The configured limits are enforced while the data is read, so oversized input fails before the validation starts.
+     *
+     * @param schema schema that is used for validation
+     * @param data   json data that is validated
+     * @throws JsonLimitExceededException if the data exceeds one of the limits
+     */
+    public void validate(final String schema, final Reader data) {
+        this.validate(schema, new JSONObject(JsonSchemaFactory.parse(data, this.limits)));
+    }
+
+    /**
+     * Validates only the parts of the data that are affected by the changed values.
+     * The values at the changed pointers are validated against their schemas, the objects on the path to them
+     * against the constraints of their level (required, dependencies, ...) and the if/then/else, anyOf, oneOf and not
+     * schemas on the path completely.
+     * Violations are thrown as ValidationException with the same pointers and messages as by a complete validation,
+     * multiple violations are grouped under the root schema instead of the allOf schemas they belong to.
+     *
+     * @param schema          schema that is used for validation
+     * @param data            data that is validated
+     * @param changedPointers json pointers of the changed values
+     */
+    public void validatePartial(final String schema, final Map<String, Object> data, final Collection<String> changedPointers) {
+        final JsonOperationEvent event = JsonOperationEvent.start(JsonOperationEvent.VALIDATOR, "validatePartial");
+        final LoadedSchema loadedSchema = this.getSchema(schema);
+        final PartialValidation validation = new PartialValidation(loadedSchema.getSchema());
+        final JSONObject dataObject = new JSONObject(data);
+        try {
+            changedPointers.forEach(pointer -> validation.validatePointer(dataObject, new JsonPointer(pointer).getRefTokens()));
+            validation.throwFailures();
+        } catch (final RuntimeException e) {
+            event.fail(e);
+            throw e;
+        } finally {
+            event.complete(loadedSchema.getSchema(), event.isEnabled() ? loadedSchema.getFingerprint() : null, data);
+        }
+    }
+
+    /**
+     * Validates data in explain mode and returns the time and the number of invocations of every schema node.
+     * The nodes are identified by their json pointer in the schema, indexed unions are reported with the keyword
+     * they are rewritten to. An explained validation is much slower than a validation, use it to find the
+     * expensive parts of a schema. Violations are counted in the report instead of being thrown.
+     *
+     * @param schema schema that is used for validation
+     * @param data   data that is validated
+     * @return cost report, most expensive nodes first
+     */
+    public SchemaProfile explain(final String schema, final Map<String, Object> data) {
+        return new ExplainedValidation().explain(this.getSchema(schema).getSchema(), new JSONObject(data));
+    }
 
     //------------------------------------- helper methods -------------------------------------//
 
     private void validate(final Map<String, Object> schemaObject, final JSONObject data) {
-        final Schema schema = this.createSchema(new JSONObject(schemaObject));
-        schema.validate(data);
+        this.validate(new JSONObject(schemaObject).toString(), data);
+    }
+
+    // invalid data is recorded as well, with the ValidationException as failure
+    private void validate(final String schema, final JSONObject data) {
+        final JsonOperationEvent event = JsonOperationEvent.start(JsonOperationEvent.VALIDATOR, "validate");
+        final LoadedSchema loadedSchema = this.getSchema(schema);
+        final Schema schemaObj = loadedSchema.getSchema();
+        try {
+            if (this.resultCache == null) {
+                schemaObj.validate(data);
+            } else {
+                this.resultCache.validate(loadedSchema.getFingerprint(), DocumentHash.of(data), () -> schemaObj.validate(data));
+            }
+        } catch (final RuntimeException e) {
+            event.fail(e);
+            throw e;
+        } finally {
+            event.complete(schemaObj, event.isEnabled() ? loadedSchema.getFingerprint() : null, data);
+        }
+    }
+
+    // the first caller loads the schema outside of the map, concurrent callers wait for it
+    private LoadedSchema getSchema(final String schema) {
+        final LoadedSchema loadedSchema = SingleFlight.getOrCompute(this.schemas, schema, () -> this.loadSchema(schema));
+        this.evictIfFull(schema);
+        return loadedSchema;
+    }
+
+    private void evictIfFull(final String added) {
+        final Iterator<String> keys = this.schemas.keySet().iterator();
+        while (this.schemas.size() > MAX_CACHED_SCHEMAS && keys.hasNext()) {
+            final String key = keys.next();
+            if (!key.equals(added)) {
+                keys.remove();
+            }
+        }
+    }
+
+    private LoadedSchema loadSchema(final String schema) {
+        final JsonOperationEvent event = JsonOperationEvent.start(JsonOperationEvent.VALIDATOR, "compile");
+        final JSONObject schemaJson = new JSONObject(schema);
+        LoadedSchema loadedSchema = null;
+        try {
+            final SchemaComplexity complexity = JsonSchemaFactory.analyze(schemaJson, this.limits);
+            final Schema schemaObj = complexity.getValidationStrategy() == ExecutionStrategy.COMPILED
+                    ? JsonSchemaFactory.createValidationSchema(schemaJson, this.schemaClient)
+                    : JsonSchemaFactory.createSchema(schemaJson, this.schemaClient);
+            loadedSchema = new LoadedSchema(schema, schemaObj);
+            return loadedSchema;
+        } catch (final RuntimeException e) {
+            event.fail(e);
+            throw e;
+        } finally {
+            final boolean loaded = loadedSchema != null;
+            event.complete(loaded ? loadedSchema.getSchema() : null, loaded && event.isEnabled() ? loadedSchema.getFingerprint() : null, schemaJson);
+        }
     }
 
-    private Schema createSchema(final JSONObject schemaObject) {
-        return SchemaLoader.builder().schemaJson(schemaObject)
-                .draftV7Support()
-                .regexpFactory(new RE2JRegexpFactory())
-                .build()
-                .load()
-                .build();
+    /**
+     * A loaded schema with its fingerprint, the fingerprint is only computed for the result cache and recorded events.
+     */
+    @RequiredArgsConstructor
+    private static class LoadedSchema {
+
+        private final String json;
+
+        @Getter
+        private final Schema schema;
+
+        private volatile String fingerprint;
+
+        String getFingerprint() {
+            if (this.fingerprint == null) {
+                this.fingerprint = SchemaFingerprint.of(this.json).getValue();
+            }
+            return this.fingerprint;
+        }
     }
 }
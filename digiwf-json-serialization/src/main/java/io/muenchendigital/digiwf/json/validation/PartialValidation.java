@@ -0,0 +1,219 @@
+package io.muenchendigital.digiwf.json.validation;
+
+import org.everit.json.schema.ArraySchema;
+import org.everit.json.schema.CombinedSchema;
+import org.everit.json.schema.EmptySchema;
+import org.everit.json.schema.ObjectSchema;
+import org.everit.json.schema.ReferenceSchema;
+import org.everit.json.schema.Schema;
+import org.everit.json.schema.ValidationException;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Validation of the parts of a document that are affected by changed values.
+ * <p>
+ * For every changed pointer the schema is followed from the root to the changed value. On each level of the path
+ * the object (or array) is validated against the constraints of its own level, e.g. required properties,
+ * additionalProperties and dependencies, but not against the schemas of its properties. Schemas that depend on the
+ * whole object of a level (if/then/else, anyOf, oneOf, not) are validated completely. The changed value itself
+ * is validated against its complete schema.
+ * <p>
+ * Each constraint is validated once per call, even if several changed pointers share a path.
+ */
+class PartialValidation {
+
+    private final Schema rootSchema;
+
+    private final List<ValidationException> failures = new ArrayList<>();
+
+    // validated schemas (compared by identity) by the path of the validated value
+    private final Map<List<String>, Set<Schema>> validated = new HashMap<>();
+
+    PartialValidation(final Schema rootSchema) {
+        this.rootSchema = rootSchema;
+    }
+
+    /**
+     * Validates the value at the pointer and all constraints on the path to the value.
+     *
+     * @param data   document
+     * @param tokens unescaped tokens of the json pointer
+     */
+    void validatePointer(final JSONObject data, final List<String> tokens) {
+        List<Schema> schemas = List.of(this.rootSchema);
+        Object value = data;
+        int index = 0;
+        while (index < tokens.size() && (value instanceof JSONObject || value instanceof JSONArray)) {
+            final List<String> path = tokens.subList(0, index);
+            final Object levelValue = value;
+            final Level level = new Level();
+            schemas.forEach(level::add);
+            level.constraints.forEach(schema -> this.validate(schema, schema, levelValue, path));
+            level.objectSchemas.forEach(schema -> this.validate(schema, shallowCopy(schema), levelValue, path));
+            level.arraySchemas.forEach(schema -> this.validate(schema, shallowCopy(schema), levelValue, path));
+
+            final String token = tokens.get(index);
+            if (value instanceof JSONObject) {
+                schemas = level.getPropertySchemas(token);
+                value = ((JSONObject) value).opt(token);
+            } else {
+                final int itemIndex = parseIndex(token);
+                schemas = level.getItemSchemas(itemIndex);
+                value = ((JSONArray) value).opt(itemIndex);
+            }
+            if (value == null) {
+                // removed values are checked by the constraints of the parent (required, dependencies)
+                return;
+            }
+            index++;
+        }
+        final Object leafValue = value;
+        final List<String> leafPath = tokens.subList(0, index);
+        schemas.forEach(schema -> this.validate(schema, schema, leafValue, leafPath));
+    }
+
+    /**
+     * Throws the collected violations in the same format as a validation of the complete document.
+     *
+     * @throws ValidationException if a violation was found
+     */
+    void throwFailures() {
+        ValidationException.throwFor(this.rootSchema, this.failures);
+    }
+
+    //------------------------------------- helper methods -------------------------------------//
+
+    private void validate(final Schema schema, final Schema validatedSchema, final Object value, final List<String> path) {
+        final Set<Schema> validatedSchemas = this.validated.computeIfAbsent(List.copyOf(path), key -> Collections.newSetFromMap(new IdentityHashMap<>()));
+        if (!validatedSchemas.add(schema)) {
+            return;
+        }
+        try {
+            validatedSchema.validate(value);
+        } catch (final ValidationException e) {
+            ValidationException failure = e;
+            for (int i = path.size() - 1; i >= 0; i--) {
+                failure = failure.prepend(path.get(i));
+            }
+            if (failure.getCausingExceptions().isEmpty()) {
+                this.failures.add(failure);
+            } else {
+                this.failures.addAll(failure.getCausingExceptions());
+            }
+        }
+    }
+
+    /**
+     * Copy of the object schema without the schemas of its properties.
+     */
+    private static Schema shallowCopy(final ObjectSchema schema) {
+        final ObjectSchema.Builder builder = ObjectSchema.builder()
+                .requiresObject(schema.requiresObject())
+                .additionalProperties(schema.permitsAdditionalProperties())
+                .schemaOfAdditionalProperties(schema.getSchemaOfAdditionalProperties())
+                .propertyNameSchema(schema.getPropertyNameSchema())
+                .minProperties(schema.getMinProperties())
+                .maxProperties(schema.getMaxProperties());
+        schema.getPropertySchemas().keySet().forEach(property -> builder.addPropertySchema(property, EmptySchema.INSTANCE));
+        schema.getPatternProperties().keySet().forEach(pattern -> builder.patternProperty(pattern, EmptySchema.INSTANCE));
+        schema.getRequiredProperties().forEach(builder::addRequiredProperty);
+        schema.getPropertyDependencies().forEach((property, dependencies) -> dependencies.forEach(dependency -> builder.propertyDependency(property, dependency)));
+        schema.getSchemaDependencies().forEach(builder::schemaDependency);
+        return builder.schemaLocation(schema.getLocation()).build();
+    }
+
+    /**
+     * Copy of the array schema without the schemas of its items.
+     */
+    private static Schema shallowCopy(final ArraySchema schema) {
+        final ArraySchema.Builder builder = ArraySchema.builder()
+                .requiresArray(schema.requiresArray())
+                .minItems(schema.getMinItems())
+                .maxItems(schema.getMaxItems())
+                .uniqueItems(schema.needsUniqueItems())
+                .containsItemSchema(schema.getContainedItemSchema())
+                .additionalItems(schema.permitsAdditionalItems());
+        if (schema.getItemSchemas() != null) {
+            schema.getItemSchemas().forEach(itemSchema -> builder.addItemSchema(EmptySchema.INSTANCE));
+        }
+        return builder.schemaLocation(schema.getLocation()).build();
+    }
+
+    private static int parseIndex(final String token) {
+        try {
+            return Integer.parseInt(token);
+        } catch (final NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Schemas that apply to one level of the document.
+     */
+    private static class Level {
+
+        private final List<ObjectSchema> objectSchemas = new ArrayList<>();
+
+        private final List<ArraySchema> arraySchemas = new ArrayList<>();
+
+        // schemas that are validated against the complete value of the level
+        private final List<Schema> constraints = new ArrayList<>();
+
+        private void add(final Schema schema) {
+            if (schema instanceof ReferenceSchema && ((ReferenceSchema) schema).getReferredSchema() != null) {
+                this.add(((ReferenceSchema) schema).getReferredSchema());
+            } else if (schema instanceof CombinedSchema && ((CombinedSchema) schema).getCriterion() == CombinedSchema.ALL_CRITERION) {
+                ((CombinedSchema) schema).getSubschemas().forEach(this::add);
+            } else if (schema instanceof ObjectSchema) {
+                this.objectSchemas.add((ObjectSchema) schema);
+            } else if (schema instanceof ArraySchema) {
+                this.arraySchemas.add((ArraySchema) schema);
+            } else if (!(schema instanceof EmptySchema)) {
+                this.constraints.add(schema);
+            }
+        }
+
+        private List<Schema> getPropertySchemas(final String property) {
+            final List<Schema> schemas = new ArrayList<>();
+            for (final ObjectSchema objectSchema : this.objectSchemas) {
+                final int found = schemas.size();
+                if (objectSchema.getPropertySchemas().containsKey(property)) {
+                    schemas.add(objectSchema.getPropertySchemas().get(property));
+                }
+                for (final Map.Entry<Pattern, Schema> patternProperty : objectSchema.getPatternProperties().entrySet()) {
+                    if (patternProperty.getKey().matcher(property).find()) {
+                        schemas.add(patternProperty.getValue());
+                    }
+                }
+                if (schemas.size() == found && objectSchema.getSchemaOfAdditionalProperties() != null) {
+                    schemas.add(objectSchema.getSchemaOfAdditionalProperties());
+                }
+            }
+            return schemas;
+        }
+
+        private List<Schema> getItemSchemas(final int index) {
+            final List<Schema> schemas = new ArrayList<>();
+            for (final ArraySchema arraySchema : this.arraySchemas) {
+                if (arraySchema.getAllItemSchema() != null) {
+                    schemas.add(arraySchema.getAllItemSchema());
+                } else if (arraySchema.getItemSchemas() != null && index < arraySchema.getItemSchemas().size()) {
+                    schemas.add(arraySchema.getItemSchemas().get(index));
+                } else if (arraySchema.getSchemaOfAdditionalItems() != null) {
+                    schemas.add(arraySchema.getSchemaOfAdditionalItems());
+                }
+            }
+            return schemas;
+        }
+    }
+}
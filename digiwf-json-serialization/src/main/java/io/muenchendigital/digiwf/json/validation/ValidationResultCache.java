@@ -0,0 +1,141 @@
+package io.muenchendigital.digiwf.json.validation;
+
+import io.muenchendigital.digiwf.json.factory.BoundedCache;
+import io.muenchendigital.digiwf.json.factory.DocumentHash;
+import org.everit.json.schema.ValidationException;
+import org.json.JSONObject;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of validation results.
+ * <p>
+ * Identical documents (retries, double submits, replayed messages) are validated once per schema. Results are
+ * cached by the fingerprint of the schema and the {@link DocumentHash} of the document, hashing a document is
+ * cheaper than validating it. A cached violation is thrown as a new {@link ValidationException} with the message,
+ * pointer and causing exceptions of the cached violation, so callers never share an exception instance.
+ * The cache holds at most {@code maxSize} results, the least recently used results are evicted first, see {@link BoundedCache}.
+ * Hits and misses are counted for monitoring.
+ */
+public class ValidationResultCache {
+
+    public static final int DEFAULT_MAX_SIZE = 10_000;
+
+    // result of a valid document, null is returned for documents that are not cached
+    private static final Object VALID = new Object();
+
+    private final BoundedCache<String, Object> results;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    public ValidationResultCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param maxSize maximum number of cached results
+     */
+    public ValidationResultCache(final int maxSize) {
+        this.results = new BoundedCache<>(maxSize);
+    }
+
+    /**
+     * Validates a document with the cached result or the validation.
+     *
+     * @param schemaFingerprint fingerprint of the schema
+     * @param documentHash      hash of the document
+     * @param validation        validation of the document that throws a ValidationException if the document is invalid
+     * @throws ValidationException if the document is invalid
+     */
+    public void validate(final String schemaFingerprint, final String documentHash, final Runnable validation) {
+        final String key = schemaFingerprint + ':' + documentHash;
+        final Object cached = this.results.get(key);
+        if (cached != null) {
+            this.hits.increment();
+            if (cached instanceof ValidationException) {
+                throw new CachedValidationException((ValidationException) cached);
+            }
+            return;
+        }
+        this.misses.increment();
+        // a document that is validated concurrently is validated twice
+        try {
+            validation.run();
+        } catch (final ValidationException e) {
+            this.results.put(key, e);
+            throw e;
+        }
+        this.results.put(key, VALID);
+    }
+
+    /**
+     * @return number of validations that were answered from the cache
+     */
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    /**
+     * @return number of documents that were validated
+     */
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    /**
+     * @return share of validations that were answered from the cache, 0 if nothing was validated
+     */
+    public double getHitRate() {
+        final long hitCount = this.getHits();
+        final long total = hitCount + this.getMisses();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * @return number of cached results
+     */
+    public int size() {
+        return this.results.size();
+    }
+
+    /**
+     * Violation that is answered from the cache. The exception has its own stack trace and pointer,
+     * the message and the causing exceptions are the ones of the cached violation.
+     */
+    private static class CachedValidationException extends ValidationException {
+
+        private final ValidationException violation;
+
+        private CachedValidationException(final ValidationException violation) {
+            super(violation.getViolatedSchema(), violation.getErrorMessage(), violation.getCausingExceptions());
+            this.violation = violation;
+        }
+
+        @Override
+        public String getMessage() {
+            return this.violation.getMessage();
+        }
+
+        @Override
+        public String getPointerToViolation() {
+            return this.violation.getPointerToViolation();
+        }
+
+        @Override
+        public String getKeyword() {
+            return this.violation.getKeyword();
+        }
+
+        @Override
+        public String getSchemaLocation() {
+            return this.violation.getSchemaLocation();
+        }
+
+        @Override
+        public JSONObject toJSON() {
+            return this.violation.toJSON();
+        }
+    }
+}
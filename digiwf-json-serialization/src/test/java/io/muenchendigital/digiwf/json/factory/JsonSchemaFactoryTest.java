@@ -0,0 +1,262 @@
+package io.muenchendigital.digiwf.json.factory;
+
+import org.assertj.core.api.Assertions;
+import org.everit.json.schema.Schema;
+import org.everit.json.schema.ValidationException;
+import org.everit.json.schema.regexp.RE2JRegexpFactory;
+import org.everit.json.schema.regexp.Regexp;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class JsonSchemaFactoryTest {
+
+    @Test
+    public void readNumbersWithMatchingType() {
+        final Map<String, Object> data = JsonSchemaFactory.gson().fromJson(
+                "{\"int\": 12, \"negative\": -2147483648, \"long\": 2147483648, \"id\": 9007199254740993,"
+                        + " \"big\": 123456789012345678901234567890, \"double\": 1.5, \"exponent\": 1e3,"
+                        + " \"precise\": 0.12345678901234567890}",
+                JsonSchemaFactory.mapType());
+
+        Assertions.assertThat(data.get("int")).isEqualTo(12);
+        Assertions.assertThat(data.get("negative")).isEqualTo(Integer.MIN_VALUE);
+        Assertions.assertThat(data.get("long")).isEqualTo(2147483648L);
+        Assertions.assertThat(data.get("id")).isEqualTo(9007199254740993L);
+        Assertions.assertThat(data.get("big")).isEqualTo(new BigDecimal("123456789012345678901234567890"));
+        Assertions.assertThat(data.get("double")).isEqualTo(1.5);
+        Assertions.assertThat(data.get("exponent")).isEqualTo(1000.0);
+        Assertions.assertThat(data.get("precise")).isEqualTo(new BigDecimal("0.12345678901234567890"));
+    }
+
+    @Test
+    public void parseWithLimits() {
+        final Map<String, Object> data = JsonSchemaFactory.parse(new StringReader("{\"list\": [1, 2], \"object\": {\"value\": \"abc\"}}"), JsonLimits.DEFAULT);
+
+        Assertions.assertThat(data).isEqualTo(Map.of(
+                "list", List.of(1, 2),
+                "object", Map.of("value", "abc")
+        ));
+    }
+
+    @Test
+    public void rejectDeeplyNestedInput() {
+        final String json = "{\"value\":" + "[".repeat(100_000) + "]".repeat(100_000) + "}";
+        final JsonLimits limits = JsonLimits.builder().maxDepth(10).maxTotalChars(Long.MAX_VALUE).build();
+
+        assertThrows(JsonLimitExceededException.class, () -> JsonSchemaFactory.parse(new StringReader(json), limits));
+    }
+
+    @Test
+    public void rejectLongString() {
+        final JsonLimits limits = JsonLimits.builder().maxStringLength(10).build();
+
+        assertThrows(JsonLimitExceededException.class, () -> JsonSchemaFactory.parse(new StringReader("{\"value\": \"" + "a".repeat(11) + "\"}"), limits));
+    }
+
+    @Test
+    public void rejectLargeArray() {
+        final JsonLimits limits = JsonLimits.builder().maxArraySize(3).build();
+
+        assertThrows(JsonLimitExceededException.class, () -> JsonSchemaFactory.parse(new StringReader("{\"value\": [1, 2, 3, 4]}"), limits));
+    }
+
+    @Test
+    public void rejectLargeInput() {
+        final JsonLimits limits = JsonLimits.builder().maxTotalChars(1024).build();
+        final String json = "{\"value\": \"" + "a".repeat(50 * 1024 * 1024) + "\"}";
+
+        assertThrows(JsonLimitExceededException.class, () -> JsonSchemaFactory.parse(new StringReader(json), limits));
+    }
+
+    @Test
+    public void fingerprintIgnoresFormattingAndKeyOrder() {
+        final SchemaFingerprint fingerprint = SchemaFingerprint.of("{\"type\": \"object\", \"properties\": {\"a\": {\"type\": \"number\", \"maximum\": 10}}}");
+        final SchemaFingerprint reordered = SchemaFingerprint.of("{\"properties\":{\"a\":{\"maximum\":10.0,\"type\":\"number\"}},\"type\":\"object\"}");
+        final SchemaFingerprint changed = SchemaFingerprint.of("{\"type\": \"object\", \"properties\": {\"a\": {\"type\": \"number\", \"maximum\": 11}}}");
+
+        Assertions.assertThat(reordered.getValue()).isEqualTo(fingerprint.getValue());
+        Assertions.assertThat(changed.getValue()).isNotEqualTo(fingerprint.getValue());
+    }
+
+    @Test
+    public void fingerprintSubschemas() {
+        final String address = "{\"type\": \"object\", \"properties\": {\"street\": {\"type\": \"string\"}}}";
+        final SchemaFingerprint schema = SchemaFingerprint.of("{\"type\": \"object\", \"properties\": {\"address\": " + address + "}}");
+
+        final SchemaFingerprint properties = schema.getSubschemas().get(0);
+        Assertions.assertThat(properties.getSubschemas().get(0).getValue()).isEqualTo(SchemaFingerprint.of(address).getValue());
+        Assertions.assertThat(properties.getSubschemas().get(0).getSize()).isEqualTo(new JSONObject(address).toString().length());
+    }
+
+    @Test
+    public void hashCanonicalDocument() {
+        final Map<String, Object> document = new LinkedHashMap<>();
+        document.put("name", "Max");
+        document.put("age", 42);
+        document.put("tags", List.of("a", "b"));
+        final Map<String, Object> reordered = new LinkedHashMap<>();
+        reordered.put("tags", List.of("a", "b"));
+        reordered.put("age", 42);
+        reordered.put("name", "Max");
+
+        Assertions.assertThat(DocumentHash.of(reordered)).isEqualTo(DocumentHash.of(document));
+        Assertions.assertThat(DocumentHash.of(new JSONObject(document))).isEqualTo(DocumentHash.of(document));
+        Assertions.assertThat(DocumentHash.of(Map.of("name", "Max", "age", "42", "tags", List.of("a", "b")))).isNotEqualTo(DocumentHash.of(document));
+        Assertions.assertThat(DocumentHash.of(Map.of("name", "Max", "age", 42, "tags", List.of("ab")))).isNotEqualTo(DocumentHash.of(document));
+    }
+
+    @Test
+    public void cacheGsonInstance() {
+        Assertions.assertThat(JsonSchemaFactory.gson()).isSameAs(JsonSchemaFactory.gson());
+    }
+
+    @Test
+    public void reuseCompiledPatterns() {
+        final CachingRegexpFactory regexpFactory = new CachingRegexpFactory(new RE2JRegexpFactory(), 10);
+
+        final Regexp postalCode = regexpFactory.createHandler("^[0-9]{5}$");
+
+        Assertions.assertThat(regexpFactory.createHandler("^[0-9]{5}$")).isSameAs(postalCode);
+        Assertions.assertThat(postalCode.patternMatchingFailure("80331")).isEmpty();
+        Assertions.assertThat(postalCode.patternMatchingFailure("8033")).isPresent();
+        Assertions.assertThat(regexpFactory.getHits()).isEqualTo(1);
+        Assertions.assertThat(regexpFactory.getMisses()).isEqualTo(1);
+        Assertions.assertThat(regexpFactory.getHitRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    public void evictLeastRecentlyUsedPattern() {
+        final CachingRegexpFactory regexpFactory = new CachingRegexpFactory(new RE2JRegexpFactory(), 2);
+
+        final Regexp first = regexpFactory.createHandler("a");
+        regexpFactory.createHandler("b");
+        regexpFactory.createHandler("a");
+        regexpFactory.createHandler("c");
+
+        Assertions.assertThat(regexpFactory.size()).isEqualTo(2);
+        Assertions.assertThat(regexpFactory.createHandler("a")).isSameAs(first);
+        Assertions.assertThat(regexpFactory.getMisses()).isEqualTo(3);
+        regexpFactory.createHandler("b");
+        Assertions.assertThat(regexpFactory.getMisses()).isEqualTo(4);
+    }
+
+    @Test
+    public void evictLeastRecentlyUsedValuesInBatches() {
+        final BoundedCache<Integer, String> cache = new BoundedCache<>(10);
+        IntStream.range(0, 10).forEach(key -> cache.put(key, "value" + key));
+        cache.get(0);
+
+        Assertions.assertThat(cache.putIfAbsent(10, "value10")).isNull();
+
+        // a tenth of the entries is evicted at once, least recently used first
+        Assertions.assertThat(cache.size()).isEqualTo(9);
+        Assertions.assertThat(cache.get(0)).isEqualTo("value0");
+        Assertions.assertThat(cache.get(1)).isNull();
+        Assertions.assertThat(cache.get(2)).isNull();
+        Assertions.assertThat(cache.get(3, key -> "other")).isEqualTo("value3");
+        Assertions.assertThat(cache.putIfAbsent(3, "other")).isEqualTo("value3");
+    }
+
+    @Test
+    public void sharePatternsBetweenSchemas() {
+        final String schema = "{\"type\": \"object\", \"properties\": {\"plz\": {\"type\": \"string\", \"pattern\": \"^[0-9]{5}-shared$\"}}}";
+        final long hits = JsonSchemaFactory.regexpFactory().getHits();
+
+        final Schema first = JsonSchemaFactory.createSchema(new JSONObject(schema), JsonSchemaFactory.schemaClient());
+        final Schema second = JsonSchemaFactory.createSchema(new JSONObject(schema), JsonSchemaFactory.schemaClient());
+
+        Assertions.assertThat(JsonSchemaFactory.regexpFactory().getHits()).isGreaterThan(hits);
+        assertThrows(ValidationException.class, () -> first.validate(new JSONObject(Map.of("plz", "1"))));
+        second.validate(new JSONObject(Map.of("plz", "80331-shared")));
+    }
+
+    @Test
+    public void analyzeSchemaComplexity() {
+        final JSONObject rowProperties = new JSONObject();
+        IntStream.range(0, 20).forEach(index -> rowProperties.put("column" + index, new JSONObject().put("type", "string")));
+        final JSONArray options = new JSONArray();
+        IntStream.range(0, 10).forEach(index -> options.put(new JSONObject().put("const", "OPTION_" + index)));
+        final JSONObject schema = new JSONObject()
+                .put("type", "object")
+                .put("definitions", new JSONObject().put("node", new JSONObject(
+                        "{\"type\": \"object\", \"properties\": {\"children\": {\"type\": \"array\", \"items\": {\"$ref\": \"#/definitions/node\"}}}}")))
+                .put("properties", new JSONObject()
+                        .put("tree", new JSONObject().put("$ref", "#/definitions/node"))
+                        .put("select", new JSONObject().put("anyOf", options))
+                        .put("rows", new JSONObject().put("type", "array").put("items", new JSONObject().put("type", "object").put("properties", rowProperties)))
+                        .put("nested", new JSONObject("{\"allOf\": [{\"allOf\": [{\"type\": \"object\"}]}]}")));
+
+        final SchemaComplexity complexity = JsonSchemaFactory.analyze(schema, JsonLimits.DEFAULT);
+
+        Assertions.assertThat(complexity.getDepth()).isEqualTo(4);
+        Assertions.assertThat(complexity.getNodeCount()).isEqualTo(41);
+        Assertions.assertThat(complexity.getMaxFanOut()).isEqualTo(10);
+        Assertions.assertThat(complexity.getLargestIndexableUnion()).isEqualTo(10);
+        Assertions.assertThat(complexity.getEstimatedCost()).isGreaterThan(complexity.getNodeCount()).isLessThan(Long.MAX_VALUE);
+        Assertions.assertThat(complexity.getFilterStrategy()).isEqualTo(ExecutionStrategy.PARALLEL);
+        Assertions.assertThat(complexity.getValidationStrategy()).isEqualTo(ExecutionStrategy.COMPILED);
+
+        final SchemaComplexity simple = SchemaComplexity.of(new JSONObject("{\"type\": \"object\", \"properties\": {\"a\": {\"type\": \"string\"}}}"));
+        Assertions.assertThat(simple.getDepth()).isEqualTo(2);
+        Assertions.assertThat(simple.getEstimatedCost()).isEqualTo(2);
+        Assertions.assertThat(simple.getFilterStrategy()).isEqualTo(ExecutionStrategy.SEQUENTIAL);
+        Assertions.assertThat(simple.getValidationStrategy()).isEqualTo(ExecutionStrategy.SEQUENTIAL);
+    }
+
+    @Test
+    public void rejectSchemasOverBudget() {
+        final JSONObject schema = new JSONObject("{\"anyOf\": [{\"type\": \"string\"}, {\"type\": \"integer\"}, {\"type\": \"boolean\"}]}");
+        final JsonLimits limits = JsonLimits.builder().maxSchemaFanOut(2).rejectComplexSchemas(true).build();
+
+        final JsonLimitExceededException exception = assertThrows(JsonLimitExceededException.class, () -> JsonSchemaFactory.analyze(schema, limits));
+
+        Assertions.assertThat(exception.getMessage()).isEqualTo("schema combinator fan-out 3 exceeds the maximum of 2");
+        Assertions.assertThat(JsonSchemaFactory.analyze(schema, JsonLimits.builder().maxSchemaFanOut(2).build()).getMaxFanOut()).isEqualTo(3);
+    }
+
+    @Test
+    public void nameAnonymousSchemasByFingerprint() {
+        final JSONObject schema = new JSONObject("{\"anyOf\": [{\"type\": \"string\"}, {\"type\": \"integer\"}, {\"type\": \"boolean\"}]}");
+        final List<LogRecord> records = new ArrayList<>();
+        final Handler handler = new Handler() {
+            @Override
+            public void publish(final LogRecord record) {
+                records.add(record);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        final Logger logger = Logger.getLogger(JsonSchemaFactory.class.getName());
+        logger.addHandler(handler);
+        try {
+            JsonSchemaFactory.analyze(schema, JsonLimits.builder().maxSchemaFanOut(2).build());
+        } finally {
+            logger.removeHandler(handler);
+        }
+
+        Assertions.assertThat(records).hasSize(1);
+        Assertions.assertThat(records.get(0).getParameters()).containsExactly(SchemaFingerprint.of(schema).getValue(),
+                "schema combinator fan-out 3 exceeds the maximum of 2");
+    }
+}
@@ -0,0 +1,121 @@
+package io.muenchendigital.digiwf.json.migration;
+
+import io.muenchendigital.digiwf.json.serialization.JsonSerializationService;
+import io.muenchendigital.digiwf.json.serialization.serializer.JsonSerializerImpl;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class MigrationPlanTest {
+
+    private JsonSerializationService jsonSchemaSerializationService;
+
+    private MigrationPlan plan;
+
+    @BeforeEach
+    private void setUp() throws IOException, URISyntaxException {
+        this.jsonSchemaSerializationService = new JsonSerializationService(new JsonSerializerImpl());
+        this.plan = this.jsonSchemaSerializationService.getMigrationPlan(
+                this.getSchemaString("/schema/migration/v1.json"),
+                this.getSchemaString("/schema/migration/v2.json"));
+    }
+
+    @Test
+    public void diffSchemaVersions() {
+        final SchemaDiff diff = this.plan.getDiff();
+
+        Assertions.assertThat(diff.getChanges(PropertyChange.Type.RETYPED))
+                .extracting(PropertyChange::getFrom, PropertyChange::getFromType, PropertyChange::getToType)
+                .containsExactlyInAnyOrder(
+                        Assertions.tuple("/age", "string", "integer"),
+                        Assertions.tuple("/newsletter", "string", "boolean"));
+        Assertions.assertThat(diff.getChanges(PropertyChange.Type.MOVED))
+                .extracting(PropertyChange::getFrom, PropertyChange::getTo, PropertyChange::getToType)
+                .containsExactlyInAnyOrder(
+                        Assertions.tuple("/street", "/address/street", "string"),
+                        Assertions.tuple("/zip", "/address/zip", "string"));
+        Assertions.assertThat(diff.getChanges(PropertyChange.Type.REMOVED))
+                .extracting(PropertyChange::getFrom)
+                .containsExactlyInAnyOrder("/comment", "/legacy/code");
+        Assertions.assertThat(diff.getChanges(PropertyChange.Type.ADDED))
+                .extracting(PropertyChange::getTo)
+                .containsExactly("/status");
+    }
+
+    @Test
+    public void migrateDocument() {
+        final Map<String, Object> document = this.createDocument();
+
+        final Map<String, Object> migrated = this.plan.apply(document);
+
+        Assertions.assertThat(migrated).isEqualTo(Map.of(
+                "name", "Max",
+                "age", 42,
+                "address", Map.of("street", "Marienplatz", "zip", "80331"),
+                "newsletter", true,
+                "contact", Map.of("phone", "089"),
+                "status", "new",
+                "unknown", 1
+        ));
+        Assertions.assertThat(document).isEqualTo(this.createDocument());
+    }
+
+    @Test
+    public void removeValuesThatCannotBeConverted() {
+        final Map<String, Object> document = new HashMap<>(Map.of("age", "unknown", "newsletter", "maybe", "status", "done"));
+
+        Assertions.assertThat(this.plan.apply(document)).isEqualTo(Map.of("status", "done"));
+    }
+
+    @Test
+    public void migrateDocumentsInParallel() {
+        final List<Map<String, Object>> documents = IntStream.range(0, 1000)
+                .mapToObj(index -> Map.<String, Object>of("name", "name" + index, "age", String.valueOf(index)))
+                .collect(Collectors.toList());
+
+        final List<Map<String, Object>> migrated = this.plan.applyAll(documents);
+
+        Assertions.assertThat(migrated).hasSize(1000);
+        Assertions.assertThat(migrated.get(999)).isEqualTo(Map.of("name", "name999", "age", 999, "status", "new"));
+        Assertions.assertThat(this.plan.apply(documents.parallelStream()).collect(Collectors.toList())).isEqualTo(migrated);
+    }
+
+    @Test
+    public void reuseMigrationPlan() throws IOException, URISyntaxException {
+        final MigrationPlan samePlan = this.jsonSchemaSerializationService.getMigrationPlan(
+                this.getSchemaString("/schema/migration/v1.json"),
+                this.getSchemaString("/schema/migration/v2.json"));
+
+        Assertions.assertThat(samePlan).isSameAs(this.plan);
+    }
+
+    //------------------------------------ Helper Methods ------------------------------------//
+
+    private Map<String, Object> createDocument() {
+        final Map<String, Object> document = new HashMap<>();
+        document.put("name", "Max");
+        document.put("age", "42");
+        document.put("street", "Marienplatz");
+        document.put("zip", 80331);
+        document.put("comment", "obsolete");
+        document.put("newsletter", "true");
+        document.put("legacy", new HashMap<>(Map.of("code", "A1")));
+        document.put("contact", new HashMap<>(Map.of("phone", "089")));
+        document.put("unknown", 1);
+        return document;
+    }
+
+    private String getSchemaString(final String path) throws IOException, URISyntaxException {
+        return new String(Files.readAllBytes(Paths.get(this.getClass().getResource(path).toURI())));
+    }
+}
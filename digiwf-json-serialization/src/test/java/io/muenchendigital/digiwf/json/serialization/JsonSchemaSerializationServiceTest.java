@@ -1,21 +1,46 @@
 package io.muenchendigital.digiwf.json.serialization;
 
 
+import io.muenchendigital.digiwf.json.factory.JsonLimitExceededException;
+import io.muenchendigital.digiwf.json.factory.JsonLimits;
+import io.muenchendigital.digiwf.json.factory.JsonPathCache;
+import io.muenchendigital.digiwf.json.factory.JsonSchemaFactory;
+import io.muenchendigital.digiwf.json.monitoring.JsonOperationEvent;
+import io.muenchendigital.digiwf.json.monitoring.SchemaNodeCost;
+import io.muenchendigital.digiwf.json.monitoring.SchemaProfile;
+import io.muenchendigital.digiwf.json.serialization.model.CompiledSchema;
+import io.muenchendigital.digiwf.json.serialization.model.SchemaDeduplicationReport;
+import io.muenchendigital.digiwf.json.serialization.model.ValidatedData;
 import io.muenchendigital.digiwf.json.serialization.serializer.JsonSerializerImpl;
+import io.muenchendigital.digiwf.json.validation.JsonSchemaValidator;
+import com.jayway.jsonpath.InvalidPathException;
+import com.jayway.jsonpath.JsonPath;
 import org.assertj.core.api.Assertions;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.everit.json.schema.Schema;
+import org.everit.json.schema.ValidationException;
+import org.json.JSONArray;
 import org.json.JSONObject;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.io.StringReader;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class JsonSchemaSerializationServiceTest {
 
@@ -247,6 +272,40 @@ public class JsonSchemaSerializationServiceTest {
         ));
     }
 
+    @Test
+    public void mergeCopyDoesNotModifyTarget() {
+        final JSONObject source = new JSONObject(Map.of(
+                "stringProp1", "stringValue",
+                "objectProp", Map.of(
+                        "stringProp1", "test"
+                )
+        ));
+        source.put("numberProp1", JSONObject.NULL);
+
+        final JSONObject target = new JSONObject(Map.of(
+                "numberProp1", 100,
+                "booleanprop", true,
+                "objectProp", Map.of(
+                        "stringProp1", "test1",
+                        "stringProp2", "test2"
+                )
+        ));
+        final String targetString = target.toString();
+
+        final Map<String, Object> mergedData = this.jsonSchemaSerializationService.mergeCopy(source, target);
+
+        Assertions.assertThat(mergedData).isEqualTo(this.jsonSchemaSerializationService.merge(source, new JSONObject(targetString)));
+        Assertions.assertThat(mergedData).isEqualTo(Map.of(
+                "stringProp1", "stringValue",
+                "booleanprop", true,
+                "objectProp", Map.of(
+                        "stringProp1", "test",
+                        "stringProp2", "test2"
+                )
+        ));
+        Assertions.assertThat(target.toString()).isEqualTo(targetString);
+    }
+
     @Test
     public void filterAndMergeObjectData() throws IOException, URISyntaxException {
         final String rawSchema = this.getSchemaString("/schema/serialization/objectSchema.json");
@@ -289,6 +348,74 @@ public class JsonSchemaSerializationServiceTest {
         ));
     }
 
+    @Test
+    public void fusedFilterAndMergeMatchesFilterThenMerge() throws IOException, URISyntaxException {
+        final String objectSchema = this.getSchemaString("/schema/serialization/objectSchema.json");
+        final String listSchema = this.getSchemaString("/schema/serialization/listSchema.json");
+
+        this.assertFilterAndMerge(objectSchema,
+                "{\"textarea1\": \"a\", \"numberProp1\": 12, \"unknown\": 1, \"objectProp\": {\"stringProp1\": \"test\"}}",
+                "{\"numberProp1\": 100, \"other\": [1, null], \"objectProp\": {\"stringProp2\": \"old\", \"nested\": {\"a\": 1}}}");
+        // nested objects that are not in the previous data keep their null values
+        this.assertFilterAndMerge(objectSchema, "{\"stringProp1\": null}", "{\"stringProp1\": \"old\", \"textarea1\": \"old\"}");
+        // previous values that are not objects are replaced by the merged object
+        this.assertFilterAndMerge(objectSchema, "{\"objectProp\": {\"stringProp1\": \"test\"}}", "{\"objectProp\": \"text\"}");
+        this.assertFilterAndMerge(listSchema,
+                "{\"listProp\": [{\"stringProp1\": \"a\", \"numberProp1\": 1, \"x\": 2}], \"stringListProp\": [\"a\"]}",
+                "{\"listProp\": [{\"stringProp1\": \"b\"}], \"stringProp1\": \"old\"}");
+    }
+
+    @Test
+    public void fusedFilterAndMergeDoesNotModifyPreviousData() throws IOException, URISyntaxException {
+        final String rawSchema = this.getSchemaString("/schema/serialization/objectSchema.json");
+        final JSONObject previousData = new JSONObject("{\"numberProp1\": 100, \"objectProp\": {\"stringProp2\": \"old\"}}");
+        final String previousString = previousData.toString();
+
+        final Map<String, Object> mergedData = new JsonSerializerImpl().filterAndMerge(
+                this.jsonSchemaSerializationService.compile(rawSchema).getSchema(),
+                new JSONObject("{\"objectProp\": {\"stringProp1\": \"test\"}}"), previousData, true);
+
+        Assertions.assertThat(previousData.toString()).isEqualTo(previousString);
+        Assertions.assertThat(mergedData.get("numberProp1")).isEqualTo(100);
+        Assertions.assertThat(mergedData.get("objectProp")).isEqualTo(Map.of("stringProp1", "test", "stringProp2", "old"));
+    }
+
+    @Test
+    public void validateAndFilterValidData() throws IOException, URISyntaxException {
+        final String rawSchema = this.getSchemaString("/schema/validation/ifElseSchema.json");
+        final Map<String, Object> source = Map.of(
+                "booleanConditionProp", true,
+                "stringProp1", "then",
+                "stringProp2", "else",
+                "numberCondition", 12,
+                "stringProp3", "then"
+        );
+
+        final ValidatedData result = this.jsonSchemaSerializationService.validateAndFilter(rawSchema, source, true, true);
+
+        Assertions.assertThat(result.isValid()).isTrue();
+        Assertions.assertThat(result.getViolations()).isEmpty();
+        Assertions.assertThat(result.getData().toMap()).isEqualTo(this.jsonSchemaSerializationService.filter(rawSchema, source, true, true).toMap());
+        Assertions.assertThat(result.getData().toMap()).doesNotContainKey("stringProp2");
+    }
+
+    @Test
+    public void validateAndFilterInvalidData() throws IOException, URISyntaxException {
+        final String rawSchema = this.getSchemaString("/schema/validation/ifElseSchema.json");
+        final Map<String, Object> source = Map.of(
+                "booleanConditionProp", "yes",
+                "stringProp2", "else",
+                "numberCondition", 200
+        );
+
+        final ValidatedData result = this.jsonSchemaSerializationService.validateAndFilter(rawSchema, source, true);
+
+        final ValidationException expected = assertThrows(ValidationException.class, () -> new JsonSchemaValidator().validate(rawSchema, source));
+        Assertions.assertThat(result.isValid()).isFalse();
+        Assertions.assertThat(result.getMessages()).containsExactlyInAnyOrderElementsOf(expected.getAllMessages());
+        Assertions.assertThat(result.getData().toMap()).isEqualTo(this.jsonSchemaSerializationService.filter(rawSchema, source, true).toMap());
+    }
+
     @Test
     public void serializeCombinedObjectSchemaDataWithPreviousData() throws URISyntaxException, IOException {
         final String rawSchema = this.getSchemaString("/schema/serialization/objectSchema.json");
@@ -390,6 +517,174 @@ public class JsonSchemaSerializationServiceTest {
         Assertions.assertThat(this.areEqual(erg, serializedData)).isEqualTo(true);
     }
 
+    @Test
+    public void filterActiveConditionalBranches() throws URISyntaxException, IOException {
+        final String rawSchema = this.getSchemaString("/schema/validation/ifElseSchema.json");
+
+        final Map<String, Object> source = Map.of(
+                "booleanConditionProp", true,
+                "stringProp1", "then",
+                "stringProp2", "else",
+                "numberCondition", 20,
+                "stringProp3", "then"
+        );
+
+        final JSONObject filteredData = this.jsonSchemaSerializationService.filter(rawSchema, source, true, true);
+
+        Assertions.assertThat(filteredData.toMap()).isEqualTo(Map.of(
+                "booleanConditionProp", true,
+                "stringProp1", "then",
+                "numberCondition", 20
+        ));
+    }
+
+    @Test
+    public void filterAndMergeActiveConditionalBranches() throws URISyntaxException, IOException {
+        final String rawSchema = this.getSchemaString("/schema/validation/ifElseSchema.json");
+
+        final Map<String, Object> source = Map.of(
+                "booleanConditionProp", true,
+                "stringProp1", "then",
+                "stringProp2", "else"
+        );
+
+        final Map<String, Object> mergedData = this.jsonSchemaSerializationService.filterAndMerge(rawSchema, source, Map.of("previousProp", 1), true, true);
+
+        Assertions.assertThat(mergedData).isEqualTo(Map.of(
+                "booleanConditionProp", true,
+                "stringProp1", "then",
+                "previousProp", 1
+        ));
+    }
+
+    @Test
+    public void filterElseBranchOfCondition() throws URISyntaxException, IOException {
+        final String rawSchema = this.getSchemaString("/schema/validation/ifElseSchema.json");
+
+        final Map<String, Object> source = Map.of(
+                "booleanConditionProp", false,
+                "stringProp1", "then",
+                "stringProp2", "else",
+                "numberCondition", 10,
+                "stringProp3", "then"
+        );
+
+        final JSONObject filteredData = this.jsonSchemaSerializationService.filter(rawSchema, source, true, true);
+
+        Assertions.assertThat(filteredData.toMap()).isEqualTo(Map.of(
+                "booleanConditionProp", false,
+                "stringProp2", "else",
+                "numberCondition", 10,
+                "stringProp3", "then"
+        ));
+    }
+
+    @Test
+    public void filterListItems() throws URISyntaxException, IOException {
+        final String rawSchema = this.getSchemaString("/schema/serialization/listSchema.json");
+
+        final Map<String, Object> source = Map.of(
+                "stringProp1", "stringValue",
+                "listProp", List.of(
+                        Map.of("stringProp1", "row1", "numberProp1", 1, "unknownProp", "x"),
+                        Map.of("stringProp1", "row2", "numberProp1", 2)
+                ),
+                "stringListProp", List.of("a", "b")
+        );
+
+        final JSONObject filteredData = this.jsonSchemaSerializationService.filter(rawSchema, source, true);
+
+        Assertions.assertThat(filteredData.toMap()).isEqualTo(Map.of(
+                "stringProp1", "stringValue",
+                "listProp", List.of(
+                        Map.of("stringProp1", "row1"),
+                        Map.of("stringProp1", "row2")
+                ),
+                "stringListProp", List.of("a", "b")
+        ));
+    }
+
+    @Test
+    public void filterLargeListInParallel() throws URISyntaxException, IOException {
+        final JsonSerializationService service = new JsonSerializationService(new JsonSerializerImpl(10));
+        final String rawSchema = this.getSchemaString("/schema/serialization/listSchema.json");
+
+        final List<Map<String, Object>> rows = IntStream.range(0, 500)
+                .mapToObj(index -> Map.<String, Object>of("stringProp1", "row" + index, "numberProp1", index))
+                .collect(Collectors.toList());
+
+        final JSONObject filteredData = service.filter(rawSchema, Map.of("listProp", rows), true);
+
+        final JSONArray filteredRows = filteredData.getJSONArray("listProp");
+        Assertions.assertThat(filteredRows.length()).isEqualTo(500);
+        for (int index = 0; index < filteredRows.length(); index++) {
+            Assertions.assertThat(filteredRows.getJSONObject(index).toMap()).isEqualTo(Map.of("stringProp1", "row" + index));
+        }
+    }
+
+    @Test
+    public void filterJsonWhileReading() throws URISyntaxException, IOException {
+        final String rawSchema = this.getSchemaString("/schema/serialization/objectSchema.json");
+
+        final Map<String, Object> source = Map.of(
+                "textarea1", "textAreaValue",
+                "booleanprop", true,
+                "numberProp1", 12,
+                "unknownProp", Map.of("nested", List.of(1, 2, Map.of("deep", true))),
+                "objectProp", Map.of(
+                        "stringProp1", "test",
+                        "unknownProp", "test"
+                )
+        );
+
+        final Map<String, Object> filteredData = this.jsonSchemaSerializationService.filter(rawSchema, new StringReader(new JSONObject(source).toString()), true);
+
+        Assertions.assertThat(filteredData).isEqualTo(this.jsonSchemaSerializationService.filter(rawSchema, source, true).toMap());
+    }
+
+    @Test
+    public void filterJsonListItemsWhileReading() throws URISyntaxException, IOException {
+        final String rawSchema = this.getSchemaString("/schema/serialization/listSchema.json");
+
+        final Map<String, Object> source = Map.of(
+                "listProp", List.of(
+                        Map.of("stringProp1", "row1", "numberProp1", 1, "unknownProp", "x"),
+                        Map.of("numberProp1", 2)
+                ),
+                "stringListProp", List.of("a", "b")
+        );
+
+        final Map<String, Object> filteredData = this.jsonSchemaSerializationService.filter(rawSchema, new StringReader(new JSONObject(source).toString()), true);
+
+        Assertions.assertThat(filteredData).isEqualTo(this.jsonSchemaSerializationService.filter(rawSchema, source, true).toMap());
+    }
+
+    @Test
+    public void filterJsonWithLimits() throws URISyntaxException, IOException {
+        final JsonSerializationService service = new JsonSerializationService(new JsonSerializerImpl(), JsonLimits.builder().maxDepth(5).build());
+        final String rawSchema = this.getSchemaString("/schema/serialization/objectSchema.json");
+        final String json = "{\"textarea1\":" + "[".repeat(10_000) + "]".repeat(10_000) + "}";
+
+        assertThrows(JsonLimitExceededException.class, () -> service.filter(rawSchema, new StringReader(json), true));
+    }
+
+    @Test
+    public void limitFilterDepthOnlyIfConfigured() {
+        final JSONObject nameProperty = new JSONObject(Map.of("type", "string"));
+        JSONObject rawSchema = new JSONObject(Map.of("type", "object", "properties", Map.of("name", nameProperty)));
+        JSONObject data = new JSONObject(Map.of("name", "leaf"));
+        for (int i = 0; i < 20; i++) {
+            rawSchema = new JSONObject(Map.of("type", "object", "properties", Map.of("name", nameProperty, "child", rawSchema)));
+            data = new JSONObject(Map.of("name", "node" + i, "child", data));
+        }
+        final Schema schema = JsonSerializationService.createSchema(rawSchema);
+        final JSONObject deepData = data;
+
+        Assertions.assertThat(new JsonSerializerImpl().filter(schema, deepData, true).similar(deepData)).isTrue();
+        assertThrows(JsonLimitExceededException.class, () -> new JsonSerializerImpl(JsonSerializerImpl.DEFAULT_PARALLEL_ARRAY_THRESHOLD, 10)
+                .filter(schema, deepData, true));
+    }
+
     @Test
     public void generateObjectStructure() {
         final JSONObject object = this.jsonSchemaSerializationService.generateValue("#/antragsdaten/datumAntragstellung/stringProp1", "testValue");
@@ -417,6 +712,46 @@ public class JsonSchemaSerializationServiceTest {
         assertNull(value);
     }
 
+    @Test
+    public void extractValuesWithJsonPath() {
+        final Map<String, Object> data = JsonSchemaFactory.gson().fromJson(
+                "{\"antragsdaten\": {\"name\": \"Max\", \"positionen\": ["
+                        + "{\"bezeichnung\": \"a\", \"betrag\": 5},"
+                        + "{\"bezeichnung\": \"b\", \"betrag\": 15},"
+                        + "{\"bezeichnung\": \"c\", \"betrag\": 25.5}]}}",
+                JsonSchemaFactory.mapType());
+
+        Assertions.assertThat(this.jsonSchemaSerializationService.extractValues(data, "$.antragsdaten.name")).isEqualTo("Max");
+        Assertions.assertThat(this.jsonSchemaSerializationService.extractValues(data, "$.antragsdaten.positionen[*].bezeichnung"))
+                .isEqualTo(List.of("a", "b", "c"));
+        Assertions.assertThat(this.jsonSchemaSerializationService.extractValues(data, "$.antragsdaten.positionen[?(@.betrag > 10)].bezeichnung"))
+                .isEqualTo(List.of("b", "c"));
+        Assertions.assertThat(this.jsonSchemaSerializationService.extractValues(data, "$..positionen[0:2].betrag"))
+                .isEqualTo(List.of(5, 15));
+    }
+
+    @Test
+    public void extractMissingValuesWithJsonPath() {
+        final Map<String, Object> data = Map.of("antragsdaten", Map.of("name", "Max"));
+
+        Assertions.assertThat(this.jsonSchemaSerializationService.extractValues(data, "$.antragsdaten.strasse")).isNull();
+        Assertions.assertThat(this.jsonSchemaSerializationService.extractValues(data, "$.antragsdaten.positionen[*].betrag")).isEqualTo(List.of());
+        assertThrows(InvalidPathException.class, () -> this.jsonSchemaSerializationService.extractValues(data, "$.antragsdaten[?(@.name ==)]"));
+    }
+
+    @Test
+    public void cacheCompiledJsonPaths() {
+        final JsonPathCache cache = new JsonPathCache(2);
+
+        final JsonPath path = cache.get("$.a");
+
+        Assertions.assertThat(cache.get("$.a")).isSameAs(path);
+        cache.get("$.b");
+        cache.get("$.c");
+        Assertions.assertThat(cache.size()).isEqualTo(2);
+        Assertions.assertThat(cache.get("$.a")).isNotSameAs(path);
+    }
+
     @Test
     public void initalizeAndMergeObjectSchema() throws URISyntaxException, IOException {
         final String rawSchema = this.getSchemaString("/schema/serialization/objectSchema.json");
@@ -459,12 +794,183 @@ public class JsonSchemaSerializationServiceTest {
         ));
     }
 
+    @Test
+    public void initializeReturnsIndependentInstances() throws URISyntaxException, IOException {
+        final String rawSchema = this.getSchemaString("/schema/serialization/simpleSchema.json");
+
+        final JSONObject first = this.jsonSchemaSerializationService.initialize(rawSchema);
+        first.put("stringProp1", "changed");
+        final JSONObject second = this.jsonSchemaSerializationService.initialize(rawSchema);
+
+        Assertions.assertThat(second.get("stringProp1")).isEqualTo("");
+    }
+
+    @Test
+    public void initializeNestedSchemaWithDefaultValues() throws URISyntaxException, IOException {
+        final String rawSchema = this.getSchemaString("/schema/serialization/defaultValuesSchema.json");
+
+        final JSONObject initializedObject = this.jsonSchemaSerializationService.initialize(rawSchema);
+
+        Assertions.assertThat(initializedObject.toMap()).isEqualTo(Map.of(
+                "stringProp1", "defaultValue",
+                "stringProp2", "",
+                "constProp", "constValue",
+                "listProp", List.of(),
+                "objectProp", Map.of(
+                        "numberProp1", 10,
+                        "booleanProp1", ""
+                )
+        ));
+    }
+
+    @Test
+    public void compileCachesSchema() throws URISyntaxException, IOException {
+        final String rawSchema = this.getSchemaString("/schema/serialization/objectSchema.json");
+
+        final CompiledSchema compiledSchema = this.jsonSchemaSerializationService.compile(rawSchema);
+
+        Assertions.assertThat(this.jsonSchemaSerializationService.compile(rawSchema)).isSameAs(compiledSchema);
+        Assertions.assertThat(compiledSchema.getRootKeys()).containsExactlyInAnyOrder(
+                "stringProp1", "numberProp1", "textarea1", "booleanprop", "dateprop", "objectProp");
+    }
+
+    @Test
+    public void compileSharesSchemasWithSameFingerprint() throws URISyntaxException, IOException {
+        final JsonSerializationService service = new JsonSerializationService(new JsonSerializerImpl());
+        final String rawSchema = this.getSchemaString("/schema/serialization/objectSchema.json");
+        final String formattedSchema = new JSONObject(rawSchema).toString(2);
+
+        final CompiledSchema compiledSchema = service.compile(rawSchema);
+
+        Assertions.assertThat(service.compile(formattedSchema)).isSameAs(compiledSchema);
+        final SchemaDeduplicationReport report = service.getDeduplicationReport();
+        Assertions.assertThat(report.getSchemas()).isEqualTo(2);
+        Assertions.assertThat(report.getDistinctSchemas()).isEqualTo(1);
+        // the second schema is a complete duplicate
+        Assertions.assertThat(report.getDuplicateRatio()).isGreaterThanOrEqualTo(0.5);
+    }
+
+    @Test
+    public void compileSchemaMapsOnce() throws URISyntaxException, IOException {
+        final JsonSerializationService service = new JsonSerializationService(new JsonSerializerImpl());
+        final Map<String, Object> schema = new JSONObject(this.getSchemaString("/schema/serialization/objectSchema.json")).toMap();
+
+        service.filter(schema, Map.of("stringProp1", "value"), true);
+        final JSONObject filteredData = service.filter(schema, Map.of("stringProp1", "value", "unknownProp", 1), true);
+
+        Assertions.assertThat(filteredData.toMap()).containsEntry("stringProp1", "value").doesNotContainKey("unknownProp");
+        Assertions.assertThat(service.getDeduplicationReport().getDistinctSchemas()).isEqualTo(1);
+    }
+
+    @Test
+    public void reportSharedSubschemas() {
+        final JsonSerializationService service = new JsonSerializationService(new JsonSerializerImpl());
+        final JSONObject address = new JSONObject(Map.of("type", "object", "properties", Map.of("street", Map.of("type", "string"))));
+
+        service.compile(new JSONObject(Map.of("type", "object", "properties", Map.of("address", address))).toString());
+        service.compile(new JSONObject(Map.of("type", "object", "properties", Map.of("address", address, "name", Map.of("type", "string")))).toString());
+
+        final SchemaDeduplicationReport report = service.getDeduplicationReport();
+        Assertions.assertThat(report.getDistinctSchemas()).isEqualTo(2);
+        // the address block and the string property {"type":"string"} of the second schema are already known
+        Assertions.assertThat(report.getDuplicateBytes()).isEqualTo(address.toString().length() + "{\"type\":\"string\"}".length());
+    }
+
+    @Test
+    public void recordFlightRecorderEvents() throws URISyntaxException, IOException {
+        final String rawSchema = this.getSchemaString("/schema/serialization/simpleSchema.json");
+        final Map<String, Object> data = Map.of("stringProp1", "stringValue", "numberProp1", 12);
+        final Path file = Files.createTempFile("json-operations", ".jfr");
+
+        try (final Recording recording = new Recording()) {
+            recording.enable(JsonOperationEvent.class);
+            recording.start();
+            final JSONObject filteredData = this.jsonSchemaSerializationService.filter(rawSchema, data, true);
+            this.jsonSchemaSerializationService.mergeCopy(filteredData, new JSONObject());
+            new JsonSchemaValidator().validate(rawSchema, data);
+            recording.stop();
+            recording.dump(file);
+        }
+        final List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+
+        Assertions.assertThat(events)
+                .extracting(event -> event.getString("component"), event -> event.getString("operation"))
+                .containsExactlyInAnyOrder(
+                        Assertions.tuple("service", "compile"),
+                        Assertions.tuple("service", "filter"),
+                        Assertions.tuple("service", "mergeCopy"),
+                        Assertions.tuple("validator", "compile"),
+                        Assertions.tuple("validator", "validate"));
+        final RecordedEvent filter = events.stream()
+                .filter(event -> "service".equals(event.getString("component")) && "filter".equals(event.getString("operation")))
+                .findFirst()
+                .orElseThrow();
+        Assertions.assertThat(filter.getString("schemaHash")).isEqualTo(this.jsonSchemaSerializationService.compile(rawSchema).getFingerprint());
+        Assertions.assertThat(filter.getLong("nodeCount")).isEqualTo(3);
+        Assertions.assertThat(filter.getLong("payloadSize")).isEqualTo(new JSONObject(data).toString().length());
+    }
+
+    @Test
+    public void recordFailedOperations() throws URISyntaxException, IOException {
+        final String rawSchema = this.getSchemaString("/schema/serialization/simpleSchema.json");
+        final Path file = Files.createTempFile("json-operations", ".jfr");
+
+        try (final Recording recording = new Recording()) {
+            recording.enable(JsonOperationEvent.class);
+            recording.start();
+            this.jsonSchemaSerializationService.compile(rawSchema);
+            Assertions.assertThatThrownBy(() -> this.jsonSchemaSerializationService.filter(rawSchema, new StringReader("{\"stringProp1\": "), true))
+                    .isInstanceOf(RuntimeException.class);
+            this.jsonSchemaSerializationService.filter(rawSchema, Map.of("stringProp1", "stringValue"), true);
+            recording.stop();
+            recording.dump(file);
+        }
+        final List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+
+        Assertions.assertThat(events)
+                .extracting(event -> event.getString("operation"), event -> event.getString("failure") != null)
+                .containsExactlyInAnyOrder(
+                        Assertions.tuple("compile", false),
+                        Assertions.tuple("filterStream", true),
+                        Assertions.tuple("filter", false));
+    }
+
+    @Test
+    public void explainFilter() throws URISyntaxException, IOException {
+        final Schema schema = JsonSerializationService.createSchema(this.getSchemaString("/schema/serialization/listSchema.json"));
+        final List<Map<String, Object>> items = IntStream.range(0, 5)
+                .mapToObj(index -> Map.<String, Object>of("stringProp1", "value" + index, "numberProp1", index))
+                .collect(Collectors.toList());
+
+        final SchemaProfile profile = new JsonSerializerImpl().explainFilter(schema, new JSONObject(Map.of("listProp", items)), true, false);
+
+        Assertions.assertThat(profile.getNodes("#")).extracting(SchemaNodeCost::getKeyword, SchemaNodeCost::getInvocations)
+                .containsExactly(Assertions.tuple("object", 1L));
+        Assertions.assertThat(profile.getNodes("#/properties/listProp")).extracting(SchemaNodeCost::getKeyword, SchemaNodeCost::getInvocations)
+                .containsExactly(Assertions.tuple("array", 1L));
+        Assertions.assertThat(profile.getNodes("#/properties/listProp/items")).extracting(SchemaNodeCost::getKeyword, SchemaNodeCost::getInvocations)
+                .containsExactly(Assertions.tuple("object", 5L));
+        Assertions.assertThat(profile.getTop(1)).containsExactly(profile.getNodes().get(0));
+    }
+
     //------------------------------------ Helper Methods ------------------------------------//
 
     private String getSchemaString(final String path) throws IOException, URISyntaxException {
         return new String(Files.readAllBytes(Paths.get(this.getClass().getResource(path).toURI())));
     }
 
+    private void assertFilterAndMerge(final String schema, final String data, final String previousData) {
+        final Map<String, Object> dataMap = new JSONObject(data).toMap();
+        final Map<String, Object> previousDataMap = new JSONObject(previousData).toMap();
+
+        final JSONObject filteredData = this.jsonSchemaSerializationService.filter(schema, dataMap, true);
+        final Map<String, Object> expected = this.jsonSchemaSerializationService.merge(filteredData, new JSONObject(previousDataMap));
+
+        Assertions.assertThat(this.jsonSchemaSerializationService.filterAndMerge(schema, dataMap, previousDataMap, true)).isEqualTo(expected);
+    }
+
     private boolean areEqual(final Map<String, Object> first, final Map<String, Object> second) {
         if (first.size() != second.size()) {
             return false;
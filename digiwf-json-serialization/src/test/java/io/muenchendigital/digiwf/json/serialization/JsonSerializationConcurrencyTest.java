@@ -0,0 +1,208 @@
+package io.muenchendigital.digiwf.json.serialization;
+
+import io.muenchendigital.digiwf.json.factory.JsonLimits;
+import io.muenchendigital.digiwf.json.factory.JsonSchemaFactory;
+import io.muenchendigital.digiwf.json.factory.SchemaFingerprint;
+import io.muenchendigital.digiwf.json.serialization.model.CompiledSchema;
+import io.muenchendigital.digiwf.json.serialization.serializer.JsonSerializerImpl;
+import io.muenchendigital.digiwf.json.validation.JsonSchemaValidator;
+import org.assertj.core.api.Assertions;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Stress tests that share a single serialization service, serializer and validator between many threads.
+ */
+public class JsonSerializationConcurrencyTest {
+
+    private static final int THREADS = 64;
+    private static final int ITERATIONS = 200;
+
+    private JsonSerializationService jsonSchemaSerializationService;
+    private JsonSchemaValidator validator;
+
+    @BeforeEach
+    private void setUp() {
+        this.jsonSchemaSerializationService = new JsonSerializationService(new JsonSerializerImpl());
+        this.validator = new JsonSchemaValidator();
+    }
+
+    @Test
+    public void compileSchemaConcurrently() throws Exception {
+        final String rawSchema = this.getSchemaString("/schema/serialization/objectSchema.json");
+        final Set<CompiledSchema> compiledSchemas = ConcurrentHashMap.newKeySet();
+
+        this.runConcurrently(() -> {
+            compiledSchemas.add(this.jsonSchemaSerializationService.compile(rawSchema));
+            return null;
+        });
+
+        Assertions.assertThat(compiledSchemas).hasSize(1);
+    }
+
+    @Test
+    public void compileSchemaOnceForConcurrentRequests() throws Exception {
+        final String rawSchema = this.getSchemaString("/schema/serialization/objectSchema.json");
+        final Set<CompiledSchema> compiledSchemas = ConcurrentHashMap.newKeySet();
+
+        this.runConcurrently(() -> {
+            compiledSchemas.add(this.jsonSchemaSerializationService.compileAsync(rawSchema).get(60, TimeUnit.SECONDS));
+            compiledSchemas.add(this.jsonSchemaSerializationService.compile(rawSchema));
+            return null;
+        });
+
+        Assertions.assertThat(compiledSchemas).hasSize(1);
+        // the schema was fingerprinted and compiled by a single caller
+        Assertions.assertThat(this.jsonSchemaSerializationService.getDeduplicationReport().getTotalBytes())
+                .isEqualTo(SchemaFingerprint.of(rawSchema).getSize());
+    }
+
+    @Test
+    public void retryRejectedCompilation() throws Exception {
+        final String rawSchema = this.getSchemaString("/schema/serialization/objectSchema.json");
+        final JsonSerializationService service = new JsonSerializationService(new JsonSerializerImpl(), JsonLimits.DEFAULT,
+                JsonSchemaFactory.schemaClient(), runnable -> {
+            throw new RejectedExecutionException("queue is full");
+        });
+
+        final CompletableFuture<CompiledSchema> future = service.compileAsync(rawSchema);
+
+        final ExecutionException exception = assertThrows(ExecutionException.class, future::get);
+        Assertions.assertThat(exception.getCause()).isInstanceOf(RejectedExecutionException.class);
+        Assertions.assertThat(service.compile(rawSchema).getSchema()).isNotNull();
+        Assertions.assertThat(service.compileAsync(rawSchema).get()).isSameAs(service.compile(rawSchema));
+    }
+
+    @Test
+    public void filterAndMergeWithSharedPreviousData() throws Exception {
+        final String rawSchema = this.getSchemaString("/schema/serialization/objectSchema.json");
+        final JSONObject previousData = new JSONObject(Map.of(
+                "numberProp1", 100,
+                "objectProp", Map.of("stringProp2", "previous")
+        ));
+        final String previousDataString = previousData.toString();
+
+        final List<Map<String, Object>> results = this.runConcurrently(() -> {
+            final Map<String, Object> source = Map.of(
+                    "stringProp1", "stringValue",
+                    "numberProp1", 12,
+                    "objectProp", Map.of("stringProp1", "test")
+            );
+            final JSONObject filteredData = this.jsonSchemaSerializationService.filter(rawSchema, source, true);
+            return this.jsonSchemaSerializationService.mergeCopy(filteredData, previousData);
+        });
+
+        final Map<String, Object> expected = this.jsonSchemaSerializationService.mergeCopy(
+                this.jsonSchemaSerializationService.filter(rawSchema, Map.of(
+                        "stringProp1", "stringValue",
+                        "objectProp", Map.of("stringProp1", "test")
+                ), true),
+                previousData);
+        Assertions.assertThat(results).allMatch(expected::equals);
+        Assertions.assertThat(previousData.toString()).isEqualTo(previousDataString);
+    }
+
+    @Test
+    public void initializeConcurrently() throws Exception {
+        final String rawSchema = this.getSchemaString("/schema/serialization/objectSchema.json");
+
+        final List<Map<String, Object>> results = this.runConcurrently(() -> {
+            final JSONObject instance = this.jsonSchemaSerializationService.initialize(rawSchema);
+            final Map<String, Object> result = instance.toMap();
+            // modifying an instance must not affect other threads
+            instance.put("stringProp1", Thread.currentThread().getName());
+            return result;
+        });
+
+        final Map<String, Object> expected = this.jsonSchemaSerializationService.initialize(rawSchema).toMap();
+        Assertions.assertThat(results).allMatch(expected::equals);
+    }
+
+    @Test
+    public void validateConcurrently() throws Exception {
+        final String rawSchema = this.getSchemaString("/schema/validation/simpleSchema.json");
+
+        this.runConcurrently(() -> {
+            this.validator.validate(rawSchema, Map.of(
+                    "numberProp1", 12,
+                    "stringProp1", "fdsfsdafsdafadsfsadfsdafd"
+            ));
+            return null;
+        });
+    }
+
+    @Test
+    public void loadValidationSchemaOnceForConcurrentRequests() throws Exception {
+        final AtomicInteger loads = new AtomicInteger();
+        final JsonSchemaValidator validator = new JsonSchemaValidator(JsonLimits.DEFAULT, url -> {
+            loads.incrementAndGet();
+            return new ByteArrayInputStream("{\"type\": \"string\"}".getBytes(StandardCharsets.UTF_8));
+        });
+        final String schema = "{\"type\": \"object\", \"properties\": {\"name\": {\"$ref\": \"https://example.com/schemas/name.json#\"}}}";
+
+        this.runConcurrently(() -> {
+            validator.validate(schema, Map.of("name", "abc"));
+            return null;
+        });
+
+        Assertions.assertThat(loads).hasValue(1);
+    }
+
+    //------------------------------------ Helper Methods ------------------------------------//
+
+    private <T> List<T> runConcurrently(final Callable<T> task) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        try {
+            final List<Future<List<T>>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    final List<T> results = new ArrayList<>();
+                    for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+                        results.add(task.call());
+                    }
+                    return results;
+                }));
+            }
+            start.countDown();
+
+            final List<T> results = new ArrayList<>();
+            for (final Future<List<T>> future : futures) {
+                results.addAll(future.get(60, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private String getSchemaString(final String path) throws IOException, URISyntaxException {
+        return new String(Files.readAllBytes(Paths.get(this.getClass().getResource(path).toURI())));
+    }
+}
@@ -0,0 +1,250 @@
+package io.muenchendigital.digiwf.json.serialization.serializer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.gson.JsonParser;
+import io.muenchendigital.digiwf.json.serialization.JsonSerializationService;
+import io.muenchendigital.digiwf.json.serialization.model.JsonPointer;
+import io.muenchendigital.digiwf.json.serialization.serializer.tree.GsonJsonTree;
+import io.muenchendigital.digiwf.json.serialization.serializer.tree.JacksonJsonTree;
+import io.muenchendigital.digiwf.json.serialization.serializer.tree.OrgJsonTree;
+import lombok.RequiredArgsConstructor;
+import org.assertj.core.api.Assertions;
+import org.everit.json.schema.Schema;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+public class JsonTreeSerializerTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private JsonSerializerImpl serializer;
+
+    @BeforeEach
+    private void setUp() {
+        this.serializer = new JsonSerializerImpl();
+    }
+
+    @Test
+    public void filterObjectsOnAllTrees() throws URISyntaxException, IOException {
+        final Schema schema = JsonSerializationService.createSchema(this.getSchemaString("/schema/serialization/objectSchema.json"));
+        final String data = "{\"stringProp1\": \"value\", \"numberProp1\": 12, \"unknownProp\": 1, \"objectProp\": {\"stringProp1\": \"nested\", \"unknownProp\": 1}}";
+
+        final Map<String, Object> expected = this.serializer.filter(schema, new JSONObject(data), true).toMap();
+
+        this.assertFilterOnAllTrees(schema, data, false, expected);
+    }
+
+    @Test
+    public void filterListItemsOnAllTrees() throws URISyntaxException, IOException {
+        final Schema schema = JsonSerializationService.createSchema(this.getSchemaString("/schema/serialization/listSchema.json"));
+        final String data = "{\"stringProp1\": \"value\", \"listProp\": [{\"stringProp1\": \"row1\", \"numberProp1\": 1, \"unknownProp\": \"x\"}], \"stringListProp\": [\"a\", \"b\"]}";
+
+        final Map<String, Object> expected = this.serializer.filter(schema, new JSONObject(data), true).toMap();
+
+        Assertions.assertThat(expected.get("listProp")).isEqualTo(List.of(Map.of("stringProp1", "row1")));
+        this.assertFilterOnAllTrees(schema, data, false, expected);
+    }
+
+    @Test
+    public void filterConditionsOnAllTrees() throws URISyntaxException, IOException {
+        final Schema schema = JsonSerializationService.createSchema(this.getSchemaString("/schema/validation/ifElseSchema.json"));
+        final String data = "{\"booleanConditionProp\": true, \"stringProp1\": \"then\", \"stringProp2\": \"else\", \"numberCondition\": 20, \"stringProp3\": \"then\"}";
+
+        final Map<String, Object> expected = this.serializer.filter(schema, new JSONObject(data), true, true).toMap();
+
+        Assertions.assertThat(expected).containsOnlyKeys("booleanConditionProp", "stringProp1", "numberCondition");
+        this.assertFilterOnAllTrees(schema, data, true, expected);
+    }
+
+    @Test
+    public void filterConditionsByDefault() throws URISyntaxException, IOException {
+        final Schema schema = JsonSerializationService.createSchema(this.getSchemaString("/schema/validation/ifElseSchema.json"));
+        final JSONObject data = new JSONObject("{\"booleanConditionProp\": true, \"stringProp1\": \"then\", \"stringProp2\": \"else\"}");
+
+        final JSONObject filtered = new DelegatingSerializer(this.serializer).filter(schema, data, true, true);
+
+        Assertions.assertThat(filtered.toMap()).isEqualTo(this.serializer.filter(schema, data, true, true).toMap());
+    }
+
+    @Test
+    public void mergeOnAllTrees() {
+        final String target = "{\"a\": 1, \"b\": \"old\", \"nested\": {\"c\": true, \"d\": \"old\"}, \"removed\": \"old\"}";
+        final String source = "{\"b\": \"new\", \"nested\": {\"d\": \"new\"}, \"removed\": null, \"added\": [1, 2]}";
+
+        final Map<String, Object> expected = this.serializer.mergeCopy(new JSONObject(source), new JSONObject(target));
+
+        this.assertMerge(this.serializer.forTree(new OrgJsonTree()), JSONObject::new, source, target, expected);
+        this.assertMerge(this.serializer.forTree(new JacksonJsonTree()), this::readJackson, source, target, expected);
+        this.assertMerge(this.serializer.forTree(new GsonJsonTree()), JsonParser::parseString, source, target, expected);
+    }
+
+    @Test
+    public void mergeCopyDoesNotModifyTarget() {
+        final JsonTreeSerializer<Object> treeSerializer = this.serializer.forTree(new OrgJsonTree());
+        final JSONObject target = new JSONObject("{\"a\": 1, \"nested\": {\"c\": true}}");
+
+        treeSerializer.mergeCopy(new JSONObject("{\"a\": 2, \"nested\": {\"c\": null}}"), target);
+
+        Assertions.assertThat(target.toMap()).isEqualTo(Map.of("a", 1, "nested", Map.of("c", true)));
+    }
+
+    @Test
+    public void filterAndMergeOnAllTrees() throws URISyntaxException, IOException {
+        final Schema schema = JsonSerializationService.createSchema(this.getSchemaString("/schema/serialization/objectSchema.json"));
+        final String data = "{\"stringProp1\": \"new\", \"unknownProp\": 1, \"objectProp\": {\"stringProp1\": \"nested\", \"unknownProp\": 1}}";
+        final String previous = "{\"stringProp1\": \"old\", \"numberProp1\": 12, \"previousProp\": true, \"objectProp\": {\"previousProp\": \"old\"}}";
+
+        final Map<String, Object> expected = this.serializer.mergeCopy(this.serializer.filter(schema, new JSONObject(data), true), new JSONObject(previous));
+
+        Assertions.assertThat(this.serializer.filterAndMerge(schema, new JSONObject(data), new JSONObject(previous), true)).isEqualTo(expected);
+        this.assertFilterAndMerge(this.serializer.forTree(new OrgJsonTree()), JSONObject::new, schema, data, previous, expected);
+        this.assertFilterAndMerge(this.serializer.forTree(new JacksonJsonTree()), this::readJackson, schema, data, previous, expected);
+        this.assertFilterAndMerge(this.serializer.forTree(new GsonJsonTree()), JsonParser::parseString, schema, data, previous, expected);
+    }
+
+    @Test
+    public void extractValueOnAllTrees() {
+        final String data = "{\"nested\": {\"list\": [{\"value\": \"found\"}]}}";
+
+        this.assertExtract(this.serializer.forTree(new OrgJsonTree()), new JSONObject(data));
+        this.assertExtract(this.serializer.forTree(new JacksonJsonTree()), this.readJackson(data));
+        this.assertExtract(this.serializer.forTree(new GsonJsonTree()), JsonParser.parseString(data));
+    }
+
+    @Test
+    public void convertObjectOnceForAllConditions() {
+        final Schema schema = JsonSerializationService.createSchema("{\"type\": \"object\", \"allOf\": ["
+                + "{\"if\": {\"minProperties\": 1}, \"then\": {\"properties\": {\"a\": {\"type\": \"string\"}}}},"
+                + "{\"if\": {\"minProperties\": 2}, \"then\": {\"properties\": {\"b\": {\"type\": \"string\"}}}}]}");
+        final AtomicInteger conversions = new AtomicInteger();
+        final JacksonJsonTree tree = new JacksonJsonTree() {
+            @Override
+            public Object toJson(final JsonNode node) {
+                // values of the object are converted recursively
+                if (node.isObject()) {
+                    conversions.incrementAndGet();
+                }
+                return super.toJson(node);
+            }
+        };
+
+        final JsonNode result = this.serializer.forTree(tree).filter(schema, this.readJackson("{\"a\": \"x\", \"b\": \"y\", \"c\": \"z\"}"), false, true);
+
+        Assertions.assertThat(conversions.get()).isEqualTo(1);
+        Assertions.assertThat(result.has("a")).isTrue();
+        Assertions.assertThat(result.has("b")).isTrue();
+        Assertions.assertThat(result.has("c")).isFalse();
+    }
+
+    //------------------------------------ Helper Methods ------------------------------------//
+
+    private <N> void assertExtract(final JsonTreeSerializer<N> treeSerializer, final N data) {
+        final N value = treeSerializer.extractValue(data, new JsonPointer("/nested/list/0/value"));
+
+        Assertions.assertThat(treeSerializer.getTree().toJson(value)).isEqualTo("found");
+        Assertions.assertThat(treeSerializer.extractValue(data, new JsonPointer("/nested/missing/value"))).isNull();
+    }
+
+    private void assertFilterOnAllTrees(final Schema schema, final String data, final boolean evaluateConditions, final Map<String, Object> expected) {
+        this.assertFilter(this.serializer.forTree(new OrgJsonTree()), new JSONObject(data), schema, evaluateConditions, expected);
+        this.assertFilter(this.serializer.forTree(new JacksonJsonTree()), this.readJackson(data), schema, evaluateConditions, expected);
+        this.assertFilter(this.serializer.forTree(new GsonJsonTree()), JsonParser.parseString(data), schema, evaluateConditions, expected);
+    }
+
+    private <N> void assertFilter(final JsonTreeSerializer<N> treeSerializer, final N data, final Schema schema, final boolean evaluateConditions,
+                                  final Map<String, Object> expected) {
+        final N result = treeSerializer.filter(schema, data, true, evaluateConditions);
+
+        Assertions.assertThat(this.toMap(treeSerializer, result)).isEqualTo(expected);
+    }
+
+    private <N> void assertMerge(final JsonTreeSerializer<N> treeSerializer, final Function<String, N> parser, final String source, final String target,
+                                 final Map<String, Object> expected) {
+        Assertions.assertThat(this.toMap(treeSerializer, treeSerializer.mergeCopy(parser.apply(source), parser.apply(target)))).isEqualTo(expected);
+        Assertions.assertThat(this.toMap(treeSerializer, treeSerializer.merge(parser.apply(source), parser.apply(target)))).isEqualTo(expected);
+    }
+
+    private <N> void assertFilterAndMerge(final JsonTreeSerializer<N> treeSerializer, final Function<String, N> parser, final Schema schema,
+                                          final String data, final String previous, final Map<String, Object> expected) {
+        final N previousData = parser.apply(previous);
+
+        final N result = treeSerializer.filterAndMerge(schema, parser.apply(data), previousData, true, false);
+
+        Assertions.assertThat(this.toMap(treeSerializer, result)).isEqualTo(expected);
+        Assertions.assertThat(this.toMap(treeSerializer, previousData)).isEqualTo(new JSONObject(previous).toMap());
+    }
+
+    private <N> Map<String, Object> toMap(final JsonTreeSerializer<N> treeSerializer, final N node) {
+        return ((JSONObject) treeSerializer.getTree().toJson(node)).toMap();
+    }
+
+    private JsonNode readJackson(final String json) {
+        try {
+            return OBJECT_MAPPER.readTree(json);
+        } catch (final JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String getSchemaString(final String path) throws IOException, URISyntaxException {
+        return new String(Files.readAllBytes(Paths.get(this.getClass().getResource(path).toURI())));
+    }
+
+    /**
+     * Serializer that only implements the required methods and uses the default methods of the interface.
+     */
+    @RequiredArgsConstructor
+    private static class DelegatingSerializer implements JsonSerializer {
+
+        private final JsonSerializer delegate;
+
+        @Override
+        public Map<String, Object> deserialize(final Schema schema, final Map<String, Object> data) {
+            return this.delegate.deserialize(schema, data);
+        }
+
+        @Override
+        public JSONObject filter(final Schema schema, final JSONObject data, final boolean filterReadOnly) {
+            return this.delegate.filter(schema, data, filterReadOnly);
+        }
+
+        @Override
+        public Map<String, Object> merge(final JSONObject source, final JSONObject target) {
+            return this.delegate.merge(source, target);
+        }
+
+        @Override
+        public Set<String> extractRootKeys(final Schema schema) {
+            return this.delegate.extractRootKeys(schema);
+        }
+
+        @Override
+        public Object extractValue(final JSONObject data, final JsonPointer jsonPointer) {
+            return this.delegate.extractValue(data, jsonPointer);
+        }
+
+        @Override
+        public JSONObject generateValue(final JsonPointer jsonPointer, final String value) {
+            return this.delegate.generateValue(jsonPointer, value);
+        }
+
+        @Override
+        public JSONObject generateObject(final Set<String> keys) {
+            return this.delegate.generateObject(keys);
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package io.muenchendigital.digiwf.json.validation;
 
+import io.muenchendigital.digiwf.json.factory.JsonLimits;
 import io.muenchendigital.digiwf.json.factory.JsonSchemaFactory;
+import io.muenchendigital.digiwf.json.factory.LocalSchemaClient;
+import io.muenchendigital.digiwf.json.monitoring.SchemaNodeCost;
+import io.muenchendigital.digiwf.json.monitoring.SchemaProfile;
 import io.muenchendigital.digiwf.json.serialization.JsonSerializationService;
 import org.everit.json.schema.Schema;
 import org.everit.json.schema.ValidationException;
@@ -8,14 +12,22 @@ import org.json.JSONObject;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
-import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class JsonValidatorTest {
@@ -145,6 +157,199 @@ public class JsonValidatorTest {
     }
 
 
+    @Test
+    public void resolveReferenceFromClasspathLocation() {
+        final LocalSchemaClient schemaClient = new LocalSchemaClient(Map.of("https://example.com/schemas/", "schema/validation/refs"), null);
+        final JsonSchemaValidator validator = new JsonSchemaValidator(JsonLimits.DEFAULT, schemaClient);
+        final String schema = "{\"type\": \"object\", \"properties\": {\"address\": {\"$ref\": \"https://example.com/schemas/address.json\"}}}";
+
+        validator.validate(schema, Map.of("address", Map.of("zip", "80331")));
+        final ValidationException exception = assertThrows(ValidationException.class, () -> validator.validate(schema, Map.of("address", Map.of("zip", "8033"))));
+
+        assertThat(exception.getMessage()).isEqualTo("#/address/zip: string [8033] does not match pattern ^[0-9]{5}$");
+    }
+
+    @Test
+    public void resolveRegisteredReference() {
+        final LocalSchemaClient schemaClient = new LocalSchemaClient()
+                .register("https://example.com/schemas/name.json", "{\"type\": \"string\", \"maxLength\": 3}");
+        final JsonSchemaValidator validator = new JsonSchemaValidator(JsonLimits.DEFAULT, schemaClient);
+        final String schema = "{\"type\": \"object\", \"properties\": {\"name\": {\"$ref\": \"https://example.com/schemas/name.json#\"}}}";
+
+        validator.validate(schema, Map.of("name", "abc"));
+        assertThrows(ValidationException.class, () -> validator.validate(schema, Map.of("name", "abcd")));
+    }
+
+    @Test
+    public void rejectUnknownReferenceWithoutNetworkAccess() {
+        final JsonSchemaValidator validator = new JsonSchemaValidator(JsonLimits.DEFAULT, new LocalSchemaClient());
+        final String schema = "{\"type\": \"object\", \"properties\": {\"name\": {\"$ref\": \"https://example.com/schemas/unknown.json\"}}}";
+
+        assertThrows(UncheckedIOException.class, () -> validator.validate(schema, Map.of("name", "abc")));
+    }
+
+    @Test
+    public void readRemoteReferenceOnceAndRetryFailures() {
+        final AtomicInteger requests = new AtomicInteger();
+        final LocalSchemaClient schemaClient = new LocalSchemaClient(Map.of(), url -> {
+            if (requests.incrementAndGet() == 1) {
+                throw new UncheckedIOException(new IOException("connection reset"));
+            }
+            return new ByteArrayInputStream("{\"type\": \"string\"}".getBytes(StandardCharsets.UTF_8));
+        });
+
+        assertThrows(UncheckedIOException.class, () -> schemaClient.get("https://example.com/schemas/name.json"));
+        assertThat(schemaClient.get("https://example.com/schemas/name.json")).hasContent("{\"type\": \"string\"}");
+        assertThat(schemaClient.get("https://example.com/schemas/name.json#/definitions")).hasContent("{\"type\": \"string\"}");
+        assertThat(requests).hasValue(2);
+    }
+
+    @Test
+    public void validatePartialChangedValue() throws URISyntaxException, IOException {
+        final Map<String, Object> data = Map.of(
+                "numberProp1", 12,
+                "stringProp1", "fdsfsdafsdafadsfsadfsdafdfdsfsdafsdafadsfsadfsdafd"
+        );
+        final String rawSchema = this.getSchemaString("/schema/validation/simpleSchema.json");
+
+        final ValidationException partial = assertThrows(ValidationException.class, () -> this.validationService.validatePartial(rawSchema, data, List.of("/stringProp1")));
+        final ValidationException full = assertThrows(ValidationException.class, () -> this.validationService.validate(rawSchema, data));
+
+        assertThat(partial.getMessage()).isEqualTo(full.getMessage());
+        assertThat(partial.getPointerToViolation()).isEqualTo("#/stringProp1");
+    }
+
+    @Test
+    public void validatePartialIgnoresUnchangedValues() throws URISyntaxException, IOException {
+        final Map<String, Object> data = Map.of(
+                "numberProp1", 12,
+                "stringProp1", "fdsfsdafsdafadsfsadfsdafdfdsfsdafsdafadsfsadfsdafd"
+        );
+        final String rawSchema = this.getSchemaString("/schema/validation/simpleSchema.json");
+
+        this.validationService.validatePartial(rawSchema, data, List.of("/numberProp1"));
+    }
+
+    @Test
+    public void validatePartialRemovedValue() throws URISyntaxException, IOException {
+        final Map<String, Object> data = Map.of(
+                "stringProp1", "abc",
+                "unknownProp", "abc"
+        );
+        final String rawSchema = this.getSchemaString("/schema/validation/simpleSchema.json");
+
+        final ValidationException partial = assertThrows(ValidationException.class, () -> this.validationService.validatePartial(rawSchema, data, List.of("/numberProp1")));
+        final ValidationException full = assertThrows(ValidationException.class, () -> this.validationService.validate(rawSchema, data));
+
+        assertThat(partial.getMessage()).isEqualTo(full.getMessage());
+        assertThat(partial.getAllMessages()).isEqualTo(full.getAllMessages());
+    }
+
+    @Test
+    public void validatePartialDependentCondition() throws URISyntaxException, IOException {
+        final Map<String, Object> data = Map.of(
+                "numberCondition", 10,
+                "stringProp3", 5
+        );
+        final String rawSchema = this.getSchemaString("/schema/validation/ifElseSchema.json");
+
+        final ValidationException partial = assertThrows(ValidationException.class, () -> this.validationService.validatePartial(rawSchema, data, List.of("/numberCondition")));
+        final ValidationException full = assertThrows(ValidationException.class, () -> this.validationService.validate(rawSchema, data));
+
+        // the full validation reports the violation as cause of the failed allOf schema
+        assertThat(partial.getAllMessages()).isEqualTo(full.getAllMessages());
+    }
+
+    @Test
+    public void validateIndexedConstUnionsLikeOriginalSchema() {
+        final String schema = this.createUnionSchema();
+        final Schema original = JsonSerializationService.createSchema(schema);
+        final List<Map<String, Object>> documents = List.of(
+                Map.of("select", "OPTION_250"),
+                Map.of("select", "OPTION_500"),
+                Map.of("select", 250),
+                Map.of("priority", 2.0),
+                Map.of("priority", 4),
+                Map.of("priority", "1"),
+                Map.of("permit", Map.of("kind", "RESIDENT", "plate", "M-AB 123")),
+                Map.of("permit", Map.of("kind", "RESIDENT", "company", "ACME")),
+                Map.of("permit", Map.of("kind", "CRAFTSMAN", "company", "ACME")),
+                Map.of("permit", Map.of("kind", "VISITOR", "company", "ACME")),
+                Map.of("permit", Map.of("plate", "M-AB 123")),
+                Map.of("permit", "RESIDENT"),
+                Map.of("duplicate", "A")
+        );
+
+        for (final Map<String, Object> document : documents) {
+            final boolean valid = isValid(() -> original.validate(new JSONObject(document)));
+            assertThat(isValid(() -> this.validationService.validate(schema, document)))
+                    .as("validation of %s", document)
+                    .isEqualTo(valid);
+        }
+    }
+
+    @Test
+    public void reportViolationOfIndexedConstUnion() {
+        final ValidationException exception = assertThrows(ValidationException.class,
+                () -> this.validationService.validate(this.createUnionSchema(), Map.of("select", "UNKNOWN")));
+
+        assertThat(exception.getPointerToViolation()).isEqualTo("#/select");
+        assertThat(exception.getMessage()).isEqualTo("#/select: \"UNKNOWN\" is not one of the 500 permitted values");
+    }
+
+    @Test
+    public void cacheValidationResults() throws URISyntaxException, IOException {
+        final ValidationResultCache resultCache = new ValidationResultCache(10);
+        final JsonSchemaValidator validator = new JsonSchemaValidator(JsonLimits.DEFAULT, JsonSchemaFactory.schemaClient(), resultCache);
+        final String rawSchema = this.getSchemaString("/schema/validation/simpleSchema.json");
+        final Map<String, Object> invalid = Map.of("numberProp1", 12, "stringProp1", "fdsfsdafsdafadsfsadfsdafdfdsfsdafsdafadsfsadfsdafd");
+
+        validator.validate(rawSchema, Map.of("numberProp1", 12, "stringProp1", "abc"));
+        validator.validate(rawSchema, new StringReader("{\"stringProp1\": \"abc\", \"numberProp1\": 12}"));
+        final ValidationException exception = assertThrows(ValidationException.class, () -> validator.validate(rawSchema, invalid));
+        final ValidationException cached = assertThrows(ValidationException.class, () -> validator.validate(rawSchema, invalid));
+
+        // a cached violation is thrown as a new exception with the same violations
+        assertThat(cached).isNotSameAs(exception);
+        assertThat(cached.getMessage()).isEqualTo(exception.getMessage());
+        assertThat(cached.getPointerToViolation()).isEqualTo(exception.getPointerToViolation());
+        assertThat(cached.getAllMessages()).isEqualTo(exception.getAllMessages());
+        assertThat(cached.toJSON().similar(exception.toJSON())).isTrue();
+        assertThat(resultCache.getHits()).isEqualTo(2);
+        assertThat(resultCache.getMisses()).isEqualTo(2);
+        assertThat(resultCache.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void explainValidation() {
+        final String schema = "{\"type\": \"object\", \"properties\": {"
+                + "\"name\": {\"type\": \"string\", \"pattern\": \"^[a-z]+$\"},"
+                + "\"items\": {\"type\": \"array\", \"items\": {\"type\": \"object\", \"properties\": {\"amount\": {\"type\": \"integer\", \"maximum\": 10}}}}"
+                + "}}";
+        final List<Map<String, Object>> items = IntStream.range(0, 20)
+                .mapToObj(index -> Map.<String, Object>of("amount", index))
+                .collect(Collectors.toList());
+
+        final SchemaProfile profile = this.validationService.explain(schema, Map.of("name", "abc", "items", items));
+
+        assertThat(profile.getNodes("#/properties/items/items/properties/amount")).singleElement()
+                .satisfies(node -> {
+                    assertThat(node.getKeyword()).isEqualTo("integer");
+                    assertThat(node.getInvocations()).isEqualTo(20);
+                    assertThat(node.getFailures()).isEqualTo(9);
+                });
+        assertThat(profile.getNodes("#/properties/items/items")).singleElement()
+                .satisfies(node -> assertThat(node.getInvocations()).isEqualTo(20));
+        assertThat(profile.getNodes("#")).singleElement()
+                .satisfies(node -> {
+                    assertThat(node.getKeyword()).isEqualTo("object");
+                    assertThat(node.getFailures()).isEqualTo(1);
+                    assertThat(node.getTotalNanos()).isGreaterThanOrEqualTo(node.getSelfNanos());
+                });
+        assertThat(profile.getNodes()).isSortedAccordingTo(Comparator.comparingLong(SchemaNodeCost::getSelfNanos).reversed());
+        assertThat(profile.toString()).contains("#/properties/name string");
+    }
+
     //------------------------------------ Helper Methods ------------------------------------//
 
 
@@ -152,6 +357,30 @@ public class JsonValidatorTest {
         return JsonSchemaFactory.gson().fromJson(schemaString, JsonSchemaFactory.mapType());
     }
 
+    private String createUnionSchema() {
+        final StringBuilder options = new StringBuilder();
+        for (int index = 1; index <= 500; index++) {
+            options.append(index > 1 ? "," : "").append("{\"const\": \"OPTION_").append(index).append("\", \"title\": \"Option ").append(index).append("\"}");
+        }
+        return "{\"type\": \"object\", \"properties\": {"
+                + "\"select\": {\"type\": \"string\", \"anyOf\": [" + options + "]},"
+                + "\"priority\": {\"oneOf\": [{\"const\": 1}, {\"const\": 2}, {\"enum\": [3, \"3\"]}]},"
+                + "\"permit\": {\"oneOf\": ["
+                + "{\"type\": \"object\", \"properties\": {\"kind\": {\"const\": \"RESIDENT\"}, \"plate\": {\"type\": \"string\"}}, \"required\": [\"kind\", \"plate\"]},"
+                + "{\"type\": \"object\", \"properties\": {\"kind\": {\"const\": \"CRAFTSMAN\"}, \"company\": {\"type\": \"string\"}}, \"required\": [\"kind\", \"company\"]}]},"
+                + "\"duplicate\": {\"oneOf\": [{\"const\": \"A\"}, {\"enum\": [\"A\", \"B\"]}]}"
+                + "}}";
+    }
+
+    private static boolean isValid(final Runnable validation) {
+        try {
+            validation.run();
+            return true;
+        } catch (final ValidationException e) {
+            return false;
+        }
+    }
+
     private String getSchemaString(final String path) throws IOException, URISyntaxException {
         return new String(Files.readAllBytes(Paths.get(this.getClass().getResource(path).toURI())));
     }
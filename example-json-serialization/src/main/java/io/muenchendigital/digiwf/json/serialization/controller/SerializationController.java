@@ -3,7 +3,6 @@ package io.muenchendigital.digiwf.json.serialization.controller;
 import io.muenchendigital.digiwf.json.serialization.JsonSerializationService;
 import io.muenchendigital.digiwf.json.serialization.dto.DataDto;
 import lombok.RequiredArgsConstructor;
-import org.json.JSONObject;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
@@ -27,8 +26,7 @@ public class SerializationController {
     @PostMapping(path = "/serialize")
     public Map<String, Object> serialize(@RequestBody final DataDto body) throws IOException, URISyntaxException {
         final String rawSchema = this.getSchemaString(body.getSchema());
-        final JSONObject filteredData = this.jsonSchemaSerializationService.filter(rawSchema, body.getData(), true);
-        return this.jsonSchemaSerializationService.merge(filteredData, new JSONObject(body.getPreviousData()));
+        return this.jsonSchemaSerializationService.filterAndMerge(rawSchema, body.getData(), body.getPreviousData(), true);
     }
 
     @PostMapping(path = "/deserialize")
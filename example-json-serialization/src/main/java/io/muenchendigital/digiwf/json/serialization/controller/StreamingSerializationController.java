@@ -0,0 +1,92 @@
+package io.muenchendigital.digiwf.json.serialization.controller;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import io.muenchendigital.digiwf.json.factory.JsonSchemaFactory;
+import io.muenchendigital.digiwf.json.factory.LimitedReader;
+import io.muenchendigital.digiwf.json.serialization.model.CompiledSchema;
+import io.muenchendigital.digiwf.json.serialization.service.MergeWriter;
+import io.muenchendigital.digiwf.json.serialization.service.SchemaRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Demo Controller with a high throughput version of /serialize.
+ * <p>
+ * The schema is addressed by its id and compiled once. The request body ({@code {"data": {...}, "previousData": {...}}})
+ * is read with a stream reader that filters the data while reading, and the merge result is written directly to the
+ * response without building the merged data or converting it between org.json and Jackson.
+ */
+@RequiredArgsConstructor
+@RestController
+public class StreamingSerializationController {
+
+    private static final long MAX_BODY_SIZE = 10L * 1024 * 1024;
+
+    private static final TypeToken<Map<String, Object>> MAP_TYPE = mapType();
+
+    private final SchemaRepository schemaRepository;
+
+    private final MergeWriter mergeWriter = new MergeWriter();
+
+    @PostMapping(path = "/schemas/{schemaId}/serialize")
+    public void serialize(@PathVariable final String schemaId, final HttpServletRequest request, final HttpServletResponse response) throws IOException {
+        final CompiledSchema schema = this.schemaRepository.getSchema(schemaId);
+        final TypeAdapter<Map<String, Object>> dataAdapter = schema.getGson(true).getAdapter(MAP_TYPE);
+        final TypeAdapter<Map<String, Object>> previousDataAdapter = JsonSchemaFactory.gson().getAdapter(MAP_TYPE);
+
+        Map<String, Object> data = Map.of();
+        Map<String, Object> previousData = Map.of();
+        try (final JsonReader reader = new JsonReader(new BufferedReader(new LimitedReader(
+                new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8), MAX_BODY_SIZE)))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                final String name = reader.nextName();
+                if ("data".equals(name)) {
+                    data = dataAdapter.read(reader);
+                } else if ("previousData".equals(name)) {
+                    previousData = previousDataAdapter.read(reader);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        try (final JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8)))) {
+            this.mergeWriter.write(data != null ? data : Map.of(), previousData != null ? previousData : Map.of(), writer);
+        }
+    }
+
+    @ExceptionHandler(NoSuchElementException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public void handleUnknownSchema() {
+        // unknown schema id
+    }
+
+    @SuppressWarnings("unchecked")
+    private static TypeToken<Map<String, Object>> mapType() {
+        return (TypeToken<Map<String, Object>>) TypeToken.get(JsonSchemaFactory.mapType());
+    }
+}
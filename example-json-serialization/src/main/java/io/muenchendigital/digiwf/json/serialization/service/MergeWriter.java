@@ -0,0 +1,63 @@
+package io.muenchendigital.digiwf.json.serialization.service;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import io.muenchendigital.digiwf.json.factory.JsonSchemaFactory;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Writes the merge result of two maps directly as json without building the merged map.
+ * <p>
+ * The result is the same as JsonSerializationService.merge(new JSONObject(source), new JSONObject(target)): values of
+ * the source replace the values of the target, nested objects are merged and null values of the source remove the value
+ * of the target. Null values of the target are dropped like in {@code new JSONObject(target)}, null values inside
+ * source values are kept.
+ */
+public class MergeWriter {
+
+    private static final Gson SOURCE_GSON = JsonSchemaFactory.gson().newBuilder().serializeNulls().create();
+
+    private static final Gson TARGET_GSON = JsonSchemaFactory.gson();
+
+    /**
+     * Writes the merged object.
+     *
+     * @param source data that is merged into the target
+     * @param target previous data
+     * @param writer json writer
+     * @throws IOException if writing fails
+     */
+    public void write(final Map<String, Object> source, final Map<String, Object> target, final JsonWriter writer) throws IOException {
+        writer.beginObject();
+        for (final Map.Entry<String, Object> entry : target.entrySet()) {
+            if (!source.containsKey(entry.getKey()) && entry.getValue() != null) {
+                writer.name(entry.getKey());
+                TARGET_GSON.toJson(entry.getValue(), entry.getValue().getClass(), writer);
+            }
+        }
+        for (final Map.Entry<String, Object> entry : source.entrySet()) {
+            final Object value = entry.getValue();
+            if (value == null) {
+                // null values remove the value of the target
+                continue;
+            }
+            writer.name(entry.getKey());
+            final Object targetValue = target.get(entry.getKey());
+            if (value instanceof Map && targetValue != null) {
+                this.write(this.asMap(value), targetValue instanceof Map ? this.asMap(targetValue) : Map.of(), writer);
+            } else {
+                SOURCE_GSON.toJson(value, value.getClass(), writer);
+            }
+        }
+        writer.endObject();
+    }
+
+    //------------------------------------- helper methods -------------------------------------//
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> asMap(final Object value) {
+        return (Map<String, Object>) value;
+    }
+}
@@ -0,0 +1,56 @@
+package io.muenchendigital.digiwf.json.serialization.service;
+
+import io.muenchendigital.digiwf.json.serialization.JsonSerializationService;
+import io.muenchendigital.digiwf.json.serialization.model.CompiledSchema;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Loads the schemas of the example once by their id and compiles them.
+ * The id is the file name of a schema in schema/serialization without the file extension, e.g. simpleSchema.
+ */
+@Service
+@RequiredArgsConstructor
+public class SchemaRepository {
+
+    private static final String SCHEMA_LOCATION = "schema/serialization/";
+
+    private final JsonSerializationService jsonSchemaSerializationService;
+
+    private final Map<String, CompiledSchema> schemas = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the compiled schema with the given id.
+     *
+     * @param schemaId id of the schema
+     * @return compiled schema
+     * @throws NoSuchElementException if there is no schema with the id
+     */
+    public CompiledSchema getSchema(final String schemaId) {
+        return this.schemas.computeIfAbsent(schemaId, id -> this.jsonSchemaSerializationService.compile(this.loadSchema(id)));
+    }
+
+    //------------------------------------- helper methods -------------------------------------//
+
+    private String loadSchema(final String schemaId) {
+        if (!schemaId.matches("[\\w-]+")) {
+            throw new NoSuchElementException("invalid schema id " + schemaId);
+        }
+        try (final InputStream inputStream = this.getClass().getClassLoader().getResourceAsStream(SCHEMA_LOCATION + schemaId + ".json")) {
+            if (inputStream == null) {
+                throw new NoSuchElementException("schema " + schemaId + " not found");
+            }
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package io.muenchendigital.digiwf.json.serialization.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Load generator that compares /serialize with the streaming endpoint /schemas/{schemaId}/serialize.
+ * <p>
+ * Start the example application and run the main method, e.g. with
+ * {@code mvn exec:java -Dexec.mainClass=io.muenchendigital.digiwf.json.serialization.loadtest.SerializationLoadGenerator -Dexec.classpathScope=test}.
+ * Arguments (all optional): base url (default http://localhost:8080), number of threads (default 8),
+ * requests per thread (default 2000). Each endpoint is warmed up with the same number of requests before it is measured.
+ */
+public class SerializationLoadGenerator {
+
+    private static final String DATA = "{"
+            + "\"textarea1\": \"textAreaValue\", \"booleanprop\": true, \"dateprop\": \"2020-10-1\", \"stringProp1\": \"stringValue\","
+            + "\"numberProp1\": 12, \"unknownProp\": \"ignored\", \"objectProp\": {\"stringProp1\": \"test\"}}";
+
+    private static final String PREVIOUS_DATA = "{\"numberProp1\": 100, \"textarea1\": \"previous\"}";
+
+    public static void main(final String[] args) throws Exception {
+        final String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        final int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        final int requests = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+
+        final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        final HttpRequest classic = request(baseUrl + "/serialize",
+                "{\"schema\": \"/schema/serialization/objectSchema.json\", \"data\": " + DATA + ", \"previousData\": " + PREVIOUS_DATA + "}");
+        final HttpRequest streaming = request(baseUrl + "/schemas/objectSchema/serialize",
+                "{\"data\": " + DATA + ", \"previousData\": " + PREVIOUS_DATA + "}");
+
+        for (final HttpRequest request : List.of(classic, streaming)) {
+            run(client, request, threads, requests);
+            final Result result = run(client, request, threads, requests);
+            System.out.println(request.uri().getPath() + ": " + result);
+        }
+    }
+
+    //------------------------------------- helper methods -------------------------------------//
+
+    private static HttpRequest request(final String url, final String body) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static Result run(final HttpClient client, final HttpRequest request, final int threads, final int requests) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final List<Future<List<Long>>> futures = new ArrayList<>();
+        final long start = System.nanoTime();
+        for (int thread = 0; thread < threads; thread++) {
+            futures.add(executor.submit(() -> {
+                final List<Long> latencies = new ArrayList<>(requests);
+                for (int i = 0; i < requests; i++) {
+                    final long requestStart = System.nanoTime();
+                    final HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() != 200) {
+                        throw new IllegalStateException(request.uri() + " returned " + response.statusCode());
+                    }
+                    latencies.add(System.nanoTime() - requestStart);
+                }
+                return latencies;
+            }));
+        }
+        final List<Long> latencies = new ArrayList<>(threads * requests);
+        for (final Future<List<Long>> future : futures) {
+            latencies.addAll(future.get());
+        }
+        final long duration = System.nanoTime() - start;
+        executor.shutdown();
+        Collections.sort(latencies);
+        return new Result(latencies.size() * 1_000_000_000.0 / duration, percentile(latencies, 0.5), percentile(latencies, 0.99));
+    }
+
+    private static double percentile(final List<Long> sortedLatencies, final double percentile) {
+        final int index = (int) Math.ceil(percentile * sortedLatencies.size()) - 1;
+        return sortedLatencies.get(Math.max(0, index)) / 1_000_000.0;
+    }
+
+    private static class Result {
+        private final double throughput;
+        private final double p50;
+        private final double p99;
+
+        private Result(final double throughput, final double p50, final double p99) {
+            this.throughput = throughput;
+            this.p50 = p50;
+            this.p99 = p99;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.0f requests/s, p50 %.2f ms, p99 %.2f ms", this.throughput, this.p50, this.p99);
+        }
+    }
+}